@@ -0,0 +1,137 @@
+package analysis;
+
+import model.BlackjackModel;
+import model.BlackjackRules;
+import model.Card;
+import model.Hand;
+import model.Shoe;
+
+import java.util.List;
+
+/**
+ * Compares the expected value of hitting and standing for the player's
+ * current hand, given the dealer's upcard and the unseen cards.
+ *
+ * Standing is valued against the exact dealer distribution from
+ * {@link DealerOutcomes}. Hitting is valued by enumerating the player's
+ * next cards (with removal) and playing each resulting hand optimally; to keep
+ * queries fast, the dealer distribution for those hands is the one for the
+ * current composition rather than being recomputed after every player card.
+ */
+public class BlackjackAdvisor {
+
+    /** Expected values of the two options; {@code shouldHit} picks the better one. */
+    public record Advice(double standEv, double hitEv) {
+        public boolean shouldHit() {
+            return hitEv > standEv;
+        }
+    }
+
+    private final DealerOutcomes dealerOutcomes;
+
+    public BlackjackAdvisor() {
+        this(new DealerOutcomes(4096));
+    }
+
+    public BlackjackAdvisor(DealerOutcomes dealerOutcomes) {
+        this.dealerOutcomes = dealerOutcomes;
+    }
+
+    /**
+     * Advises on the player's hand in a game in progress. The dealer's hole
+     * card is treated as unseen, exactly as the player sees the table. The
+     * hands and the shoe are read together under the model's lock, so the
+     * advice is for one consistent position even while another thread plays.
+     *
+     * @throws IllegalStateException if no hand has been dealt yet
+     */
+    public Advice advise(BlackjackModel model) {
+        int[] unseen = new int[11];
+        Hand player = new Hand();
+        int upcard;
+        synchronized (model) {
+            List<Card> dealerCards = model.getDealerHand();
+            if (dealerCards.size() < 2) {
+                throw new IllegalStateException("No hand has been dealt yet");
+            }
+            Shoe shoe = model.getShoe();
+            shoe.copyRemainingByPoints(unseen);
+            unseen[Hand.pointsOf(dealerCards.get(1).getCode())]++;
+            upcard = Hand.pointsOf(dealerCards.get(0).getCode());
+            for (Card card : model.getPlayerHand()) {
+                player.add(card);
+            }
+        }
+        return advise(player, upcard, unseen);
+    }
+
+    /**
+     * Advises on a hand against a dealer upcard.
+     *
+     * @param upcard points of the dealer's upcard, 1 for an Ace
+     * @param unseen unseen cards by points 1-10, including the dealer's hole card
+     */
+    public Advice advise(Hand player, int upcard, int[] unseen) {
+        double[] dealer = dealerOutcomes.distribution(upcard, unseen);
+        if (player.isBust()) {
+            return new Advice(-1.0, -1.0);
+        }
+
+        int[] work = unseen.clone();
+        int remaining = 0;
+        for (int points = 1; points <= 10; points++) {
+            remaining += work[points];
+        }
+        return new Advice(standEv(player.value(), dealer),
+                          hitEv(player.hardTotal(), player.hasAce(), work, remaining, dealer));
+    }
+
+    /**
+     * Expected value of standing on {@code total} against a dealer distribution.
+     */
+    public static double standEv(int total, double[] dealer) {
+        if (total > 21) {
+            return -1.0;
+        }
+        double ev = dealer[DealerOutcomes.BUST];
+        for (int i = 0; i < DealerOutcomes.BUST; i++) {
+            int dealerTotal = BlackjackRules.DEALER_STANDS_ON + i;
+            if (total > dealerTotal) {
+                ev += dealer[i];
+            } else if (total < dealerTotal) {
+                ev -= dealer[i];
+            }
+        }
+        return ev;
+    }
+
+    private static double hitEv(int hardTotal, boolean hasAce, int[] counts, int remaining, double[] dealer) {
+        if (remaining == 0) {
+            return standEv(hasAce && hardTotal <= 11 ? hardTotal + 10 : hardTotal, dealer);
+        }
+        double ev = 0.0;
+        for (int points = 1; points <= 10; points++) {
+            int n = counts[points];
+            if (n == 0) {
+                continue;
+            }
+            double p = (double) n / remaining;
+            int hard = hardTotal + points;
+            boolean ace = hasAce || points == 1;
+            int value = ace && hard <= 11 ? hard + 10 : hard;
+
+            if (hard > 21) {
+                ev -= p;
+            } else if (value == 21) {
+                // 21 stands automatically
+                ev += p * standEv(21, dealer);
+            } else {
+                counts[points]--;
+                double best = Math.max(standEv(value, dealer), hitEv(hard, ace, counts, remaining - 1, dealer));
+                counts[points]++;
+                ev += p * best;
+            }
+        }
+        return ev;
+    }
+}
@@ -0,0 +1,204 @@
+package analysis;
+
+import model.BlackjackRules;
+import model.Shoe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Exact expected return of the blackjack rules in {@link BlackjackRules}
+ * from a freshly shuffled shoe, by walking the whole game tree instead of
+ * sampling it.
+ *
+ * Every initial deal (two player cards and the dealer's upcard) is weighted
+ * by its exact probability. The player's hand is then played out by
+ * enumerating each possible next card with removal, and every standing hand is
+ * valued against the exact dealer distribution for the composition at that
+ * point, memoized by {@link DealerOutcomes}. Initial deals are evaluated in
+ * parallel on a fork/join pool.
+ */
+public class BlackjackEnumerator {
+
+    /** Pass as {@code standOn} to play every decision optimally for the exact composition. */
+    public static final int OPTIMAL = 0;
+
+    /**
+     * Exact expected return overall and for every initial deal. Deals are
+     * indexed by points 1-10, with the player's cards in ascending order.
+     */
+    public static class Result {
+        private final double[][][] dealEv = new double[11][11][11];
+        private final double[][][] dealProbability = new double[11][11][11];
+
+        /** Expected return per hand at even money. */
+        public double getExpectedReturn() {
+            double total = 0.0;
+            for (int up = 1; up <= 10; up++) {
+                for (int first = 1; first <= 10; first++) {
+                    for (int second = first; second <= 10; second++) {
+                        total += dealProbability[first][second][up] * dealEv[first][second][up];
+                    }
+                }
+            }
+            return total;
+        }
+
+        /** Expected return of a deal, given that it was dealt. */
+        public double getDealEv(int firstCard, int secondCard, int upcard) {
+            return dealEv[Math.min(firstCard, secondCard)][Math.max(firstCard, secondCard)][upcard];
+        }
+
+        /** Probability of a deal, counting both orders of the player's cards. */
+        public double getDealProbability(int firstCard, int secondCard, int upcard) {
+            return dealProbability[Math.min(firstCard, secondCard)][Math.max(firstCard, secondCard)][upcard];
+        }
+    }
+
+    private final DealerOutcomes dealerOutcomes;
+    private final ForkJoinPool pool;
+
+    public BlackjackEnumerator() {
+        this(new DealerOutcomes(1 << 20), ForkJoinPool.commonPool());
+    }
+
+    public BlackjackEnumerator(DealerOutcomes dealerOutcomes, ForkJoinPool pool) {
+        this.dealerOutcomes = dealerOutcomes;
+        this.pool = pool;
+    }
+
+    /**
+     * Enumerates a fresh shoe of {@code numDecks} decks.
+     *
+     * @param standOn the total the player stands on, or {@link #OPTIMAL} to
+     *                play every decision optimally for the exact composition
+     */
+    public Result enumerate(int numDecks, int standOn) {
+        if (numDecks < Shoe.MIN_DECKS || numDecks > Shoe.MAX_DECKS) {
+            throw new IllegalArgumentException("Number of decks must be between "
+                    + Shoe.MIN_DECKS + " and " + Shoe.MAX_DECKS + ": " + numDecks);
+        }
+        int[] shoe = new int[11];
+        for (int points = 1; points <= 9; points++) {
+            shoe[points] = 4 * numDecks;
+        }
+        shoe[10] = 16 * numDecks;
+
+        Result result = new Result();
+        List<RecursiveAction> deals = new ArrayList<>();
+        for (int up = 1; up <= 10; up++) {
+            for (int first = 1; first <= 10; first++) {
+                for (int second = first; second <= 10; second++) {
+                    deals.add(new DealTask(shoe, first, second, up, standOn, result));
+                }
+            }
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(deals);
+            }
+        });
+        return result;
+    }
+
+    @SuppressWarnings("serial")
+    private class DealTask extends RecursiveAction {
+        private final int[] shoe;
+        private final int first;
+        private final int second;
+        private final int upcard;
+        private final int standOn;
+        private final Result result;
+
+        DealTask(int[] shoe, int first, int second, int upcard, int standOn, Result result) {
+            this.shoe = shoe;
+            this.first = first;
+            this.second = second;
+            this.upcard = upcard;
+            this.standOn = standOn;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            int[] counts = shoe.clone();
+            int remaining = 0;
+            for (int points = 1; points <= 10; points++) {
+                remaining += counts[points];
+            }
+
+            double probability = (double) counts[first] / remaining--;
+            counts[first]--;
+            probability *= (double) counts[second] / remaining--;
+            counts[second]--;
+            probability *= (double) counts[upcard] / remaining--;
+            counts[upcard]--;
+            if (counts[first] < 0 || counts[second] < 0 || counts[upcard] < 0) {
+                return;
+            }
+            if (first != second) {
+                probability *= 2;
+            }
+
+            int hard = first + second;
+            boolean hasAce = first == 1 || second == 1;
+            double ev;
+            if (hasAce && hard == 11) {
+                // A natural stands automatically
+                ev = BlackjackAdvisor.standEv(21, dealerOutcomes.distribution(upcard, counts));
+            } else {
+                ev = playerEv(hard, hasAce, counts, remaining);
+            }
+
+            // Each task owns its own cell
+            result.dealEv[first][second][upcard] = ev;
+            result.dealProbability[first][second][upcard] = probability;
+        }
+
+        private double playerEv(int hard, boolean hasAce, int[] counts, int remaining) {
+            int value = hasAce && hard <= 11 ? hard + 10 : hard;
+            double stand = BlackjackAdvisor.standEv(value, dealerOutcomes.distribution(upcard, counts));
+            if (value == 21) {
+                return stand;
+            }
+            boolean mustDecide = standOn == OPTIMAL;
+            if (!mustDecide && value >= standOn) {
+                return stand;
+            }
+
+            double hit = 0.0;
+            for (int points = 1; points <= 10; points++) {
+                int n = counts[points];
+                if (n == 0) {
+                    continue;
+                }
+                double p = (double) n / remaining;
+                int nextHard = hard + points;
+                if (nextHard > 21) {
+                    hit -= p;
+                } else {
+                    counts[points]--;
+                    hit += p * playerEv(nextHard, hasAce || points == 1, counts, remaining - 1);
+                    counts[points]++;
+                }
+            }
+            return mustDecide ? Math.max(stand, hit) : hit;
+        }
+    }
+
+    public static void main(String[] args) {
+        int numDecks = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        BlackjackEnumerator enumerator = new BlackjackEnumerator();
+        for (int standOn : new int[] { 17, OPTIMAL }) {
+            long start = System.nanoTime();
+            Result result = enumerator.enumerate(numDecks, standOn);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d deck(s), %s: expected return %.6f (%.2f s)%n", numDecks,
+                    standOn == OPTIMAL ? "optimal play" : "stand on " + standOn,
+                    result.getExpectedReturn(), seconds);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package analysis;
+
+import model.BlackjackRules;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exact distribution of the dealer's final total for a given upcard and
+ * composition of unseen cards, under the rules in {@link BlackjackRules}.
+ *
+ * The dealer's hole card and every later draw are enumerated recursively,
+ * removing each card from the composition as it is drawn. Results are kept in
+ * a bounded LRU cache keyed by the upcard and the packed composition, so
+ * repeated queries for the same situation are a map lookup. The cache is
+ * split into stripes by key hash, each an LRU map with its own lock, so
+ * parallel callers such as {@link BlackjackEnumerator} rarely contend.
+ */
+public class DealerOutcomes {
+
+    /** Index of the bust probability in a distribution; 0-4 are totals 17-21. */
+    public static final int BUST = 5;
+
+    /** Number of entries in a distribution. */
+    public static final int OUTCOMES = 6;
+
+    private static final int LOW_COUNT_BITS = 6;
+    private static final int TEN_SHIFT = 9 * LOW_COUNT_BITS;
+    private static final int MAX_STRIPES = 64;
+
+    private record Key(int upcard, long composition) {}
+
+    private final Map<Key, double[]>[] stripes;
+
+    /**
+     * Creates an engine whose cache holds at most {@code cacheSize} distributions.
+     */
+    @SuppressWarnings("unchecked")
+    public DealerOutcomes(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative: " + cacheSize);
+        }
+        int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, cacheSize)));
+        int stripeSize = cacheSize / count;
+        this.stripes = new Map[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+                    return size() > stripeSize;
+                }
+            };
+        }
+    }
+
+    private Map<Key, double[]> stripe(Key key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ hash >>> 16) & (stripes.length - 1)];
+    }
+
+    /**
+     * Gets the probabilities of the dealer finishing on 17, 18, 19, 20, 21 or
+     * busting. The returned array is shared with the cache and must not be
+     * modified.
+     *
+     * @param upcard points of the dealer's upcard, 1 for an Ace
+     * @param counts unseen cards by points 1-10, including the hole card;
+     *               read but left unchanged
+     */
+    public double[] distribution(int upcard, int[] counts) {
+        Key key = new Key(upcard, pack(counts));
+        Map<Key, double[]> cache = stripe(key);
+        synchronized (cache) {
+            double[] cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        double[] outcomes = new double[OUTCOMES];
+        int[] work = counts.clone();
+        int remaining = 0;
+        for (int points = 1; points <= 10; points++) {
+            remaining += work[points];
+        }
+        draw(upcard, upcard == 1, work, remaining, 1.0, outcomes);
+
+        synchronized (cache) {
+            cache.put(key, outcomes);
+        }
+        return outcomes;
+    }
+
+    private static void draw(int hardTotal, boolean hasAce, int[] counts, int remaining,
+                             double probability, double[] outcomes) {
+        for (int points = 1; points <= 10; points++) {
+            int n = counts[points];
+            if (n == 0) {
+                continue;
+            }
+            double p = probability * n / remaining;
+            int hard = hardTotal + points;
+            boolean ace = hasAce || points == 1;
+            int value = ace && hard <= 11 ? hard + 10 : hard;
+
+            if (value >= BlackjackRules.DEALER_STANDS_ON) {
+                outcomes[value > 21 ? BUST : value - BlackjackRules.DEALER_STANDS_ON] += p;
+            } else {
+                counts[points]--;
+                draw(hard, ace, counts, remaining - 1, p, outcomes);
+                counts[points]++;
+            }
+        }
+    }
+
+    private static long pack(int[] counts) {
+        long packed = 0;
+        for (int points = 1; points <= 9; points++) {
+            packed |= (long) counts[points] << ((points - 1) * LOW_COUNT_BITS);
+        }
+        return packed | (long) counts[10] << TEN_SHIFT;
+    }
+
+    public int cachedDistributions() {
+        int size = 0;
+        for (Map<Key, double[]> cache : stripes) {
+            synchronized (cache) {
+                size += cache.size();
+            }
+        }
+        return size;
+    }
+}
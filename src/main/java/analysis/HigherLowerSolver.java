@@ -0,0 +1,565 @@
+package analysis;
+
+import model.Card;
+import model.Deck;
+import model.HigherLowerModel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Exact solver for Higher/Lower under perfect play.
+ *
+ * A state is the count of undealt cards of each value plus the value of the
+ * card showing. For every state the solver computes the best achievable
+ * expected score and, separately, the best achievable probability of getting
+ * through the whole deck.
+ *
+ * The states below a deck form a lattice of compositions, and a state with
+ * {@code n} cards left only depends on states with {@code n - 1}. The solver
+ * therefore fills the lattice of the full deck one layer of equal card
+ * count at a time. Within a layer a composition has a dense index, its rank
+ * in lexicographic order, and each showing value has its own array over that
+ * index. Every state is solved exactly once. Removing the same card from
+ * every composition of a layer keeps them in order, so the lookups into the
+ * previous layer are a handful of ascending streams.
+ *
+ * Every layer is kept, so the solved lattice is a table of every position a
+ * game can reach: {@link #evaluate} and {@link #bestGuess} rank the live
+ * deck's composition and read the answer, without solving anything. The
+ * table has 2 floats per composition and showing value: a few hundred
+ * kilobytes for one suit, but about 130 GB for four suits and 400 GB with
+ * Jokers. Tables that don't fit comfortably on the heap are memory-mapped,
+ * see {@link #setScratchDirectory}, and {@link #save} writes the table in
+ * the same layout, so {@link #load} only has to map it.
+ */
+public class HigherLowerSolver {
+
+    /** Best expected score and best probability of clearing the deck. */
+    public record Solution(double expectedScore, double clearProbability) {}
+
+    private static final int MIN_VALUE = 2;
+    private static final int STANDARD_VALUES = 13;
+    /** Tables of up to this many floats stay on the heap. */
+    private static final long HEAP_TABLE_FLOATS = 1 << 24;
+    private static final int CHUNK_SIZE = 1 << 14;
+    private static final int FILE_MAGIC = 0x484c534f; // "HLSO"
+    private static final int FILE_VERSION = 3;
+    /** Magic, version, suits, Jokers flag, then the fresh deck's solution. */
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + 2 * Double.BYTES;
+    /** The table layout on disk and in scratch files, whatever the platform. */
+    private static final ByteOrder TABLE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final int suits;
+    private final boolean includeJokers;
+    private final int positions;
+    private volatile Lattice table;
+    private Path scratchDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+
+    /**
+     * Creates a solver for a deck with {@code suits} cards of each standard
+     * rank (4 for a real deck) and optionally the two Jokers.
+     */
+    public HigherLowerSolver(int suits, boolean includeJokers) {
+        if (suits < 1 || suits > 4) {
+            throw new IllegalArgumentException("Suits must be between 1 and 4: " + suits);
+        }
+        this.suits = suits;
+        this.includeJokers = includeJokers;
+        this.positions = STANDARD_VALUES + (includeJokers ? 1 : 0);
+    }
+
+    /**
+     * Sets where a table too large for the heap is mapped while it is in use.
+     * The file is unlinked as soon as it is mapped, so its disk space is
+     * freed once the solver is garbage collected.
+     */
+    public HigherLowerSolver setScratchDirectory(Path scratchDirectory) {
+        this.scratchDirectory = Objects.requireNonNull(scratchDirectory, "Scratch directory cannot be null");
+        return this;
+    }
+
+    /**
+     * Solves the game from a freshly shuffled deck.
+     */
+    public Solution solve() {
+        return solve(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solves the game from a freshly shuffled deck, splitting each layer
+     * across the pool.
+     */
+    public Solution solve(ForkJoinPool pool) {
+        return table(pool).root;
+    }
+
+    /**
+     * Gets whether the table is solved or loaded, so that positions are
+     * answered without solving.
+     */
+    public boolean isSolved() {
+        return table != null;
+    }
+
+    private Lattice table(ForkJoinPool pool) {
+        Lattice solved = table;
+        if (solved != null) {
+            return solved;
+        }
+        synchronized (this) {
+            if (table == null) {
+                Lattice lattice = new Lattice();
+                lattice.solve(pool);
+                table = lattice;
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Gets the solution of the position of a live deck with {@code current}
+     * showing, solving the table first if it is neither solved nor loaded.
+     */
+    public Solution evaluate(Deck deck, Card current) {
+        int[] remaining = remaining(deck, current);
+        Lattice lattice = table(ForkJoinPool.commonPool());
+        int showing = current.getValue() - MIN_VALUE;
+        int cards = lattice.sum(remaining);
+        long rank = lattice.rank(remaining);
+        return new Solution(lattice.layers[cards][0][showing].get((int) rank),
+                lattice.layers[cards][1][showing].get((int) rank));
+    }
+
+    /**
+     * Gets the guess that maximizes the expected final score from the position
+     * of a live deck, preferring HIGHER on a tie. The deck must match this
+     * solver's configuration.
+     */
+    public HigherLowerModel.Guess bestGuess(Deck deck, Card current) {
+        int[] remaining = remaining(deck, current);
+        Lattice lattice = table(ForkJoinPool.commonPool());
+        int showing = current.getValue() - MIN_VALUE;
+        double[][] children = new double[2][positions];
+        lattice.new Cursor(lattice.sum(remaining)).readChildren(remaining, children);
+        double belowScore = 0.0, aboveScore = 0.0;
+        for (int next = 0; next < positions; next++) {
+            double score = remaining[next] * (1.0 + children[0][next]);
+            if (next < showing) {
+                belowScore += score;
+            } else if (next > showing) {
+                aboveScore += score;
+            }
+        }
+        return aboveScore >= belowScore ? HigherLowerModel.Guess.HIGHER : HigherLowerModel.Guess.LOWER;
+    }
+
+    /**
+     * Counts the undealt cards of each value, checking that the position can
+     * arise from this solver's deck.
+     */
+    private int[] remaining(Deck deck, Card current) {
+        if (deck.hasJokers() != includeJokers) {
+            throw new IllegalArgumentException("Deck Jokers setting doesn't match the solver");
+        }
+        int showing = current.getValue() - MIN_VALUE;
+        if (showing < 0 || showing >= positions) {
+            throw new IllegalArgumentException("Solver has no cards of value " + current.getValue());
+        }
+        int[] remaining = new int[positions];
+        for (int i = 0; i < positions; i++) {
+            remaining[i] = deck.remainingOfValue(i + MIN_VALUE);
+            if (remaining[i] + (i == showing ? 1 : 0) > bound(i)) {
+                throw new IllegalArgumentException("Deck has more cards of value " + (i + MIN_VALUE)
+                        + " than the solver");
+            }
+        }
+        return remaining;
+    }
+
+    private int bound(int position) {
+        return position < STANDARD_VALUES ? suits : 2;
+    }
+
+    /**
+     * Every composition of the full deck, solved layer by layer and kept.
+     */
+    private final class Lattice {
+        private final int[] top = new int[positions];
+        private final int total;
+        /** ways[i][s]: compositions of {@code s} cards over positions {@code i} onwards. */
+        private final long[][] ways;
+        /** before[i][r][n]: compositions that have fewer than {@code n} at {@code i}, with {@code r} left for {@code i} onwards. */
+        private final int[][][] before;
+        /** layers[cards][quantity][showing], indexed by rank: {expected scores, clear probabilities}. */
+        private final FloatBuffer[][][] layers;
+        private Solution root;
+
+        Lattice() {
+            int sum = 0;
+            for (int i = 0; i < positions; i++) {
+                top[i] = bound(i);
+                sum += top[i];
+            }
+            this.total = sum;
+            this.ways = new long[positions + 1][total + 1];
+            ways[positions][0] = 1;
+            for (int i = positions - 1; i >= 0; i--) {
+                for (int s = 0; s <= total; s++) {
+                    for (int n = 0; n <= Math.min(top[i], s); n++) {
+                        ways[i][s] += ways[i + 1][s - n];
+                    }
+                }
+            }
+            for (int cards = 0; cards < total; cards++) {
+                if (ways[0][cards] > Integer.MAX_VALUE / Float.BYTES) {
+                    throw new IllegalStateException("Layer of " + ways[0][cards]
+                            + " compositions is too large to index");
+                }
+            }
+            this.before = new int[positions][total + 1][];
+            for (int i = 0; i < positions; i++) {
+                for (int r = 0; r <= total; r++) {
+                    before[i][r] = new int[top[i] + 1];
+                    for (int n = 1; n <= top[i]; n++) {
+                        before[i][r][n] = before[i][r][n - 1] + (r - n + 1 >= 0 ? (int) ways[i + 1][r - n + 1] : 0);
+                    }
+                }
+            }
+            this.layers = new FloatBuffer[total][2][positions];
+        }
+
+        /** Counts the floats of every layer. */
+        long tableFloats() {
+            long floats = 0;
+            for (int cards = 0; cards < total; cards++) {
+                floats += ways[0][cards] * 2 * positions;
+            }
+            return floats;
+        }
+
+        int sum(int[] composition) {
+            int cards = 0;
+            for (int count : composition) {
+                cards += count;
+            }
+            return cards;
+        }
+
+        /** Gets the rank of a composition within its layer. */
+        long rank(int[] composition) {
+            int remaining = sum(composition);
+            long rank = 0;
+            for (int i = 0; i < positions; i++) {
+                rank += before[i][remaining][composition[i]];
+                remaining -= composition[i];
+            }
+            return rank;
+        }
+
+        /**
+         * Solves every layer below the full deck, then the full deck itself.
+         */
+        void solve(ForkJoinPool pool) {
+            if (tableFloats() <= HEAP_TABLE_FLOATS) {
+                for (int cards = 0; cards < total; cards++) {
+                    for (int quantity = 0; quantity < 2; quantity++) {
+                        for (int i = 0; i < positions; i++) {
+                            layers[cards][quantity][i] = FloatBuffer.allocate((int) ways[0][cards]);
+                        }
+                    }
+                }
+            } else {
+                try {
+                    Path file = Files.createTempFile(scratchDirectory, "hilo-solver", ".table");
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                            StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+                        map(channel, FileChannel.MapMode.READ_WRITE);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot map a solver table in " + scratchDirectory, e);
+                }
+            }
+            for (int i = 0; i < positions; i++) {
+                layers[0][0][i].put(0, 0.0f);
+                layers[0][1][i].put(0, 1.0f);
+            }
+            for (int cards = 1; cards < total; cards++) {
+                pool.invoke(new LayerTask(cards, 0, (int) ways[0][cards]));
+            }
+            double[][] children = new double[2][positions];
+            new Cursor(total).readChildren(top, children);
+            double expected = 0.0;
+            double clear = 0.0;
+            for (int first = 0; first < positions; first++) {
+                double weight = (double) top[first] / total;
+                expected += weight * children[0][first];
+                clear += weight * children[1][first];
+            }
+            root = new Solution(expected, clear);
+        }
+
+        /**
+         * Maps every layer from {@code channel}, laid out after the header in
+         * layer, quantity, showing value and rank order. The mappings outlive
+         * the channel.
+         */
+        void map(FileChannel channel, FileChannel.MapMode mode) throws IOException {
+            long offset = HEADER_BYTES;
+            for (int cards = 0; cards < total; cards++) {
+                long bytes = ways[0][cards] * Float.BYTES;
+                for (int quantity = 0; quantity < 2; quantity++) {
+                    for (int i = 0; i < positions; i++) {
+                        layers[cards][quantity][i] = channel.map(mode, offset, bytes).order(TABLE_ORDER)
+                                .asFloatBuffer();
+                        offset += bytes;
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings("serial")
+        private class LayerTask extends RecursiveAction {
+            private final int cards;
+            private final int from;
+            private final int until;
+
+            LayerTask(int cards, int from, int until) {
+                this.cards = cards;
+                this.from = from;
+                this.until = until;
+            }
+
+            @Override
+            protected void compute() {
+                if (until - from > CHUNK_SIZE) {
+                    int middle = (from + until) >>> 1;
+                    invokeAll(new LayerTask(cards, from, middle), new LayerTask(cards, middle, until));
+                    return;
+                }
+                Cursor cursor = new Cursor(cards);
+                cursor.seek(from);
+                for (int rank = from; rank < until; rank++) {
+                    cursor.solve(rank);
+                    cursor.next();
+                }
+            }
+        }
+
+        /**
+         * Walks the compositions of one layer in rank order, with scratch
+         * space for solving them.
+         */
+        private final class Cursor {
+            private final int cards;
+            private final int[] counts = new int[positions];
+            private final int[] rest = new int[positions];
+            private final long[] withLess = new long[positions + 1];
+            private final long[] after = new long[positions + 1];
+            private final double[][] children = new double[2][positions];
+
+            Cursor(int cards) {
+                this.cards = cards;
+            }
+
+            /** Moves to the composition with the given rank. */
+            void seek(int rank) {
+                long left = rank;
+                int remaining = cards;
+                for (int i = 0; i < positions; i++) {
+                    int n = 0;
+                    while (left >= ways[i + 1][remaining - n]) {
+                        left -= ways[i + 1][remaining - n];
+                        n++;
+                    }
+                    counts[i] = n;
+                    remaining -= n;
+                }
+            }
+
+            /** Moves to the next composition in rank order. */
+            void next() {
+                int suffix = counts[positions - 1];
+                for (int i = positions - 2; i >= 0; i--) {
+                    if (suffix > 0 && counts[i] < top[i]) {
+                        counts[i]++;
+                        int left = suffix - 1;
+                        for (int j = positions - 1; j > i; j--) {
+                            counts[j] = Math.min(top[j], left);
+                            left -= counts[j];
+                        }
+                        return;
+                    }
+                    suffix += counts[i];
+                }
+            }
+
+            /**
+             * Reads the states one card below {@code composition} from the
+             * previous layer.
+             */
+            void readChildren(int[] composition, double[][] out) {
+                int remaining = cards;
+                withLess[0] = 0;
+                for (int i = 0; i < positions; i++) {
+                    rest[i] = remaining;
+                    withLess[i + 1] = withLess[i] + before[i][remaining - 1 < 0 ? 0 : remaining - 1][composition[i]];
+                    remaining -= composition[i];
+                }
+                after[positions] = 0;
+                for (int i = positions - 1; i >= 0; i--) {
+                    after[i] = after[i + 1] + before[i][rest[i]][composition[i]];
+                }
+                for (int v = 0; v < positions; v++) {
+                    if (composition[v] == 0) {
+                        continue;
+                    }
+                    int rank = (int) (withLess[v] + before[v][rest[v] - 1][composition[v] - 1] + after[v + 1]);
+                    out[0][v] = layers[cards - 1][0][v].get(rank);
+                    out[1][v] = layers[cards - 1][1][v].get(rank);
+                }
+            }
+
+            /** Solves the current composition for every showing value. */
+            void solve(int rank) {
+                readChildren(counts, children);
+                double scoreSum = 0.0;
+                double clearSum = 0.0;
+                for (int v = 0; v < positions; v++) {
+                    scoreSum += counts[v] * (1.0 + children[0][v]);
+                    clearSum += counts[v] * children[1][v];
+                }
+                double belowScore = 0.0;
+                double belowClear = 0.0;
+                for (int showing = 0; showing < positions; showing++) {
+                    int n = counts[showing];
+                    double score = n * (1.0 + children[0][showing]);
+                    double clear = n * children[1][showing];
+                    double aboveScore = scoreSum - belowScore - score;
+                    double aboveClear = clearSum - belowClear - clear;
+                    layers[cards][0][showing].put(rank,
+                            (float) ((Math.max(aboveScore, belowScore) + n * children[0][showing]) / cards));
+                    layers[cards][1][showing].put(rank, (float) ((Math.max(aboveClear, belowClear) + clear) / cards));
+                    belowScore += score;
+                    belowClear += clear;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the solved positions, one per composition of the deck and
+     * showing value, including the fresh deck; 0 until the table is solved
+     * or loaded.
+     */
+    public long solvedPositions() {
+        Lattice lattice = table;
+        return lattice == null ? 0 : lattice.tableFloats() / 2 + 1;
+    }
+
+    /**
+     * Writes the solved table to {@code file}, solving it first if needed.
+     */
+    public void save(Path file) throws IOException {
+        Lattice lattice = table(ForkJoinPool.commonPool());
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(TABLE_ORDER);
+            header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(suits).putInt(includeJokers ? 1 : 0)
+                    .putDouble(lattice.root.expectedScore()).putDouble(lattice.root.clearProbability()).flip();
+            writeFully(out, header);
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE * Float.BYTES).order(TABLE_ORDER);
+            float[] floats = new float[CHUNK_SIZE];
+            for (FloatBuffer[][] layer : lattice.layers) {
+                for (FloatBuffer[] quantity : layer) {
+                    for (FloatBuffer values : quantity) {
+                        for (int from = 0; from < values.capacity(); from += CHUNK_SIZE) {
+                            int length = Math.min(CHUNK_SIZE, values.capacity() - from);
+                            values.get(from, floats, 0, length);
+                            chunk.clear();
+                            chunk.asFloatBuffer().put(floats, 0, length);
+                            chunk.limit(length * Float.BYTES);
+                            writeFully(out, chunk);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Maps a table saved by {@link #save(Path)}, replacing any solved one.
+     * Positions are read from the file as they are looked up.
+     *
+     * @throws IOException if the file is unreadable, truncated or for a different deck
+     */
+    public void load(Path file) throws IOException {
+        Lattice lattice = new Lattice();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(TABLE_ORDER);
+            while (header.hasRemaining()) {
+                if (in.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != FILE_MAGIC
+                    || header.getInt() != FILE_VERSION) {
+                throw new IOException("Not a Higher/Lower solver table: " + file);
+            }
+            if (header.getInt() != suits || (header.getInt() != 0) != includeJokers) {
+                throw new IOException("Solver table is for a different deck: " + file);
+            }
+            if (in.size() != HEADER_BYTES + lattice.tableFloats() * Float.BYTES) {
+                throw new IOException("Solver table is truncated: " + file);
+            }
+            lattice.root = new Solution(header.getDouble(), header.getDouble());
+            lattice.map(in, FileChannel.MapMode.READ_ONLY);
+        }
+        synchronized (this) {
+            table = lattice;
+        }
+    }
+
+    /**
+     * Solves a full deck, with and without Jokers, loading the table from
+     * {@code table} when it exists and saving it there otherwise.
+     * Usage: {@code HigherLowerSolver [suits] [table]}
+     */
+    public static void main(String[] args) throws IOException {
+        int suits = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        for (boolean jokers : new boolean[] { false, true }) {
+            HigherLowerSolver solver = new HigherLowerSolver(suits, jokers);
+            Path table = args.length > 1 ? Path.of(args[1] + (jokers ? "-jokers" : "")) : null;
+            boolean loaded = table != null && Files.exists(table);
+            if (loaded) {
+                solver.load(table);
+            }
+            long start = System.nanoTime();
+            Solution solution = solver.solve();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d suit(s)%s: expected score %.6f, clear probability %.6e (%.1f s)%n",
+                    suits, jokers ? " with Jokers" : "", solution.expectedScore(), solution.clearProbability(),
+                    seconds);
+            if (table != null && !loaded) {
+                solver.save(table);
+            }
+        }
+    }
+}
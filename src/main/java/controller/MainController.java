@@ -1,11 +1,18 @@
 package controller;
 
 import model.BlackjackModel;
+import model.Deck;
 import model.HigherLowerModel;
+import model.ShufflePool;
+import storage.GameJournal;
+import storage.GameMode;
+import storage.StatisticsStore;
 import view.*;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Main controller that manages navigation between different game views.
@@ -29,6 +36,19 @@ public class MainController {
     private HigherLowerController higherLowerJokersController;
     // private BlackjackController blackjackController;
     
+    // Pre-shuffled deck orders so new games don't shuffle on the EDT
+    private static final int SHUFFLE_POOL_DEPTH = 4;
+    private final ShufflePool deckPool = ShufflePool.forDeck(false, SHUFFLE_POOL_DEPTH);
+    private final ShufflePool jokerDeckPool = ShufflePool.forDeck(true, SHUFFLE_POOL_DEPTH);
+    
+    // Statistics and high scores that survive restarts, null if the file can't be opened
+    private static final Path STATISTICS_FILE = Path.of(System.getProperty("user.home"), ".card-games", "statistics.dat");
+    private final StatisticsStore statisticsStore = openStatisticsStore();
+    
+    // Journal of every game played, for replaying disputed results; null if it can't be opened
+    private static final Path JOURNAL_FILE = Path.of(System.getProperty("user.home"), ".card-games", "journal.bin");
+    private final GameJournal journal = openJournal();
+    
     // View names for CardLayout
     private static final String MENU_VIEW = "menu";
     private static final String HIGHER_LOWER_VIEW = "higherLower";
@@ -71,7 +91,11 @@ public class MainController {
     
     private void setupControllers() {
         // Higher/Lower without jokers
-        HigherLowerModel higherLowerModel = new HigherLowerModel(false);
+        Deck deck = new Deck(false);
+        deck.setShufflePool(deckPool);
+        HigherLowerModel higherLowerModel = new HigherLowerModel(deck);
+        trackStatistics(higherLowerModel, GameMode.HIGHER_LOWER);
+        trackJournal(higherLowerModel);
         higherLowerController = new HigherLowerController(
             higherLowerModel, 
             higherLowerView, 
@@ -79,14 +103,66 @@ public class MainController {
         );
         
         // Higher/Lower with jokers
-        HigherLowerModel higherLowerJokersModel = new HigherLowerModel(true);
+        Deck jokersDeck = new Deck(true);
+        jokersDeck.setShufflePool(jokerDeckPool);
+        HigherLowerModel higherLowerJokersModel = new HigherLowerModel(jokersDeck);
+        trackStatistics(higherLowerJokersModel, GameMode.HIGHER_LOWER_JOKERS);
+        trackJournal(higherLowerJokersModel);
         higherLowerJokersController = new HigherLowerController(
             higherLowerJokersModel, 
             higherLowerJokersView, 
             this::showMenu
         );
         
+        // Blackjack has no model or controller yet; once it does, its model
+        // goes to statisticsStore.attach(BlackjackModel) like the ones above
+    }
+    
+    private static StatisticsStore openStatisticsStore() {
+        try {
+            StatisticsStore store = StatisticsStore.open(STATISTICS_FILE);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    System.err.println("Could not save statistics: " + e.getMessage());
+                }
+            }));
+            return store;
+        } catch (IOException e) {
+            System.err.println("Statistics disabled, could not open " + STATISTICS_FILE + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private static GameJournal openJournal() {
+        try {
+            GameJournal journal = GameJournal.open(JOURNAL_FILE);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Could not write game journal: " + e.getMessage());
+                }
+            }));
+            return journal;
+        } catch (IOException e) {
+            System.err.println("Game journal disabled, could not open " + JOURNAL_FILE + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private void trackStatistics(HigherLowerModel model, GameMode mode) {
+        if (statisticsStore != null) {
+            model.setHighScore(statisticsStore.getStatistics(mode).highScore());
+            statisticsStore.attach(model, mode);
+        }
+    }
     
+    private void trackJournal(HigherLowerModel model) {
+        if (journal != null) {
+            journal.attach(model);
+        }
     }
     
     private void setupMenuListeners() {
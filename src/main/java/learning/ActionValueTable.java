@@ -0,0 +1,135 @@
+package learning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Table of action values learned by Monte Carlo self-play: for every state
+ * and action, how often it was taken and the total return that followed.
+ *
+ * Returns in both games are whole numbers, so the totals are plain longs and
+ * every update is a lock-free atomic add. Any number of worker threads can
+ * record into the same table while others read it.
+ */
+public class ActionValueTable {
+
+    private static final int FILE_MAGIC = 0x51544142; // "QTAB"
+    private static final int FILE_VERSION = 1;
+
+    private final String game;
+    private final int states;
+    private final int actions;
+    private final AtomicLongArray visits;
+    private final AtomicLongArray returns;
+
+    /**
+     * @param game name of the game and state encoding the table is for,
+     *             checked when the table is loaded
+     */
+    public ActionValueTable(String game, int states, int actions) {
+        if (states < 1 || actions < 1) {
+            throw new IllegalArgumentException("Table needs at least one state and action: "
+                    + states + " states, " + actions + " actions");
+        }
+        this.game = game;
+        this.states = states;
+        this.actions = actions;
+        this.visits = new AtomicLongArray(states * actions);
+        this.returns = new AtomicLongArray(states * actions);
+    }
+
+    /**
+     * Records that {@code action} was taken in {@code state} and was followed
+     * by the given return.
+     */
+    public void record(int state, int action, long reward) {
+        int index = state * actions + action;
+        visits.getAndIncrement(index);
+        returns.getAndAdd(index, reward);
+    }
+
+    public long getVisits(int state, int action) {
+        return visits.get(state * actions + action);
+    }
+
+    /**
+     * Gets the mean return of an action, or 0 if it was never taken.
+     */
+    public double getValue(int state, int action) {
+        int index = state * actions + action;
+        long count = visits.get(index);
+        return count == 0 ? 0.0 : (double) returns.get(index) / count;
+    }
+
+    /**
+     * Gets the action with the highest mean return, the lowest on a tie.
+     */
+    public int bestAction(int state) {
+        int best = 0;
+        double bestValue = getValue(state, 0);
+        for (int action = 1; action < actions; action++) {
+            double value = getValue(state, action);
+            if (value > bestValue) {
+                best = action;
+                bestValue = value;
+            }
+        }
+        return best;
+    }
+
+    public String getGame() { return game; }
+    public int getStates() { return states; }
+    public int getActions() { return actions; }
+
+    /**
+     * Saves the table. It is written to a temporary file first and moved into
+     * place, so a crash mid-write never leaves a torn checkpoint behind.
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(game);
+            out.writeInt(states);
+            out.writeInt(actions);
+            for (int i = 0; i < states * actions; i++) {
+                out.writeLong(visits.get(i));
+                out.writeLong(returns.get(i));
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a table saved by {@link #save(Path)}.
+     *
+     * @throws IOException if the file is unreadable or not a table for {@code game}
+     */
+    public static ActionValueTable load(Path file, String game) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Not an action value table: " + file);
+            }
+            String savedGame = in.readUTF();
+            if (!savedGame.equals(game)) {
+                throw new IOException("Table is for " + savedGame + ", not " + game + ": " + file);
+            }
+            ActionValueTable table = new ActionValueTable(game, in.readInt(), in.readInt());
+            for (int i = 0; i < table.states * table.actions; i++) {
+                table.visits.set(i, in.readLong());
+                table.returns.set(i, in.readLong());
+            }
+            return table;
+        }
+    }
+}
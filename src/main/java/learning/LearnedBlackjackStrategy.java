@@ -0,0 +1,80 @@
+package learning;
+
+import model.BlackjackModel;
+import model.Hand;
+import strategy.BlackjackStrategy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Blackjack strategy that plays the best action from a learned
+ * {@link ActionValueTable}, for example as an in-game hint.
+ *
+ * States are the player's value, whether it is soft, and the dealer's upcard;
+ * actions are the ordinals of {@link Action}.
+ */
+public class LearnedBlackjackStrategy implements BlackjackStrategy {
+
+    public static final String GAME = "blackjack/value-soft-upcard";
+    public static final int STATES = 22 * 2 * 11;
+    public static final int ACTIONS = Action.values().length;
+
+    private static final Action[] BY_ORDINAL = Action.values();
+
+    private final ActionValueTable table;
+
+    public LearnedBlackjackStrategy(ActionValueTable table) {
+        this.table = checkTable(table);
+    }
+
+    /**
+     * Checks that a table has this strategy's game, states and actions.
+     *
+     * @return {@code table}
+     * @throws IllegalArgumentException if it is for another game or shape
+     */
+    public static ActionValueTable checkTable(ActionValueTable table) {
+        if (!GAME.equals(table.getGame()) || table.getStates() != STATES || table.getActions() != ACTIONS) {
+            throw new IllegalArgumentException("Not a blackjack table: " + table.getGame());
+        }
+        return table;
+    }
+
+    public static LearnedBlackjackStrategy load(Path file) throws IOException {
+        return new LearnedBlackjackStrategy(ActionValueTable.load(file, GAME));
+    }
+
+    public static ActionValueTable newTable() {
+        return new ActionValueTable(GAME, STATES, ACTIONS);
+    }
+
+    /**
+     * Gets the state of a game in progress.
+     */
+    public static int stateOf(BlackjackModel model) {
+        int upcard = Hand.pointsOf(model.getDealerHand().get(0).getCode());
+        return state(model.getPlayerValue(), model.isPlayerSoft(), upcard);
+    }
+
+    /**
+     * @param upcard points of the dealer's upcard, 1 for an Ace
+     */
+    public static int state(int playerValue, boolean soft, int upcard) {
+        return (playerValue * 2 + (soft ? 1 : 0)) * 11 + upcard;
+    }
+
+    @Override
+    public String getName() {
+        return "learned";
+    }
+
+    @Override
+    public Action decide(BlackjackModel model) {
+        return BY_ORDINAL[table.bestAction(stateOf(model))];
+    }
+
+    public ActionValueTable getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,81 @@
+package learning;
+
+import model.Card;
+import model.HigherLowerModel;
+import model.HigherLowerModel.Guess;
+import model.HigherLowerModel.Odds;
+import strategy.HigherLowerStrategy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Higher/Lower strategy that plays the best guess from a learned
+ * {@link ActionValueTable}, for example as an in-game hint.
+ *
+ * States are the current card's value and a coarse view of the composition:
+ * the share of the remaining cards above the current one, among those above
+ * or below it, in {@link #COMPOSITION_BUCKETS} buckets. Actions are the
+ * ordinals of {@link Guess}.
+ */
+public class LearnedHigherLowerStrategy implements HigherLowerStrategy {
+
+    public static final String GAME = "higher-lower/value-composition";
+    public static final int COMPOSITION_BUCKETS = 9;
+    public static final int STATES = (Card.valueOf(Card.JOKER_CODE) + 1) * COMPOSITION_BUCKETS;
+    public static final int ACTIONS = Guess.values().length;
+
+    private static final Guess[] BY_ORDINAL = Guess.values();
+
+    private final ActionValueTable table;
+
+    public LearnedHigherLowerStrategy(ActionValueTable table) {
+        this.table = checkTable(table);
+    }
+
+    /**
+     * Checks that a table has this strategy's game, states and actions.
+     *
+     * @return {@code table}
+     * @throws IllegalArgumentException if it is for another game or shape
+     */
+    public static ActionValueTable checkTable(ActionValueTable table) {
+        if (!GAME.equals(table.getGame()) || table.getStates() != STATES || table.getActions() != ACTIONS) {
+            throw new IllegalArgumentException("Not a Higher/Lower table: " + table.getGame());
+        }
+        return table;
+    }
+
+    public static LearnedHigherLowerStrategy load(Path file) throws IOException {
+        return new LearnedHigherLowerStrategy(ActionValueTable.load(file, GAME));
+    }
+
+    public static ActionValueTable newTable() {
+        return new ActionValueTable(GAME, STATES, ACTIONS);
+    }
+
+    /**
+     * Gets the state of a game in progress.
+     */
+    public static int stateOf(HigherLowerModel model) {
+        Odds odds = model.getOdds();
+        double decided = odds.higher() + odds.lower();
+        double share = decided == 0.0 ? 0.5 : odds.higher() / decided;
+        int bucket = (int) Math.round(share * (COMPOSITION_BUCKETS - 1));
+        return model.getCurrentCard().getValue() * COMPOSITION_BUCKETS + bucket;
+    }
+
+    @Override
+    public String getName() {
+        return "learned";
+    }
+
+    @Override
+    public Guess chooseGuess(HigherLowerModel model) {
+        return BY_ORDINAL[table.bestAction(stateOf(model))];
+    }
+
+    public ActionValueTable getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,274 @@
+package learning;
+
+import model.BlackjackModel;
+import model.Card;
+import model.Hand;
+import model.HigherLowerModel;
+import model.RandomFactory;
+import model.Shoe;
+import strategy.BlackjackStrategy.Action;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * Learns action values for both games by epsilon-greedy Monte Carlo
+ * self-play through the real game models.
+ *
+ * One worker per pool thread plays episodes with its own model and generator
+ * and records every decision's return into a single shared
+ * {@link ActionValueTable}. Workers claim episodes in blocks from a shared
+ * counter, so they all stay busy until the budget is spent. While they run,
+ * the calling thread saves a checkpoint of the table at a fixed interval, and
+ * once more at the end.
+ *
+ * A blackjack decision's return is the hand's payoff; a Higher/Lower guess's
+ * return is the number of points scored from that guess to the end of the game.
+ */
+public class SelfPlayTrainer {
+
+    /** Episodes a worker claims at a time. */
+    private static final long BLOCK_SIZE = 1 << 12;
+
+    private double epsilon = 0.1;
+    private int numDecks = 1;
+    private boolean includeJokers;
+    private RandomFactory randomFactory = RandomFactory.create();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private Path checkpointFile;
+    private Duration checkpointInterval = Duration.ofMinutes(5);
+
+    /**
+     * Sets the probability of exploring a random action instead of the best one.
+     */
+    public SelfPlayTrainer epsilon(double epsilon) {
+        if (!(epsilon >= 0.0 && epsilon <= 1.0)) {
+            throw new IllegalArgumentException("Epsilon must be between 0 and 1: " + epsilon);
+        }
+        this.epsilon = epsilon;
+        return this;
+    }
+
+    public SelfPlayTrainer numDecks(int numDecks) {
+        this.numDecks = Shoe.checkNumDecks(numDecks);
+        return this;
+    }
+
+    public SelfPlayTrainer includeJokers(boolean includeJokers) {
+        this.includeJokers = includeJokers;
+        return this;
+    }
+
+    public SelfPlayTrainer randomFactory(RandomFactory randomFactory) {
+        this.randomFactory = randomFactory;
+        return this;
+    }
+
+    public SelfPlayTrainer pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Saves the table to {@code file} every {@code interval} while training,
+     * or never when the file is null.
+     */
+    public SelfPlayTrainer checkpoint(Path file, Duration interval) {
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+        return this;
+    }
+
+    /**
+     * Plays {@code episodes} blackjack hands, adding to the given table, which
+     * may be fresh from {@link LearnedBlackjackStrategy#newTable()} or a
+     * loaded checkpoint.
+     */
+    public ActionValueTable trainBlackjack(ActionValueTable table, long episodes) throws IOException {
+        LearnedBlackjackStrategy.checkTable(table);
+        return train(table, episodes, random -> new BlackjackEpisodes(table, random));
+    }
+
+    /**
+     * Plays {@code episodes} Higher/Lower games, adding to the given table,
+     * which may be fresh from {@link LearnedHigherLowerStrategy#newTable()} or
+     * a loaded checkpoint.
+     */
+    public ActionValueTable trainHigherLower(ActionValueTable table, long episodes) throws IOException {
+        LearnedHigherLowerStrategy.checkTable(table);
+        return train(table, episodes, random -> new HigherLowerEpisodes(table, random));
+    }
+
+    /** Plays single episodes for one worker. */
+    private interface Episodes {
+        void play();
+    }
+
+    private interface EpisodesFactory {
+        Episodes create(RandomGenerator random);
+    }
+
+    private ActionValueTable train(ActionValueTable table, long episodes, EpisodesFactory factory)
+            throws IOException {
+        if (episodes < 0) {
+            throw new IllegalArgumentException("Number of episodes cannot be negative: " + episodes);
+        }
+        AtomicLong claimed = new AtomicLong();
+        // Cancelling the task doesn't stop workers that are already running
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<RecursiveAction> workers = new ArrayList<>();
+        for (RandomGenerator random : randomFactory.split(pool.getParallelism())) {
+            Episodes worker = factory.create(random);
+            workers.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    long start;
+                    while (!cancelled.get() && (start = claimed.getAndAdd(BLOCK_SIZE)) < episodes) {
+                        long end = Math.min(start + BLOCK_SIZE, episodes);
+                        for (long i = start; i < end && !cancelled.get(); i++) {
+                            worker.play();
+                        }
+                    }
+                }
+            });
+        }
+
+        ForkJoinTask<?> training = pool.submit(() -> ForkJoinTask.invokeAll(workers));
+        while (true) {
+            try {
+                if (checkpointFile == null) {
+                    training.get();
+                } else {
+                    training.get(checkpointInterval.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                break;
+            } catch (TimeoutException e) {
+                table.save(checkpointFile);
+            } catch (InterruptedException e) {
+                cancelled.set(true);
+                training.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while training", e);
+            } catch (ExecutionException e) {
+                cancelled.set(true);
+                throw new IllegalStateException("Training worker failed", e.getCause());
+            }
+        }
+        if (checkpointFile != null) {
+            table.save(checkpointFile);
+        }
+        return table;
+    }
+
+    private int chooseAction(ActionValueTable table, int state, RandomGenerator random) {
+        if (random.nextDouble() < epsilon) {
+            return random.nextInt(table.getActions());
+        }
+        return table.bestAction(state);
+    }
+
+    private class BlackjackEpisodes implements Episodes {
+        private final ActionValueTable table;
+        private final RandomGenerator random;
+        private final BlackjackModel model;
+        private final int[] states = new int[Hand.MAX_CARDS];
+        private final int[] actions = new int[Hand.MAX_CARDS];
+
+        BlackjackEpisodes(ActionValueTable table, RandomGenerator random) {
+            this.table = table;
+            this.random = random;
+            this.model = new BlackjackModel(new Shoe(numDecks, 0.0, random));
+        }
+
+        @Override
+        public void play() {
+            model.startNewGame();
+            int decisions = 0;
+            while (!model.isGameOver()) {
+                int state = LearnedBlackjackStrategy.stateOf(model);
+                int action = chooseAction(table, state, random);
+                states[decisions] = state;
+                actions[decisions++] = action;
+                if (action == Action.HIT.ordinal()) {
+                    model.hit();
+                } else {
+                    model.stand();
+                }
+            }
+
+            int payoff = switch (model.getResult()) {
+                case WIN -> 1;
+                case LOSE -> -1;
+                default -> 0;
+            };
+            for (int i = 0; i < decisions; i++) {
+                table.record(states[i], actions[i], payoff);
+            }
+        }
+    }
+
+    private class HigherLowerEpisodes implements Episodes {
+        private final ActionValueTable table;
+        private final RandomGenerator random;
+        private final HigherLowerModel model;
+        private final int[] states = new int[Card.CARD_COUNT];
+        private final int[] actions = new int[Card.CARD_COUNT];
+        private final int[] scores = new int[Card.CARD_COUNT];
+
+        HigherLowerEpisodes(ActionValueTable table, RandomGenerator random) {
+            this.table = table;
+            this.random = random;
+            this.model = new HigherLowerModel(includeJokers, random);
+        }
+
+        @Override
+        public void play() {
+            model.startNewGame();
+            int guesses = 0;
+            while (!model.isGameOver()) {
+                int state = LearnedHigherLowerStrategy.stateOf(model);
+                int action = chooseAction(table, state, random);
+                states[guesses] = state;
+                actions[guesses] = action;
+                scores[guesses++] = model.getScore();
+                model.makeGuess(HigherLowerModel.Guess.values()[action]);
+            }
+
+            int finalScore = model.getScore();
+            for (int i = 0; i < guesses; i++) {
+                table.record(states[i], actions[i], finalScore - scores[i]);
+            }
+        }
+    }
+
+    /**
+     * Trains both games from the command line and saves the tables:
+     * {@code [episodes] [directory]}.
+     */
+    public static void main(String[] args) throws IOException {
+        long episodes = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        Path directory = Path.of(args.length > 1 ? args[1] : ".");
+        SelfPlayTrainer trainer = new SelfPlayTrainer();
+
+        long start = System.nanoTime();
+        trainer.checkpoint(directory.resolve("blackjack.qtab"), Duration.ofMinutes(5))
+                .trainBlackjack(LearnedBlackjackStrategy.newTable(), episodes);
+        trainer.checkpoint(directory.resolve("higher-lower.qtab"), Duration.ofMinutes(5))
+                .trainHigherLower(LearnedHigherLowerStrategy.newTable(), episodes);
+        System.out.printf("Trained %,d episodes per game in %.1f s%n",
+                episodes, (System.nanoTime() - start) / 1e9);
+    }
+}
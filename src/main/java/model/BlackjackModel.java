@@ -1,19 +1,44 @@
 package model;
 
-import java.util.ArrayList;
+import model.GameEvent.CardDealt;
+import model.GameEvent.DealerRevealed;
+import model.GameEvent.GameRestored;
+import model.GameEvent.GameStarted;
+import model.GameEvent.HandResolved;
+import model.GameEvent.PlayerHit;
+import model.GameEvent.PlayerStood;
+import model.GameEvent.Target;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.random.RandomGenerator;
 
 /**
  * Model for the Simple Blackjack card game.
  * Contains all game state and logic.
+ *
+ * Actions and getters synchronize on the model, so it can be driven from
+ * worker threads. Listeners and event subscribers are notified through the
+ * event bus dispatcher once the action has released the lock, so they may
+ * call back into the model; see {@link EventBus#setDispatcher}.
  */
 public class BlackjackModel {
     
     public enum GameResult { WIN, LOSE, PUSH, IN_PROGRESS }
     
-    private final Deck deck;
-    private final List<Card> playerHand;
-    private final List<Card> dealerHand;
+    private static final int FLAG_GAME_OVER = 1;
+    private static final int FLAG_PLAYER_BUSTED = 2;
+    private static final int FLAG_DEALER_BUSTED = 4;
+    private static final int FLAG_PLAYER_STOOD = 8;
+    
+    /** Flags, result, deck count, both hand sizes and the two-byte shoe count. */
+    private static final int SNAPSHOT_FIELDS_SIZE = 5 + Short.BYTES;
+    
+    private final Shoe shoe;
+    private final Hand playerHand;
+    private final Hand dealerHand;
     private boolean gameOver;
     private boolean playerBusted;
     private boolean dealerBusted;
@@ -21,16 +46,44 @@ public class BlackjackModel {
     private GameResult result;
     private String resultMessage;
     
-    private final List<GameListener> listeners = new ArrayList<>();
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+    private final EventBus events = new EventBus();
     
     public BlackjackModel() {
-        this.deck = new Deck(false);
-        this.playerHand = new ArrayList<>();
-        this.dealerHand = new ArrayList<>();
+        this(new Shoe());
+    }
+    
+    /**
+     * Creates a model whose single-deck shoe shuffles with the given generator.
+     */
+    public BlackjackModel(RandomGenerator random) {
+        this(new Shoe(1, 0.0, random));
+    }
+    
+    /**
+     * Creates a model that deals from the given shoe.
+     */
+    public BlackjackModel(Shoe shoe) {
+        this.shoe = shoe;
+        this.playerHand = new Hand();
+        this.dealerHand = new Hand();
     }
     
     public void startNewGame() {
-        deck.resetAndShuffle();
+        synchronized (this) {
+            events.beginBatch();
+            try {
+                dealNewGame();
+            } finally {
+                events.endBatch();
+            }
+            notifyListeners();
+        }
+        events.flush();
+    }
+    
+    private void dealNewGame() {
+        shoe.prepareHand();
         playerHand.clear();
         dealerHand.clear();
         gameOver = false;
@@ -39,106 +92,307 @@ public class BlackjackModel {
         playerStood = false;
         result = GameResult.IN_PROGRESS;
         resultMessage = "";
+        events.publish(new GameStarted());
         
-        // Deal initial cards
-        playerHand.add(deck.draw());
-        dealerHand.add(deck.draw());
-        playerHand.add(deck.draw());
-        dealerHand.add(deck.draw());
+        // Deal initial cards, the dealer's second card face down
+        deal(playerHand, Target.PLAYER, false);
+        deal(dealerHand, Target.DEALER, false);
+        deal(playerHand, Target.PLAYER, false);
+        deal(dealerHand, Target.DEALER, true);
         
         // Check for natural blackjack
-        if (getPlayerValue() == 21) {
-            stand();
+        if (playerHand.isBlackjack()) {
+            playDealer();
         }
-        
-        notifyListeners();
+    }
+    
+    private void deal(Hand hand, Target target, boolean faceDown) {
+        int code = shoe.drawCode();
+        hand.add(code);
+        events.publish(new CardDealt(target, Card.fromCode(code), faceDown, shoe.remainingCards()));
     }
     
     public void hit() {
-        if (gameOver || playerStood) {
-            return;
-        }
-        
-        playerHand.add(deck.draw());
-        
-        if (getPlayerValue() > 21) {
-            playerBusted = true;
-            gameOver = true;
-            result = GameResult.LOSE;
-            resultMessage = "BUST! You went over 21!";
-        } else if (getPlayerValue() == 21) {
-            stand();
-            return;
+        synchronized (this) {
+            if (gameOver || playerStood) {
+                return;
+            }
+            
+            events.beginBatch();
+            try {
+                events.publish(new PlayerHit());
+                deal(playerHand, Target.PLAYER, false);
+                
+                if (playerHand.isBust()) {
+                    playerBusted = true;
+                    gameOver = true;
+                    result = GameResult.LOSE;
+                    resultMessage = "BUST! You went over 21!";
+                    events.publish(new DealerRevealed(dealerHand.cardAt(1)));
+                    publishResolved();
+                } else if (playerHand.value() == 21) {
+                    playDealer();
+                }
+            } finally {
+                events.endBatch();
+            }
+            
+            notifyListeners();
         }
-        
-        notifyListeners();
+        events.flush();
     }
     
     public void stand() {
-        if (gameOver) {
-            return;
+        synchronized (this) {
+            if (gameOver) {
+                return;
+            }
+            
+            events.beginBatch();
+            try {
+                events.publish(new PlayerStood());
+                playDealer();
+            } finally {
+                events.endBatch();
+            }
+            
+            notifyListeners();
         }
-        
+        events.flush();
+    }
+    
+    private void playDealer() {
         playerStood = true;
+        events.publish(new DealerRevealed(dealerHand.cardAt(1)));
         
         // Dealer's turn - hit on 16 or less
-        while (getDealerValue() < 17) {
-            dealerHand.add(deck.draw());
+        while (BlackjackRules.dealerMustHit(dealerHand)) {
+            deal(dealerHand, Target.DEALER, false);
         }
         
-        if (getDealerValue() > 21) {
+        result = BlackjackRules.settle(playerHand, dealerHand);
+        if (dealerHand.isBust()) {
             dealerBusted = true;
-            result = GameResult.WIN;
             resultMessage = "Dealer BUSTS! You win!";
         } else {
-            determineWinner();
+            describeResult();
         }
         
         gameOver = true;
-        notifyListeners();
+        publishResolved();
+    }
+    
+    private void publishResolved() {
+        events.publish(new HandResolved(result, playerHand.value(), dealerHand.value(), resultMessage));
     }
     
-    private void determineWinner() {
-        int playerValue = getPlayerValue();
-        int dealerValue = getDealerValue();
+    private void describeResult() {
+        int playerValue = playerHand.value();
+        int dealerValue = dealerHand.value();
         
-        if (playerValue > dealerValue) {
-            result = GameResult.WIN;
-            resultMessage = "YOU WIN! " + playerValue + " beats " + dealerValue + "!";
-        } else if (dealerValue > playerValue) {
-            result = GameResult.LOSE;
-            resultMessage = "Dealer wins. " + dealerValue + " beats " + playerValue + ".";
-        } else {
-            result = GameResult.PUSH;
-            resultMessage = "PUSH! It's a tie at " + playerValue + ".";
+        resultMessage = switch (result) {
+            case WIN -> "YOU WIN! " + playerValue + " beats " + dealerValue + "!";
+            case LOSE -> "Dealer wins. " + dealerValue + " beats " + playerValue + ".";
+            default -> "PUSH! It's a tie at " + playerValue + ".";
+        };
+    }
+    
+    /**
+     * Saves the hand in a compact binary snapshot: both hands, the undealt
+     * cards in order and the flags, framed with a version and a checksum.
+     * With the default single-deck shoe this is about 65 bytes; the shoe's
+     * undealt cards take one byte each, so multi-deck shoes are larger.
+     */
+    public synchronized byte[] save() {
+        int remaining = shoe.remainingCards();
+        ByteBuffer out = Snapshots.create(Snapshots.BLACKJACK,
+                SNAPSHOT_FIELDS_SIZE + playerHand.size() + dealerHand.size() + remaining);
+        out.put((byte) ((gameOver ? FLAG_GAME_OVER : 0)
+                | (playerBusted ? FLAG_PLAYER_BUSTED : 0)
+                | (dealerBusted ? FLAG_DEALER_BUSTED : 0)
+                | (playerStood ? FLAG_PLAYER_STOOD : 0)));
+        out.put(result == null ? -1 : (byte) result.ordinal());
+        out.put((byte) shoe.getNumDecks());
+        writeHand(out, playerHand);
+        writeHand(out, dealerHand);
+        out.putShort((short) remaining);
+        out.position(out.position() + shoe.copyRemaining(out.array(), out.position()));
+        return Snapshots.seal(out);
+    }
+    
+    private static void writeHand(ByteBuffer out, Hand hand) {
+        out.put((byte) hand.size());
+        for (int i = 0; i < hand.size(); i++) {
+            out.put((byte) hand.codeAt(i));
         }
     }
     
-    public int getHandValue(List<Card> hand) {
-        int value = 0;
-        int aces = 0;
-        
-        for (Card card : hand) {
-            Rank rank = card.getRank();
-            if (rank == Rank.ACE) {
-                aces++;
-                value += 11;
-            } else if (rank == Rank.JACK || rank == Rank.QUEEN || rank == Rank.KING) {
-                value += 10;
+    /**
+     * Resumes a hand saved by {@link #save()}, replacing the current one.
+     * Subscribers get a single {@link GameRestored} event rather than the
+     * events of a new hand, so recorders don't count the hand again;
+     * listeners are notified as usual.
+     *
+     * @throws IllegalArgumentException if the snapshot is corrupt, was saved
+     *                                  from a shoe with a different number of
+     *                                  decks, holds more copies of a card than
+     *                                  the shoe, or has flags that contradict
+     *                                  its result; the game is left unchanged
+     */
+    public void restore(byte[] snapshot) {
+        synchronized (this) {
+            ByteBuffer in = Snapshots.open(snapshot, Snapshots.BLACKJACK);
+            try {
+                int flags = in.get();
+                int resultIndex = in.get();
+                if (resultIndex < -1 || resultIndex >= GameResult.values().length) {
+                    throw new IllegalArgumentException("Snapshot result out of range: " + resultIndex);
+                }
+                int numDecks = in.get();
+                if (numDecks != shoe.getNumDecks()) {
+                    throw new IllegalArgumentException("Snapshot was saved from a " + numDecks
+                            + "-deck shoe, this shoe has " + shoe.getNumDecks());
+                }
+                int playerStart = skipHand(in);
+                int playerSize = in.position() - playerStart;
+                int dealerStart = skipHand(in);
+                int dealerSize = in.position() - dealerStart;
+                int remaining = Snapshots.checkCount(in, in.getShort() & 0xffff, shoe.totalCards());
+                
+                // Everything is checked before the shoe is touched
+                checkCopies(snapshot, numDecks, playerStart, playerSize, dealerStart, dealerSize,
+                        in.position(), remaining);
+                Hand savedPlayer = new Hand();
+                Hand savedDealer = new Hand();
+                fillHand(savedPlayer, snapshot, playerStart, playerSize);
+                fillHand(savedDealer, snapshot, dealerStart, dealerSize);
+                GameResult savedResult = resultIndex < 0 ? null : GameResult.values()[resultIndex];
+                checkFlags(flags, savedResult, savedPlayer, savedDealer);
+                shoe.restoreRemaining(snapshot, in.position(), remaining, savedPlayer, savedDealer);
+                
+                fillHand(playerHand, snapshot, playerStart, playerSize);
+                fillHand(dealerHand, snapshot, dealerStart, dealerSize);
+                gameOver = (flags & FLAG_GAME_OVER) != 0;
+                playerBusted = (flags & FLAG_PLAYER_BUSTED) != 0;
+                dealerBusted = (flags & FLAG_DEALER_BUSTED) != 0;
+                playerStood = (flags & FLAG_PLAYER_STOOD) != 0;
+                result = savedResult;
+            } catch (BufferUnderflowException e) {
+                throw Snapshots.truncated(e);
+            }
+            
+            if (result == null) {
+                resultMessage = null;
+            } else if (playerBusted) {
+                resultMessage = "BUST! You went over 21!";
+            } else if (dealerBusted) {
+                resultMessage = "Dealer BUSTS! You win!";
+            } else if (gameOver) {
+                describeResult();
             } else {
-                value += rank.getValue();
+                resultMessage = "";
+            }
+            
+            events.publish(new GameRestored(snapshot));
+            notifyListeners();
+        }
+        events.flush();
+    }
+    
+    /**
+     * Validates a saved hand and moves past it.
+     *
+     * @return the position of its first card code
+     */
+    private static int skipHand(ByteBuffer in) {
+        int size = Snapshots.readCount(in, Hand.MAX_CARDS);
+        int start = in.position();
+        for (int i = 0; i < size; i++) {
+            int code = in.get();
+            if (code < 0 || code >= Card.STANDARD_CARD_COUNT) {
+                throw new IllegalArgumentException("Snapshot card code out of range: " + code);
+            }
+        }
+        return start;
+    }
+    
+    /**
+     * Checks that the saved hands and undealt cards together hold no more
+     * copies of any card than a shoe of {@code numDecks} decks.
+     */
+    private static void checkCopies(byte[] codes, int numDecks, int playerStart, int playerSize,
+                                    int dealerStart, int dealerSize, int remainingStart, int remaining) {
+        int[] copies = new int[Card.STANDARD_CARD_COUNT];
+        int[][] ranges = { { playerStart, playerSize }, { dealerStart, dealerSize }, { remainingStart, remaining } };
+        for (int[] range : ranges) {
+            for (int i = range[0]; i < range[0] + range[1]; i++) {
+                int code = codes[i];
+                if (code < 0 || code >= Card.STANDARD_CARD_COUNT) {
+                    throw new IllegalArgumentException("Snapshot card code out of range: " + code);
+                }
+                if (++copies[code] > numDecks) {
+                    throw new IllegalArgumentException("Snapshot holds more than " + numDecks
+                            + " of " + Card.fromCode(code));
+                }
             }
         }
+    }
+    
+    /**
+     * Checks that the saved flags could have come from a hand with the saved
+     * cards and result.
+     */
+    private static void checkFlags(int flags, GameResult result, Hand player, Hand dealer) {
+        boolean over = (flags & FLAG_GAME_OVER) != 0;
+        boolean playerBust = (flags & FLAG_PLAYER_BUSTED) != 0;
+        boolean dealerBust = (flags & FLAG_DEALER_BUSTED) != 0;
+        boolean stood = (flags & FLAG_PLAYER_STOOD) != 0;
+        if (result == null) {
+            if (flags != 0 || player.size() != 0 || dealer.size() != 0) {
+                throw new IllegalArgumentException("Snapshot has cards or flags but no hand was dealt");
+            }
+            return;
+        }
+        if (player.size() < 2 || dealer.size() < 2) {
+            throw new IllegalArgumentException("Snapshot hand has fewer than two cards");
+        }
+        if (over != (result != GameResult.IN_PROGRESS)) {
+            throw new IllegalArgumentException("Snapshot result " + result + " contradicts its game-over flag");
+        }
+        if (stood && !over) {
+            throw new IllegalArgumentException("Snapshot player stood but the hand is not over");
+        }
+        if (playerBust != player.isBust() || dealerBust != dealer.isBust()) {
+            throw new IllegalArgumentException("Snapshot bust flags contradict the hand values "
+                    + player.value() + " and " + dealer.value());
+        }
+        if ((playerBust && result != GameResult.LOSE) || (dealerBust && result != GameResult.WIN)) {
+            throw new IllegalArgumentException("Snapshot result " + result + " contradicts its bust flags");
+        }
+    }
+    
+    private static void fillHand(Hand hand, byte[] codes, int start, int size) {
+        hand.clear();
+        for (int i = 0; i < size; i++) {
+            hand.add(codes[start + i]);
+        }
+    }
+    
+    public int getHandValue(List<Card> hand) {
+        int value = 0;
+        boolean hasAce = false;
         
-        while (value > 21 && aces > 0) {
-            value -= 10;
-            aces--;
+        for (Card card : hand) {
+            int points = Hand.pointsOf(card.getCode());
+            hasAce |= points == 1;
+            value += points;
         }
         
-        return value;
+        // At most one Ace can ever count as 11
+        return hasAce && value <= 11 ? value + 10 : value;
     }
     
-    // Listener pattern for MVC
+    // Listener pattern for MVC - a full-state refresh, see getEvents() for typed events
     public interface GameListener {
         void onGameStateChanged();
     }
@@ -148,21 +402,31 @@ public class BlackjackModel {
     }
     
     private void notifyListeners() {
-        for (GameListener listener : listeners) {
-            listener.onGameStateChanged();
-        }
-    }
-    
-    // Getters
-    public List<Card> getPlayerHand() { return new ArrayList<>(playerHand); }
-    public List<Card> getDealerHand() { return new ArrayList<>(dealerHand); }
-    public int getPlayerValue() { return getHandValue(playerHand); }
-    public int getDealerValue() { return getHandValue(dealerHand); }
-    public boolean isGameOver() { return gameOver; }
-    public boolean isPlayerBusted() { return playerBusted; }
-    public boolean isDealerBusted() { return dealerBusted; }
-    public boolean hasPlayerStood() { return playerStood; }
-    public GameResult getResult() { return result; }
-    public String getResultMessage() { return resultMessage; }
+        if (listeners.isEmpty()) {
+            return;
+        }
+        events.execute(() -> {
+            for (GameListener listener : listeners) {
+                listener.onGameStateChanged();
+            }
+        });
+    }
+    
+    // Getters - hands are immutable snapshots, reused until the hand changes
+    public synchronized List<Card> getPlayerHand() { return playerHand.asList(); }
+    public synchronized List<Card> getDealerHand() { return dealerHand.asList(); }
+    public synchronized long getPlayerHandVersion() { return playerHand.version(); }
+    public synchronized long getDealerHandVersion() { return dealerHand.version(); }
+    public synchronized int getPlayerValue() { return playerHand.value(); }
+    public synchronized int getDealerValue() { return dealerHand.value(); }
+    public synchronized boolean isPlayerSoft() { return playerHand.isSoft(); }
+    public synchronized boolean isGameOver() { return gameOver; }
+    public synchronized boolean isPlayerBusted() { return playerBusted; }
+    public synchronized boolean isDealerBusted() { return dealerBusted; }
+    public synchronized boolean hasPlayerStood() { return playerStood; }
+    public synchronized GameResult getResult() { return result; }
+    public Shoe getShoe() { return shoe; }
+    public synchronized String getResultMessage() { return resultMessage; }
+    public EventBus getEvents() { return events; }
 }
 
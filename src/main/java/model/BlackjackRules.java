@@ -0,0 +1,51 @@
+package model;
+
+/**
+ * The rules of the simplified blackjack game, shared by the interactive
+ * model and the headless simulators so they always agree.
+ *
+ * The dealer draws to 17 and stands on all 17s, a player reaching 21 stands
+ * automatically, and hands are settled on value alone at even money.
+ */
+public final class BlackjackRules {
+
+    /** The dealer stands on this total or higher, soft or hard. */
+    public static final int DEALER_STANDS_ON = 17;
+
+    private BlackjackRules() {
+    }
+
+    public static boolean dealerMustHit(Hand dealer) {
+        return dealer.value() < DEALER_STANDS_ON;
+    }
+
+    /**
+     * Draws dealer cards from the shoe until the dealer must stand.
+     */
+    public static void playDealer(Hand dealer, Shoe shoe) {
+        while (dealerMustHit(dealer)) {
+            dealer.add(shoe.drawCode());
+        }
+    }
+
+    /**
+     * Settles a finished hand from the player's point of view.
+     */
+    public static BlackjackModel.GameResult settle(Hand player, Hand dealer) {
+        if (player.isBust()) {
+            return BlackjackModel.GameResult.LOSE;
+        }
+        if (dealer.isBust()) {
+            return BlackjackModel.GameResult.WIN;
+        }
+        int playerValue = player.value();
+        int dealerValue = dealer.value();
+        if (playerValue > dealerValue) {
+            return BlackjackModel.GameResult.WIN;
+        }
+        if (dealerValue > playerValue) {
+            return BlackjackModel.GameResult.LOSE;
+        }
+        return BlackjackModel.GameResult.PUSH;
+    }
+}
@@ -0,0 +1,231 @@
+package model;
+
+import model.BlackjackModel.GameResult;
+import model.GameEvent.CardDealt;
+import model.GameEvent.DealerRevealed;
+import model.GameEvent.GameStarted;
+import model.GameEvent.SeatCardDealt;
+import model.GameEvent.SeatResolved;
+import model.GameEvent.Target;
+
+import java.util.List;
+
+/**
+ * A blackjack table with up to seven seats sharing one shoe and one dealer,
+ * under the same {@link BlackjackRules} as {@link BlackjackModel}.
+ *
+ * Cards are dealt round-robin: one to each seat in order, one to the dealer,
+ * then a second to each seat and the dealer's hole card. Seats then act in
+ * order, each hitting until it stands, busts or reaches 21; a natural stands
+ * straight away. Once every seat is done the dealer plays once, unless every
+ * seat busted, and all seats are settled against that hand in one pass.
+ *
+ * Like {@link BlackjackModel}, actions and getters synchronize on the table
+ * and events go through its {@link EventBus}, delivered once the lock is
+ * released.
+ */
+public class BlackjackTable {
+    
+    public static final int MAX_SEATS = 7;
+    
+    private static final int NO_SEAT = -1;
+    
+    /** One player's hand and decision state. */
+    private static final class Seat {
+        final Hand hand = new Hand();
+        boolean stood;
+        GameResult result = GameResult.IN_PROGRESS;
+        
+        boolean isDone() {
+            return stood || hand.isBust();
+        }
+    }
+    
+    private final Shoe shoe;
+    private final Seat[] seats;
+    private final Hand dealerHand = new Hand();
+    private int activeSeat = NO_SEAT;
+    private boolean roundOver = true;
+    
+    private final EventBus events = new EventBus();
+    
+    /**
+     * Creates a table whose shoe is reshuffled before every round, with
+     * {@link #decksFor} decks for the number of seats.
+     */
+    public BlackjackTable(int seatCount) {
+        this(seatCount, new Shoe(decksFor(seatCount), 0.0));
+    }
+    
+    /**
+     * Gets the number of decks a table of {@code seatCount} seats deals from
+     * by default: one per two seats, so a full round can't realistically run
+     * through the whole shoe, which the shoe rejects.
+     */
+    public static int decksFor(int seatCount) {
+        return Math.max(Shoe.MIN_DECKS, Math.min((seatCount + 1) / 2, Shoe.MAX_DECKS));
+    }
+    
+    public BlackjackTable(int seatCount, Shoe shoe) {
+        if (seatCount < 1 || seatCount > MAX_SEATS) {
+            throw new IllegalArgumentException("Number of seats must be between 1 and "
+                    + MAX_SEATS + ": " + seatCount);
+        }
+        this.shoe = shoe;
+        this.seats = new Seat[seatCount];
+        for (int i = 0; i < seatCount; i++) {
+            seats[i] = new Seat();
+        }
+    }
+    
+    /**
+     * Deals a new round to every seat.
+     */
+    public void startRound() {
+        synchronized (this) {
+            events.beginBatch();
+            try {
+                shoe.prepareHand();
+                dealerHand.clear();
+                for (Seat seat : seats) {
+                    seat.hand.clear();
+                    seat.stood = false;
+                    seat.result = GameResult.IN_PROGRESS;
+                }
+                roundOver = false;
+                events.publish(new GameStarted());
+                
+                for (int round = 0; round < 2; round++) {
+                    for (int i = 0; i < seats.length; i++) {
+                        dealToSeat(i);
+                    }
+                    int code = shoe.drawCode();
+                    dealerHand.add(code);
+                    events.publish(new CardDealt(Target.DEALER, Card.fromCode(code), round == 1, shoe.remainingCards()));
+                }
+                
+                // Naturals stand automatically
+                for (Seat seat : seats) {
+                    seat.stood = seat.hand.isBlackjack();
+                }
+                activeSeat = NO_SEAT;
+                advance();
+            } finally {
+                events.endBatch();
+            }
+        }
+        events.flush();
+    }
+    
+    private void dealToSeat(int seat) {
+        int code = shoe.drawCode();
+        seats[seat].hand.add(code);
+        events.publish(new SeatCardDealt(seat, Card.fromCode(code)));
+    }
+    
+    /**
+     * Deals a card to the seat whose turn it is.
+     *
+     * @throws IllegalStateException if it is not {@code seat}'s turn
+     */
+    public void hit(int seat) {
+        synchronized (this) {
+            checkTurn(seat);
+            events.beginBatch();
+            try {
+                dealToSeat(seat);
+                Hand hand = seats[seat].hand;
+                if (hand.value() == 21) {
+                    seats[seat].stood = true;
+                }
+                if (seats[seat].isDone()) {
+                    advance();
+                }
+            } finally {
+                events.endBatch();
+            }
+        }
+        events.flush();
+    }
+    
+    /**
+     * Ends the turn of the seat whose turn it is.
+     *
+     * @throws IllegalStateException if it is not {@code seat}'s turn
+     */
+    public void stand(int seat) {
+        synchronized (this) {
+            checkTurn(seat);
+            events.beginBatch();
+            try {
+                seats[seat].stood = true;
+                advance();
+            } finally {
+                events.endBatch();
+            }
+        }
+        events.flush();
+    }
+    
+    private void checkTurn(int seat) {
+        if (roundOver) {
+            throw new IllegalStateException("The round is over");
+        }
+        if (seat != activeSeat) {
+            throw new IllegalStateException("Seat " + seat + " cannot act, it is seat " + activeSeat + "'s turn");
+        }
+    }
+    
+    /**
+     * Moves the turn to the next seat still to act, or plays the dealer and
+     * settles the round when there is none.
+     */
+    private void advance() {
+        do {
+            activeSeat++;
+        } while (activeSeat < seats.length && seats[activeSeat].isDone());
+        if (activeSeat == seats.length) {
+            activeSeat = NO_SEAT;
+            finishRound();
+        }
+    }
+    
+    private void finishRound() {
+        events.publish(new DealerRevealed(dealerHand.cardAt(1)));
+        
+        boolean anyStanding = false;
+        for (Seat seat : seats) {
+            anyStanding |= !seat.hand.isBust();
+        }
+        if (anyStanding) {
+            while (BlackjackRules.dealerMustHit(dealerHand)) {
+                int code = shoe.drawCode();
+                dealerHand.add(code);
+                events.publish(new CardDealt(Target.DEALER, Card.fromCode(code), false, shoe.remainingCards()));
+            }
+        }
+        
+        for (int i = 0; i < seats.length; i++) {
+            Seat seat = seats[i];
+            seat.result = BlackjackRules.settle(seat.hand, dealerHand);
+            events.publish(new SeatResolved(i, seat.result, seat.hand.value(), dealerHand.value()));
+        }
+        roundOver = true;
+    }
+    
+    // Getters - hands are immutable snapshots, reused until the hand changes
+    public int getSeatCount() { return seats.length; }
+    public synchronized List<Card> getSeatHand(int seat) { return seats[seat].hand.asList(); }
+    public synchronized List<Card> getDealerHand() { return dealerHand.asList(); }
+    public synchronized int getActiveSeat() { return activeSeat; }
+    public synchronized boolean isRoundOver() { return roundOver; }
+    public synchronized int getSeatValue(int seat) { return seats[seat].hand.value(); }
+    public synchronized boolean isSeatSoft(int seat) { return seats[seat].hand.isSoft(); }
+    public synchronized boolean isSeatBusted(int seat) { return seats[seat].hand.isBust(); }
+    public synchronized boolean hasSeatStood(int seat) { return seats[seat].stood; }
+    public synchronized GameResult getSeatResult(int seat) { return seats[seat].result; }
+    public synchronized int getDealerValue() { return dealerHand.value(); }
+    public synchronized boolean isDealerBusted() { return dealerHand.isBust(); }
+    public Shoe getShoe() { return shoe; }
+    public EventBus getEvents() { return events; }
+}
@@ -5,35 +5,104 @@ import java.util.Objects;
 /**
  * Represents a playing card with a rank and suit.
  * Cards are immutable and can be compared by their rank values.
+ *
+ * All 54 cards (52 standard cards plus two Jokers) are pre-built once and
+ * addressed by a compact card code, so decks and models can share the same
+ * instances instead of allocating new ones on every reset.
  */
 public class Card implements Comparable<Card> {
+
+    /** Number of standard (non-Joker) cards. */
+    public static final int STANDARD_CARD_COUNT = 52;
+
+    /** Total number of distinct card codes, including both Jokers. */
+    public static final int CARD_COUNT = 54;
+
+    /** Code of the first Joker; the second Joker is {@code JOKER_CODE + 1}. */
+    public static final int JOKER_CODE = 52;
+
+    private static final int RANK_COUNT = Rank.values().length;
+    private static final Card[] BY_CODE = new Card[CARD_COUNT];
+
+    static {
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                Card card = new Card(rank, suit);
+                BY_CODE[card.code] = card;
+            }
+        }
+        BY_CODE[JOKER_CODE] = new Card(JOKER_CODE);
+        BY_CODE[JOKER_CODE + 1] = new Card(JOKER_CODE + 1);
+    }
+
     private final Rank rank;
     private final Suit suit;
     private final boolean isJoker;
+    private final int code;
+    private final String symbol;
 
     /**
      * Creates a standard playing card with the given rank and suit.
+     * Prefer {@link #of(Rank, Suit)}, which returns the shared instance.
      */
     public Card(Rank rank, Suit suit) {
         this.rank = Objects.requireNonNull(rank, "Rank cannot be null");
         this.suit = Objects.requireNonNull(suit, "Suit cannot be null");
         this.isJoker = false;
+        this.code = codeOf(rank, suit);
+        this.symbol = rank.getSymbol() + suit.getSymbol();
     }
 
     /**
      * Private constructor for creating Joker cards.
      */
-    private Card(boolean isJoker) {
+    private Card(int jokerCode) {
         this.rank = null;
         this.suit = null;
-        this.isJoker = isJoker;
+        this.isJoker = true;
+        this.code = jokerCode;
+        this.symbol = "JOKER";
     }
 
     /**
-     * Creates a Joker card.
+     * Returns the shared Joker card.
      */
     public static Card createJoker() {
-        return new Card(true);
+        return BY_CODE[JOKER_CODE];
+    }
+
+    /**
+     * Returns the shared card for the given rank and suit.
+     */
+    public static Card of(Rank rank, Suit suit) {
+        return BY_CODE[codeOf(rank, suit)];
+    }
+
+    /**
+     * Returns the shared card for the given card code.
+     */
+    public static Card fromCode(int code) {
+        if (code < 0 || code >= CARD_COUNT) {
+            throw new IllegalArgumentException("Invalid card code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * Gets the card code for a standard card: suit-major, rank-minor, 0-51.
+     */
+    public static int codeOf(Rank rank, Suit suit) {
+        return suit.ordinal() * RANK_COUNT + rank.ordinal();
+    }
+
+    /**
+     * Gets the comparison value for a card code without touching a Card instance.
+     */
+    public static int valueOf(int code) {
+        if (code >= JOKER_CODE) {
+            return 15;
+        }
+        return code % RANK_COUNT + 2;
     }
 
     public Rank getRank() {
@@ -48,6 +117,10 @@ public class Card implements Comparable<Card> {
         return isJoker;
     }
 
+    public int getCode() {
+        return code;
+    }
+
     /**
      * Gets the numeric value of the card for comparison.
      * Jokers have the highest value (15).
@@ -90,16 +163,13 @@ public class Card implements Comparable<Card> {
 
     @Override
     public int hashCode() {
-        if (isJoker) return Objects.hash(true);
-        return Objects.hash(rank, suit);
+        // Both Jokers are equal, so they must share a hash code
+        return isJoker ? JOKER_CODE : code;
     }
 
     @Override
     public String toString() {
-        if (isJoker) {
-            return "JOKER";
-        }
-        return rank.getSymbol() + suit.getSymbol();
+        return symbol;
     }
 
     public String toDetailedString() {
@@ -109,4 +179,3 @@ public class Card implements Comparable<Card> {
         return rank.getSymbol() + " of " + suit.getDisplayName();
     }
 }
-
@@ -1,98 +1,348 @@
 package model;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents a deck of playing cards.
  * Supports standard 52-card deck with optional Jokers.
+ *
+ * The deck stores card codes (see {@link Card#getCode()}) in a byte
+ * array, so shuffling and resetting work in place and nothing is allocated
+ * after construction.
+ *
+ * The composition of the undealt cards is tracked as each card is drawn: a
+ * count per card value and a 64-bit mask with one bit per card code. Queries
+ * about what is left are therefore O(1) and never rescan the deck.
  */
 public class Deck {
-    private final List<Card> cards;
+
+    /** Highest card value (Jokers), used to size the per-value counts. */
+    private static final int MAX_VALUE = 15;
+
+    private static final byte[] VALUES = new byte[Card.CARD_COUNT];
+    private static final long[] VALUE_MASKS = new long[MAX_VALUE + 1];
+    private static final long[] ABOVE_MASKS = new long[MAX_VALUE + 1];
+
+    static {
+        for (int code = 0; code < Card.CARD_COUNT; code++) {
+            VALUES[code] = (byte) Card.valueOf(code);
+            VALUE_MASKS[VALUES[code]] |= 1L << code;
+        }
+        for (int value = MAX_VALUE - 1; value >= 0; value--) {
+            ABOVE_MASKS[value] = ABOVE_MASKS[value + 1] | VALUE_MASKS[value + 1];
+        }
+    }
+
+    private byte[] order;
     private int currentIndex;
-    private final Random random;
+    private final RandomGenerator random;
     private final boolean hasJokers;
+    private final long fullMask;
+    private final int[] valueCounts = new int[MAX_VALUE + 1];
+    private long remainingMask;
+    private OrderSource orderSource;
 
     public Deck() {
         this(false);
     }
 
     public Deck(boolean includeJokers) {
-        this.cards = new ArrayList<>();
-        this.random = new Random();
-        this.currentIndex = 0;
+        this(includeJokers, RandomFactory.newDefaultGenerator());
+    }
+
+    /**
+     * Creates a deck that shuffles with the given generator. A seeded generator
+     * makes the sequence of shuffles reproducible, as long as no shuffle pool
+     * is attached.
+     */
+    public Deck(boolean includeJokers, RandomGenerator random) {
         this.hasJokers = includeJokers;
+        this.order = new byte[includeJokers ? Card.CARD_COUNT : Card.STANDARD_CARD_COUNT];
+        this.fullMask = -1L >>> (Long.SIZE - order.length);
+        this.random = Objects.requireNonNull(random, "Random generator cannot be null");
         initializeDeck();
     }
 
-    private void initializeDeck() {
-        cards.clear();
-        
-        for (Suit suit : Suit.values()) {
-            for (Rank rank : Rank.values()) {
-                cards.add(new Card(rank, suit));
-            }
+    /**
+     * Gets the mask of all card codes with the given value.
+     */
+    public static long valueMask(int value) {
+        if (value < 0 || value > MAX_VALUE) {
+            return 0L;
         }
-        
-        if (hasJokers) {
-            cards.add(Card.createJoker());
-            cards.add(Card.createJoker());
+        return VALUE_MASKS[value];
+    }
+
+    /**
+     * Gets the mask of all card codes with the given rank.
+     */
+    public static long rankMask(Rank rank) {
+        return VALUE_MASKS[rank.getValue()];
+    }
+
+    private void initializeDeck() {
+        for (int code = 0; code < order.length; code++) {
+            order[code] = (byte) code;
         }
-        
+        rewind();
+    }
+
+    /**
+     * Moves back to the top of the deck and marks every card as undealt.
+     */
+    private void rewind() {
         currentIndex = 0;
+        remainingMask = fullMask;
+        for (int value = 2; value <= MAX_VALUE; value++) {
+            valueCounts[value] = Long.bitCount(fullMask & VALUE_MASKS[value]);
+        }
+    }
+
+    private void markDealt(int code) {
+        valueCounts[VALUES[code]]--;
+        remainingMask &= ~(1L << code);
     }
 
     /**
      * Shuffles the deck using Fisher-Yates algorithm.
      */
     public void shuffle() {
-        for (int i = cards.size() - 1; i > 0; i--) {
+        byte[] codes = order;
+        for (int i = codes.length - 1; i > 0; i--) {
             int j = random.nextInt(i + 1);
-            Card temp = cards.get(i);
-            cards.set(i, cards.get(j));
-            cards.set(j, temp);
+            byte temp = codes[i];
+            codes[i] = codes[j];
+            codes[j] = temp;
         }
-        currentIndex = 0;
+        rewind();
     }
 
     public Card draw() {
         if (isEmpty()) {
             return null;
         }
-        return cards.get(currentIndex++);
+        return Card.fromCode(drawCode());
+    }
+
+    /**
+     * Draws the next card code, or -1 if the deck is empty.
+     */
+    public int drawCode() {
+        if (isEmpty()) {
+            return -1;
+        }
+        int code = order[currentIndex++];
+        markDealt(code);
+        return code;
+    }
+
+    /**
+     * Draws up to {@code n} card codes into {@code dst}.
+     *
+     * @return the number of codes actually drawn
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public int drawInto(int[] dst, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Cannot draw a negative number of cards: " + n);
+        }
+        int count = Math.min(Math.min(n, dst.length), remainingCards());
+        for (int i = 0; i < count; i++) {
+            int code = order[currentIndex + i];
+            markDealt(code);
+            dst[i] = code;
+        }
+        currentIndex += count;
+        return count;
     }
 
     public Card peek() {
         if (isEmpty()) {
             return null;
         }
-        return cards.get(currentIndex);
+        return Card.fromCode(order[currentIndex]);
+    }
+
+    /**
+     * Peeks at the next card code, or -1 if the deck is empty.
+     */
+    public int peekCode() {
+        if (isEmpty()) {
+            return -1;
+        }
+        return order[currentIndex];
     }
 
     public boolean isEmpty() {
-        return currentIndex >= cards.size();
+        return currentIndex >= order.length;
     }
 
     public int remainingCards() {
-        return cards.size() - currentIndex;
+        return order.length - currentIndex;
     }
 
     public int totalCards() {
-        return cards.size();
+        return order.length;
+    }
+
+    /**
+     * Gets the number of undealt cards of the given rank.
+     */
+    public int remainingOfRank(Rank rank) {
+        return valueCounts[rank.getValue()];
+    }
+
+    /**
+     * Gets the number of undealt cards with the given value (Jokers are 15).
+     */
+    public int remainingOfValue(int value) {
+        if (value < 0 || value > MAX_VALUE) {
+            return 0;
+        }
+        return valueCounts[value];
+    }
+
+    /**
+     * Gets the number of undealt cards with a value strictly above {@code value}.
+     */
+    public int remainingAbove(int value) {
+        if (value >= MAX_VALUE) {
+            return 0;
+        }
+        return Long.bitCount(remainingMask & ABOVE_MASKS[Math.max(value, 0)]);
+    }
+
+    /**
+     * Gets the number of undealt cards with a value strictly below {@code value}.
+     */
+    public int remainingBelow(int value) {
+        if (value <= 0) {
+            return 0;
+        }
+        return Long.bitCount(remainingMask & ~ABOVE_MASKS[Math.min(value, MAX_VALUE + 1) - 1]);
+    }
+
+    /**
+     * Gets the mask of undealt card codes: bit {@code c} is set while card code
+     * {@code c} is still in the deck.
+     */
+    public long remainingMask() {
+        return remainingMask;
+    }
+
+    public boolean isRemaining(Card card) {
+        return isRemaining(card.getCode());
+    }
+
+    public boolean isRemaining(int code) {
+        return (remainingMask & (1L << code)) != 0;
+    }
+
+    /**
+     * Gets how many of the cards in {@code mask} are still undealt.
+     */
+    public int remainingIn(long mask) {
+        return Long.bitCount(remainingMask & mask);
+    }
+
+    /**
+     * Checks whether every card in {@code mask} is still undealt.
+     */
+    public boolean containsAll(long mask) {
+        return (remainingMask & mask) == mask;
+    }
+
+    /**
+     * Copies the undealt card codes, in dealing order, into {@code dst}.
+     *
+     * @return the number of codes copied
+     */
+    public int copyRemaining(byte[] dst, int offset) {
+        int count = remainingCards();
+        System.arraycopy(order, currentIndex, dst, offset, count);
+        return count;
+    }
+
+    /**
+     * Rearranges the deck so that exactly the {@code count} codes at
+     * {@code src[offset]} are undealt, in that order, and every other card
+     * has been dealt. Used to resume a saved game.
+     *
+     * @throws IllegalArgumentException if a code is repeated or is not in this deck;
+     *                                  the deck is left unchanged
+     */
+    public void restoreRemaining(byte[] src, int offset, int count) {
+        long mask = 0L;
+        for (int i = 0; i < count; i++) {
+            int code = src[offset + i];
+            if (code < 0 || code >= order.length) {
+                throw new IllegalArgumentException("Card code " + code + " is not in this deck");
+            }
+            if ((mask & (1L << code)) != 0) {
+                throw new IllegalArgumentException("Card code " + code + " is repeated");
+            }
+            mask |= 1L << code;
+        }
+
+        int dealt = order.length - count;
+        long dealtMask = fullMask & ~mask;
+        for (int i = 0; i < dealt; i++) {
+            order[i] = (byte) Long.numberOfTrailingZeros(dealtMask);
+            dealtMask &= dealtMask - 1;
+        }
+        System.arraycopy(src, offset, order, dealt, count);
+
+        rewind();
+        for (int i = 0; i < dealt; i++) {
+            markDealt(order[i]);
+        }
+        currentIndex = dealt;
     }
 
     public void reset() {
         initializeDeck();
     }
 
+    /**
+     * Rewinds and reshuffles the deck. If an order source is attached, a
+     * shuffled order is taken from it; otherwise the previous order is
+     * shuffled in place (Fisher-Yates gives a uniform result from any starting
+     * permutation, so it does not need to be restored first).
+     */
     public void resetAndShuffle() {
-        reset();
+        if (orderSource != null) {
+            byte[] fresh = orderSource.exchange(order);
+            if (fresh != null) {
+                order = fresh;
+                rewind();
+                return;
+            }
+        }
         shuffle();
     }
 
+    /**
+     * Attaches a pool of pre-shuffled orders, or detaches it when null.
+     */
+    public void setShufflePool(ShufflePool shufflePool) {
+        setOrderSource(shufflePool);
+    }
+
+    /**
+     * Takes every reshuffle from the given source, or shuffles inline again
+     * when null. Inline shuffling is still used whenever the source has no
+     * order ready.
+     */
+    public void setOrderSource(OrderSource orderSource) {
+        if (orderSource != null && orderSource.getCardCount() != order.length) {
+            throw new IllegalArgumentException("Order source is for " + orderSource.getCardCount()
+                    + " cards but the deck has " + order.length);
+        }
+        this.orderSource = orderSource;
+    }
+
     public boolean hasJokers() {
         return hasJokers;
     }
 }
-
@@ -0,0 +1,149 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers typed {@link GameEvent}s to subscribers registered per event type.
+ *
+ * Events published between {@link #beginBatch()} and the matching
+ * {@link #endBatch()} are coalesced: each subscriber gets a single call with
+ * every matching event from the batch, in publication order. Outside a batch
+ * an event is delivered straight away.
+ *
+ * Subscribing and unsubscribing are safe from any thread. Publishing and
+ * batching are done by the owning model while it holds its lock, and only
+ * queue the deliveries; the model calls {@link #flush()} once it has released
+ * the lock, so subscribers never run under it and are free to call back into
+ * the model. Deliveries run on the dispatcher, which defaults to the flushing
+ * thread; use a single-threaded executor to keep slow subscribers off the
+ * caller's thread while preserving delivery order.
+ */
+public class EventBus {
+
+    /**
+     * Receives the events of one type from a single delivery.
+     */
+    public interface Subscriber<E extends GameEvent> {
+        void onEvents(List<E> events);
+    }
+
+    private record Subscription<E extends GameEvent>(Class<E> type, Subscriber<? super E> subscriber) {
+        void deliver(List<GameEvent> events) {
+            List<E> matching = new ArrayList<>();
+            for (GameEvent event : events) {
+                if (type.isInstance(event)) {
+                    matching.add(type.cast(event));
+                }
+            }
+            if (!matching.isEmpty()) {
+                subscriber.onEvents(Collections.unmodifiableList(matching));
+            }
+        }
+    }
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<GameEvent> pending = new ArrayList<>();
+    private int batchDepth;
+    private final Queue<Runnable> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private volatile Executor dispatcher = Runnable::run;
+
+    /**
+     * Subscribes to events of {@code type} and its subtypes; subscribe to
+     * {@code GameEvent.class} to receive everything.
+     */
+    public <E extends GameEvent> void subscribe(Class<E> type, Subscriber<? super E> subscriber) {
+        subscriptions.add(new Subscription<>(type, subscriber));
+    }
+
+    public void unsubscribe(Subscriber<?> subscriber) {
+        subscriptions.removeIf(subscription -> subscription.subscriber() == subscriber);
+    }
+
+    /**
+     * Starts collecting events instead of queueing them one by one. Batches
+     * may nest; the events are queued as one delivery when the outermost
+     * batch ends.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void endBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("endBatch() called without beginBatch()");
+        }
+        if (--batchDepth == 0 && !pending.isEmpty()) {
+            List<GameEvent> batch = new ArrayList<>(pending);
+            pending.clear();
+            deliver(batch);
+        }
+    }
+
+    /**
+     * Publishes an event, queueing it for the next {@link #flush()}. With no
+     * subscribers the event is dropped at once, so headless simulations pay
+     * nothing for it.
+     */
+    public void publish(GameEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        if (batchDepth > 0) {
+            pending.add(event);
+        } else {
+            deliver(List.of(event));
+        }
+    }
+
+    /**
+     * Sets the executor that deliveries run on.
+     */
+    public void setDispatcher(Executor dispatcher) {
+        this.dispatcher = Objects.requireNonNull(dispatcher, "Dispatcher cannot be null");
+    }
+
+    /**
+     * Queues a notification task to run on the dispatcher, in order with
+     * event deliveries.
+     */
+    void execute(Runnable task) {
+        ready.add(task);
+    }
+
+    /**
+     * Hands every queued delivery to the dispatcher, in the order queued.
+     * Call it without holding the model's lock. If another thread is already
+     * flushing, it picks up what this thread queued, and a subscriber that
+     * calls back into the model has its events delivered once the current
+     * delivery returns.
+     */
+    public void flush() {
+        while (!ready.isEmpty() && flushing.compareAndSet(false, true)) {
+            try {
+                Runnable task;
+                while ((task = ready.poll()) != null) {
+                    dispatcher.execute(task);
+                }
+            } finally {
+                flushing.set(false);
+            }
+        }
+    }
+
+    private void deliver(List<GameEvent> events) {
+        ready.add(() -> {
+            for (Subscription<?> subscription : subscriptions) {
+                subscription.deliver(events);
+            }
+        });
+    }
+}
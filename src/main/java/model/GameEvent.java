@@ -0,0 +1,83 @@
+package model;
+
+/**
+ * Typed events published by the game models through their {@link EventBus}.
+ * Each event describes one thing that changed, so subscribers only need to
+ * update the part of their state it touches.
+ */
+public sealed interface GameEvent {
+
+    /** Where a dealt card went. */
+    enum Target { PLAYER, DEALER, TABLE }
+
+    /** A new game has started; anything shown for the previous game is stale. */
+    record GameStarted() implements GameEvent {}
+
+    /**
+     * The game was replaced by one resumed from {@code snapshot}. Nothing was
+     * dealt or settled: views should redraw, from the {@link TableRestored}
+     * that follows in Higher/Lower or the model's getters in blackjack, and
+     * recorders should not count it as a new game or outcome.
+     */
+    record GameRestored(byte[] snapshot) implements GameEvent {
+        public GameRestored {
+            snapshot = snapshot.clone();
+        }
+
+        /** Gets a copy of the snapshot the game was restored from. */
+        @Override
+        public byte[] snapshot() {
+            return snapshot.clone();
+        }
+    }
+
+    /**
+     * A card was dealt, possibly face down (the dealer's hole card), leaving
+     * {@code remaining} cards in the deck or shoe.
+     */
+    record CardDealt(Target target, Card card, boolean faceDown, int remaining) implements GameEvent {}
+
+    /** The player made a Higher/Lower guess; published before it is resolved. */
+    record GuessMade(HigherLowerModel.Guess guess) implements GameEvent {}
+
+    /** A Higher/Lower guess was resolved against the next card. */
+    record GuessResolved(HigherLowerModel.Guess guess, HigherLowerModel.Result result,
+                         Card previousCard, Card nextCard, String message) implements GameEvent {}
+
+    /**
+     * The Higher/Lower table as a restore left it, published right after
+     * {@link GameRestored} so views can redraw it without reading the model.
+     * The previous card and the result are null before the first guess.
+     */
+    record TableRestored(Card currentCard, Card previousCard, int remaining, HigherLowerModel.Result result,
+                         String message, boolean gameOver) implements GameEvent {}
+
+    /** A card was dealt to a seat of a {@link BlackjackTable}. */
+    record SeatCardDealt(int seat, Card card) implements GameEvent {}
+
+    /** The blackjack player asked for a card. */
+    record PlayerHit() implements GameEvent {}
+
+    /**
+     * The blackjack player chose to stand. Not published when the hand stands
+     * by itself on 21.
+     */
+    record PlayerStood() implements GameEvent {}
+
+    /** The dealer's hole card was turned over. */
+    record DealerRevealed(Card holeCard) implements GameEvent {}
+
+    /** A blackjack hand was settled. */
+    record HandResolved(BlackjackModel.GameResult result, int playerValue, int dealerValue,
+                        String message) implements GameEvent {}
+
+    /** A seat of a {@link BlackjackTable} was settled. */
+    record SeatResolved(int seat, BlackjackModel.GameResult result, int playerValue,
+                        int dealerValue) implements GameEvent {}
+
+    /** The Higher/Lower score, streak or high score changed. */
+    record ScoreChanged(int score, int streak, int highScore) implements GameEvent {}
+
+    /** A Higher/Lower game ended. */
+    record GameOver(HigherLowerModel.Result result, String message) implements GameEvent {}
+}
@@ -0,0 +1,176 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A blackjack hand stored as card codes in a small fixed array.
+ * The hard total and ace count are kept up to date as cards are added, so
+ * the value queries never iterate over the cards.
+ *
+ * Every change bumps a version number, so observers can cheaply tell whether
+ * the hand changed since they last looked.
+ *
+ * {@link #asList()} hands out immutable snapshots that share the card storage.
+ * The hand only ever writes past the end of a snapshot, and once a snapshot
+ * exists, {@link #clear()} moves the hand to fresh storage instead of reusing
+ * it. Hands that are never snapshotted, as in the simulators, never allocate.
+ */
+public class Hand {
+
+    /**
+     * Every card is worth at least one point, so a hand can hold at most 21
+     * cards before the one that busts it.
+     */
+    public static final int MAX_CARDS = 22;
+
+    private static final byte[] POINTS = new byte[Card.CARD_COUNT];
+
+    static {
+        for (int code = 0; code < Card.STANDARD_CARD_COUNT; code++) {
+            Rank rank = Card.fromCode(code).getRank();
+            POINTS[code] = (byte) (rank == Rank.ACE ? 1 : Math.min(rank.getValue(), 10));
+        }
+        // Jokers are never dealt in blackjack and count as nothing
+    }
+
+    private byte[] codes = new byte[MAX_CARDS];
+    private int size;
+    private int hardTotal;
+    private int aces;
+    private long version;
+    private Snapshot snapshot;
+    private boolean shared;
+
+    /**
+     * Gets the blackjack points of a card code, counting an Ace as 1.
+     */
+    public static int pointsOf(int code) {
+        return POINTS[code];
+    }
+
+    public void add(Card card) {
+        add(card.getCode());
+    }
+
+    public void add(int code) {
+        if (size == MAX_CARDS) {
+            throw new IllegalStateException("Hand cannot hold more than " + MAX_CARDS + " cards");
+        }
+        codes[size++] = (byte) code;
+        int points = POINTS[code];
+        hardTotal += points;
+        aces += points == 1 ? 1 : 0;
+        version++;
+    }
+
+    public void clear() {
+        if (shared) {
+            codes = new byte[MAX_CARDS];
+            shared = false;
+        }
+        size = 0;
+        hardTotal = 0;
+        aces = 0;
+        version++;
+    }
+
+    /**
+     * Gets an immutable snapshot of the cards. Later changes to the hand never
+     * show through it. The same instance is returned until the hand changes,
+     * so reading an unchanged hand allocates nothing.
+     */
+    public List<Card> asList() {
+        if (snapshot == null || snapshot.version != version) {
+            snapshot = new Snapshot(codes, size, version);
+            shared = true;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets a counter that changes every time a card is added or the hand is cleared.
+     */
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int codeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for hand of " + size);
+        }
+        return codes[index];
+    }
+
+    public Card cardAt(int index) {
+        return Card.fromCode(codeAt(index));
+    }
+
+    /**
+     * Gets the total with every Ace counted as 1.
+     */
+    public int hardTotal() {
+        return hardTotal;
+    }
+
+    /**
+     * Gets the best total, counting one Ace as 11 when that doesn't bust.
+     */
+    public int value() {
+        return isSoft() ? hardTotal + 10 : hardTotal;
+    }
+
+    /**
+     * A hand is soft when one of its Aces is currently counted as 11.
+     */
+    public boolean isSoft() {
+        return aces > 0 & hardTotal <= 11;
+    }
+
+    public boolean hasAce() {
+        return aces > 0;
+    }
+
+    public boolean isBust() {
+        return hardTotal > 21;
+    }
+
+    public boolean isBlackjack() {
+        return size == 2 & hardTotal == 11 & aces > 0;
+    }
+
+    /**
+     * The first {@code size} codes of a storage array the hand no longer
+     * writes below {@code size}. The fields are final, so a snapshot can be
+     * handed to other threads.
+     */
+    private static final class Snapshot extends AbstractList<Card> implements RandomAccess {
+        private final byte[] codes;
+        private final int size;
+        private final long version;
+
+        Snapshot(byte[] codes, int size, long version) {
+            this.codes = codes;
+            this.size = size;
+            this.version = version;
+        }
+
+        @Override
+        public Card get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for hand of " + size);
+            }
+            return Card.fromCode(codes[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
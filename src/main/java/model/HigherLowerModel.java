@@ -1,17 +1,52 @@
 package model;
 
-import java.util.ArrayList;
+import model.GameEvent.CardDealt;
+import model.GameEvent.GameOver;
+import model.GameEvent.GameRestored;
+import model.GameEvent.GameStarted;
+import model.GameEvent.GuessMade;
+import model.GameEvent.GuessResolved;
+import model.GameEvent.ScoreChanged;
+import model.GameEvent.TableRestored;
+import model.GameEvent.Target;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.random.RandomGenerator;
 
 /**
  * Model for the Higher/Lower card game.
  * Contains all game state and logic.
+ *
+ * Actions and getters synchronize on the model, so it can be driven from
+ * worker threads. Listeners and event subscribers are notified through the
+ * event bus dispatcher once the action has released the lock, so they may
+ * call back into the model; see {@link EventBus#setDispatcher}.
  */
 public class HigherLowerModel {
     
     public enum Guess { HIGHER, LOWER }
     public enum Result { CORRECT, WRONG, PUSH }
     
+    /**
+     * Probabilities that the next card is higher than, lower than, or equal to
+     * the current card, given the cards still in the deck.
+     */
+    public record Odds(double higher, double lower, double push) {
+        public static final Odds NONE = new Odds(0.0, 0.0, 0.0);
+    }
+    
+    /** The message shown when a game starts. */
+    public static final String FIRST_GUESS_MESSAGE = "Make your first guess!";
+
+    private static final int FLAG_GAME_OVER = 1;
+    private static final int FLAG_JOKERS = 2;
+    
+    /** Flags, last result, score, streak, high score, two cards and the card count. */
+    private static final int SNAPSHOT_FIELDS_SIZE = 4 + Integer.BYTES + 3;
+    
     private final Deck deck;
     private final boolean includeJokers;
     private Card currentCard;
@@ -23,11 +58,26 @@ public class HigherLowerModel {
     private Result lastResult;
     private String lastMessage;
     
-    private final List<GameListener> listeners = new ArrayList<>();
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+    private final EventBus events = new EventBus();
     
     public HigherLowerModel(boolean includeJokers) {
-        this.includeJokers = includeJokers;
-        this.deck = new Deck(includeJokers);
+        this(new Deck(includeJokers));
+    }
+    
+    /**
+     * Creates a model whose deck shuffles with the given generator.
+     */
+    public HigherLowerModel(boolean includeJokers, RandomGenerator random) {
+        this(new Deck(includeJokers, random));
+    }
+    
+    /**
+     * Creates a model that plays with the given deck.
+     */
+    public HigherLowerModel(Deck deck) {
+        this.includeJokers = deck.hasJokers();
+        this.deck = deck;
         this.highScore = 0;
     }
     
@@ -36,37 +86,66 @@ public class HigherLowerModel {
     }
     
     public void startNewGame() {
-        deck.resetAndShuffle();
-        currentCard = deck.draw();
-        previousCard = null;
-        score = 0;
-        streak = 0;
-        gameOver = false;
-        lastResult = null;
-        lastMessage = "Make your first guess!";
-        notifyListeners();
+        synchronized (this) {
+            deck.resetAndShuffle();
+            currentCard = deck.draw();
+            previousCard = null;
+            score = 0;
+            streak = 0;
+            gameOver = false;
+            lastResult = null;
+            lastMessage = FIRST_GUESS_MESSAGE;
+            
+            events.beginBatch();
+            try {
+                events.publish(new GameStarted());
+                events.publish(new CardDealt(Target.TABLE, currentCard, false, deck.remainingCards()));
+                publishScore();
+            } finally {
+                events.endBatch();
+            }
+            notifyListeners();
+        }
+        events.flush();
     }
     
     public void makeGuess(Guess guess) {
-        if (gameOver) {
-            return;
+        synchronized (this) {
+            if (gameOver) {
+                return;
+            }
+            
+            events.beginBatch();
+            try {
+                events.publish(new GuessMade(guess));
+                resolveGuess(guess);
+            } finally {
+                events.endBatch();
+            }
+            notifyListeners();
         }
-        
+        events.flush();
+    }
+    
+    private void resolveGuess(Guess guess) {
         if (deck.isEmpty()) {
             gameOver = true;
             updateHighScore();
             lastMessage = "Amazing! You completed the entire deck!";
             lastResult = Result.CORRECT;
-            notifyListeners();
+            publishScore();
+            events.publish(new GameOver(lastResult, lastMessage));
             return;
         }
         
         previousCard = currentCard;
         currentCard = deck.draw();
+        events.publish(new CardDealt(Target.TABLE, currentCard, false, deck.remainingCards()));
         
         if (currentCard.isSameValueAs(previousCard)) {
             lastResult = Result.PUSH;
             lastMessage = "PUSH! Cards are equal. Continue without scoring.";
+            events.publish(new GuessResolved(guess, lastResult, previousCard, currentCard, lastMessage));
         } else {
             boolean nextIsHigher = currentCard.isHigherThan(previousCard);
             boolean guessedCorrectly = (guess == Guess.HIGHER && nextIsHigher) ||
@@ -77,15 +156,50 @@ public class HigherLowerModel {
                 score++;
                 streak++;
                 lastMessage = getStreakMessage();
+                events.publish(new GuessResolved(guess, lastResult, previousCard, currentCard, lastMessage));
+                publishScore();
             } else {
                 lastResult = Result.WRONG;
                 gameOver = true;
+                int previousHighScore = highScore;
                 updateHighScore();
                 lastMessage = "Wrong! Game Over!";
+                events.publish(new GuessResolved(guess, lastResult, previousCard, currentCard, lastMessage));
+                if (highScore != previousHighScore) {
+                    publishScore();
+                }
+                events.publish(new GameOver(lastResult, lastMessage));
             }
         }
-        
-        notifyListeners();
+    }
+    
+    /**
+     * Gets the exact odds for the next card from the deck's live composition.
+     * Each query is a few popcounts over the undealt-card mask, so it is cheap
+     * enough to call after every card.
+     */
+    public synchronized Odds getOdds() {
+        int remaining = deck.remainingCards();
+        if (currentCard == null || remaining == 0) {
+            return Odds.NONE;
+        }
+        int value = currentCard.getValue();
+        double total = remaining;
+        return new Odds(deck.remainingAbove(value) / total,
+                        deck.remainingBelow(value) / total,
+                        deck.remainingOfValue(value) / total);
+    }
+    
+    /**
+     * Suggests the guess most likely to be correct, preferring HIGHER on a tie.
+     */
+    public synchronized Guess suggestGuess() {
+        int value = currentCard == null ? 0 : currentCard.getValue();
+        return deck.remainingAbove(value) >= deck.remainingBelow(value) ? Guess.HIGHER : Guess.LOWER;
+    }
+    
+    private void publishScore() {
+        events.publish(new ScoreChanged(score, streak, highScore));
     }
     
     private String getStreakMessage() {
@@ -96,13 +210,174 @@ public class HigherLowerModel {
         return "Correct! +1 point!";
     }
     
+    /**
+     * Restores a high score kept from earlier sessions. It only ever raises
+     * the current high score.
+     */
+    public synchronized void setHighScore(int highScore) {
+        if (highScore > this.highScore) {
+            this.highScore = highScore;
+        }
+    }
+    
     private void updateHighScore() {
         if (score > highScore) {
             highScore = score;
         }
     }
     
-    // Listener pattern for MVC
+    /**
+     * Saves the game in a compact binary snapshot of about 70 bytes: the
+     * undealt cards in order, the cards on the table, the score and the
+     * flags, framed with a version and a checksum. Dealt cards are implied by
+     * what is left, so the snapshot shrinks as the game goes on.
+     */
+    public synchronized byte[] save() {
+        int remaining = deck.remainingCards();
+        ByteBuffer out = Snapshots.create(Snapshots.HIGHER_LOWER, SNAPSHOT_FIELDS_SIZE + remaining);
+        out.put((byte) ((gameOver ? FLAG_GAME_OVER : 0) | (includeJokers ? FLAG_JOKERS : 0)));
+        out.put(lastResult == null ? -1 : (byte) lastResult.ordinal());
+        out.put((byte) score).put((byte) streak).putInt(highScore);
+        Snapshots.writeCard(out, currentCard);
+        Snapshots.writeCard(out, previousCard);
+        out.put((byte) remaining);
+        out.position(out.position() + deck.copyRemaining(out.array(), out.position()));
+        return Snapshots.seal(out);
+    }
+    
+    /**
+     * Resumes a game saved by {@link #save()}, replacing the current game.
+     * Subscribers get a {@link GameRestored} event, followed by the restored
+     * table and score, rather than the events of a new game, so recorders don't count
+     * the game again; listeners are notified as usual. The high score is only
+     * ever raised, as with {@link #setHighScore}.
+     *
+     * @throws IllegalArgumentException if the snapshot is corrupt, was saved
+     *                                  with a deck that differs in Jokers,
+     *                                  holds a card twice, or has flags that
+     *                                  contradict its result; the game is
+     *                                  left unchanged
+     */
+    public void restore(byte[] snapshot) {
+        synchronized (this) {
+            ByteBuffer in = Snapshots.open(snapshot, Snapshots.HIGHER_LOWER);
+            try {
+                int flags = in.get();
+                if (((flags & FLAG_JOKERS) != 0) != includeJokers) {
+                    throw new IllegalArgumentException("Snapshot was saved with"
+                            + (includeJokers ? "out" : "") + " Jokers");
+                }
+                int resultIndex = in.get();
+                if (resultIndex < -1 || resultIndex >= Result.values().length) {
+                    throw new IllegalArgumentException("Snapshot result out of range: " + resultIndex);
+                }
+                int savedScore = in.get();
+                int savedStreak = in.get();
+                if (savedStreak < 0 || savedStreak > savedScore || savedScore > deck.totalCards()) {
+                    throw new IllegalArgumentException("Snapshot score out of range: " + savedScore
+                            + " with a streak of " + savedStreak);
+                }
+                int savedHighScore = in.getInt();
+                Card savedCurrent = Snapshots.readCard(in);
+                Card savedPrevious = Snapshots.readCard(in);
+                int remaining = Snapshots.readCount(in, deck.totalCards());
+                boolean savedGameOver = (flags & FLAG_GAME_OVER) != 0;
+                Result savedResult = resultIndex < 0 ? null : Result.values()[resultIndex];
+                
+                // Everything is checked before the deck is touched
+                checkCards(snapshot, in.position(), remaining, savedCurrent, savedPrevious, savedScore);
+                checkFlags(savedGameOver, savedResult, savedCurrent, savedPrevious, remaining);
+                deck.restoreRemaining(snapshot, in.position(), remaining);
+                
+                gameOver = savedGameOver;
+                lastResult = savedResult;
+                score = savedScore;
+                streak = savedStreak;
+                setHighScore(savedHighScore);
+                currentCard = savedCurrent;
+                previousCard = savedPrevious;
+                lastMessage = describeLastResult();
+            } catch (BufferUnderflowException e) {
+                throw Snapshots.truncated(e);
+            }
+            
+            events.beginBatch();
+            try {
+                events.publish(new GameRestored(snapshot));
+                events.publish(new TableRestored(currentCard, previousCard, deck.remainingCards(), lastResult,
+                        lastMessage, gameOver));
+                publishScore();
+            } finally {
+                events.endBatch();
+            }
+            notifyListeners();
+        }
+        events.flush();
+    }
+    
+    /**
+     * Checks that the cards on the table and the undealt cards are distinct
+     * cards of this deck, and that enough cards have been dealt for the score.
+     */
+    private void checkCards(byte[] codes, int offset, int remaining, Card current, Card previous, int savedScore) {
+        long seen = 0L;
+        if (current != null) {
+            seen = markSeen(seen, current.getCode());
+        }
+        if (previous != null) {
+            seen = markSeen(seen, previous.getCode());
+        }
+        for (int i = 0; i < remaining; i++) {
+            seen = markSeen(seen, codes[offset + i]);
+        }
+        int dealt = deck.totalCards() - remaining;
+        if (current != null && savedScore > dealt - 1) {
+            throw new IllegalArgumentException("Snapshot score " + savedScore + " is more than "
+                    + (dealt - 1) + " guesses allow");
+        }
+    }
+    
+    private long markSeen(long seen, int code) {
+        if (code < 0 || code >= deck.totalCards()) {
+            throw new IllegalArgumentException("Snapshot card code out of range: " + code);
+        }
+        if ((seen & (1L << code)) != 0) {
+            throw new IllegalArgumentException("Snapshot holds " + Card.fromCode(code) + " twice");
+        }
+        return seen | 1L << code;
+    }
+    
+    /**
+     * Checks that the saved flags could have come from a game with the saved
+     * cards and result.
+     */
+    private static void checkFlags(boolean over, Result result, Card current, Card previous, int remaining) {
+        if (current == null && (previous != null || result != null || over)) {
+            throw new IllegalArgumentException("Snapshot has a result but no card on the table");
+        }
+        if ((result == null) != (previous == null)) {
+            throw new IllegalArgumentException("Snapshot result " + result + " contradicts its previous card");
+        }
+        if (over && result != Result.WRONG && !(result == Result.CORRECT && remaining == 0)) {
+            throw new IllegalArgumentException("Snapshot is over with result " + result);
+        }
+        if (!over && result == Result.WRONG) {
+            throw new IllegalArgumentException("Snapshot result WRONG contradicts its game-over flag");
+        }
+    }
+    
+    private String describeLastResult() {
+        if (lastResult == null) {
+            return "Make your first guess!";
+        }
+        return switch (lastResult) {
+            case CORRECT -> gameOver ? "Amazing! You completed the entire deck!" : getStreakMessage();
+            case WRONG -> "Wrong! Game Over!";
+            case PUSH -> "PUSH! Cards are equal. Continue without scoring.";
+        };
+    }
+    
+    // Listener pattern for MVC - a full-state refresh, see getEvents() for typed events
     public interface GameListener {
         void onGameStateChanged();
     }
@@ -116,21 +391,27 @@ public class HigherLowerModel {
     }
     
     private void notifyListeners() {
-        for (GameListener listener : listeners) {
-            listener.onGameStateChanged();
+        if (listeners.isEmpty()) {
+            return;
         }
+        events.execute(() -> {
+            for (GameListener listener : listeners) {
+                listener.onGameStateChanged();
+            }
+        });
     }
     
     // Getters
-    public Card getCurrentCard() { return currentCard; }
-    public Card getPreviousCard() { return previousCard; }
-    public int getScore() { return score; }
-    public int getStreak() { return streak; }
-    public int getHighScore() { return highScore; }
-    public boolean isGameOver() { return gameOver; }
-    public int getRemainingCards() { return deck.remainingCards(); }
+    public synchronized Card getCurrentCard() { return currentCard; }
+    public synchronized Card getPreviousCard() { return previousCard; }
+    public synchronized int getScore() { return score; }
+    public synchronized int getStreak() { return streak; }
+    public synchronized int getHighScore() { return highScore; }
+    public synchronized boolean isGameOver() { return gameOver; }
+    public synchronized int getRemainingCards() { return deck.remainingCards(); }
     public boolean hasJokers() { return includeJokers; }
-    public Result getLastResult() { return lastResult; }
-    public String getLastMessage() { return lastMessage; }
+    public synchronized Result getLastResult() { return lastResult; }
+    public synchronized String getLastMessage() { return lastMessage; }
+    public EventBus getEvents() { return events; }
 }
 
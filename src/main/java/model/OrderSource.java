@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * Supplies shuffled card orders to a {@link Deck} or {@link Shoe} in place of
+ * shuffling inline, see {@link ShufflePool}.
+ */
+public interface OrderSource {
+
+    /**
+     * Gets the number of cards in each order.
+     */
+    int getCardCount();
+
+    /**
+     * Swaps a spent order for a freshly shuffled one. The returned array is
+     * owned by the caller until it is handed back; it may be {@code spentOrder}
+     * itself, refilled.
+     *
+     * @return a shuffled order, or null if none is available
+     */
+    byte[] exchange(byte[] spentOrder);
+}
@@ -0,0 +1,331 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * A multi-deck blackjack shoe with a cut card.
+ * The shoe is only reshuffled once the cut card has been reached, so most
+ * hands start by simply continuing from the current position.
+ *
+ * The number of undealt cards of each blackjack point value (1 for an Ace
+ * up to 10 for tens and face cards) is tracked as cards are drawn.
+ *
+ * The cards drawn since the last {@link #prepareHand()} are in play. If a
+ * hand runs out of cards, only the discards before it are shuffled back in;
+ * the cards in play stay dealt, so no card can turn up twice in a round.
+ */
+public class Shoe {
+
+    public static final int MIN_DECKS = 1;
+    public static final int MAX_DECKS = 8;
+
+    private byte[] order;
+    private final int numDecks;
+    private final double penetration;
+    private final int cutIndex;
+    private final RandomGenerator random;
+    private int currentIndex;
+    /** Index of the first card of the hand in play. */
+    private int handStart;
+    private final int[] pointCounts = new int[11];
+    private OrderSource orderSource;
+
+    /**
+     * Creates a single-deck shoe that is reshuffled before every hand.
+     */
+    public Shoe() {
+        this(1, 0.0);
+    }
+
+    /**
+     * Creates a shoe of {@code numDecks} standard decks.
+     *
+     * @param penetration fraction of the shoe dealt before the cut card is
+     *                    reached; 0 reshuffles before every hand
+     */
+    public Shoe(int numDecks, double penetration) {
+        this(numDecks, penetration, RandomFactory.newDefaultGenerator());
+    }
+
+    /**
+     * Creates a shoe that shuffles with the given generator.
+     */
+    public Shoe(int numDecks, double penetration, RandomGenerator random) {
+        this.numDecks = checkNumDecks(numDecks);
+        this.penetration = checkPenetration(penetration);
+        this.order = new byte[numDecks * Card.STANDARD_CARD_COUNT];
+        this.cutIndex = (int) (order.length * penetration);
+        this.random = Objects.requireNonNull(random, "Random generator cannot be null");
+
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (byte) (i % Card.STANDARD_CARD_COUNT);
+        }
+        shuffle();
+    }
+
+    /**
+     * Checks a number of decks for a shoe, so settings can be rejected before
+     * any shoe is built.
+     *
+     * @return {@code numDecks}
+     * @throws IllegalArgumentException if it is not between {@link #MIN_DECKS}
+     *                                  and {@link #MAX_DECKS}
+     */
+    public static int checkNumDecks(int numDecks) {
+        if (numDecks < MIN_DECKS || numDecks > MAX_DECKS) {
+            throw new IllegalArgumentException("Number of decks must be between "
+                    + MIN_DECKS + " and " + MAX_DECKS + ": " + numDecks);
+        }
+        return numDecks;
+    }
+
+    /**
+     * Checks a cut card penetration for a shoe.
+     *
+     * @return {@code penetration}
+     * @throws IllegalArgumentException if it is not between 0 and 1
+     */
+    public static double checkPenetration(double penetration) {
+        if (!(penetration >= 0.0 && penetration <= 1.0)) {
+            throw new IllegalArgumentException("Penetration must be between 0 and 1: " + penetration);
+        }
+        return penetration;
+    }
+
+    /**
+     * Shuffles the whole shoe using Fisher-Yates algorithm.
+     */
+    public void shuffle() {
+        shuffleFrom(0);
+        rewind();
+    }
+
+    /**
+     * Shuffles {@code order[from..]} using Fisher-Yates algorithm.
+     */
+    private void shuffleFrom(int from) {
+        byte[] codes = order;
+        for (int i = codes.length - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            byte temp = codes[i];
+            codes[i] = codes[j];
+            codes[j] = temp;
+        }
+    }
+
+    private void rewind() {
+        currentIndex = 0;
+        handStart = 0;
+        for (int points = 1; points <= 9; points++) {
+            pointCounts[points] = 4 * numDecks;
+        }
+        pointCounts[10] = 16 * numDecks;
+    }
+
+    /**
+     * Gets the shoe ready for a new hand, reshuffling only if the cut card
+     * has been reached.
+     *
+     * @return true if the shoe was reshuffled
+     */
+    public boolean prepareHand() {
+        boolean reshuffled = isCutCardReached();
+        if (reshuffled) {
+            reshuffle();
+        }
+        handStart = currentIndex;
+        return reshuffled;
+    }
+
+    private void reshuffle() {
+        if (orderSource != null) {
+            byte[] fresh = orderSource.exchange(order);
+            if (fresh != null) {
+                order = fresh;
+                rewind();
+                return;
+            }
+        }
+        shuffle();
+    }
+
+    /**
+     * Attaches a pool of pre-shuffled orders, or detaches it when null.
+     */
+    public void setShufflePool(ShufflePool shufflePool) {
+        setOrderSource(shufflePool);
+    }
+
+    /**
+     * Takes every reshuffle from the given source, or shuffles inline again
+     * when null. Inline shuffling is still used whenever the source has no
+     * order ready.
+     */
+    public void setOrderSource(OrderSource orderSource) {
+        if (orderSource != null && orderSource.getCardCount() != order.length) {
+            throw new IllegalArgumentException("Order source is for " + orderSource.getCardCount()
+                    + " cards but the shoe has " + order.length);
+        }
+        this.orderSource = orderSource;
+    }
+
+    public Card draw() {
+        return Card.fromCode(drawCode());
+    }
+
+    /**
+     * Draws the next card code. If a hand runs past the end of the shoe
+     * (only possible with very deep penetration), the discards are
+     * reshuffled behind the cards in play.
+     *
+     * @throws IllegalStateException if the hand in play holds every card
+     */
+    public int drawCode() {
+        if (currentIndex >= order.length) {
+            reshuffleDiscards();
+        }
+        int code = order[currentIndex++];
+        pointCounts[Hand.pointsOf(code)]--;
+        return code;
+    }
+
+    /**
+     * Moves the cards in play to the front of the shoe and shuffles the
+     * discards into the rest. An order source can't be used here, since its
+     * orders include the cards in play.
+     */
+    private void reshuffleDiscards() {
+        if (handStart == 0) {
+            throw new IllegalStateException("The hand in play has used all " + order.length
+                    + " cards of the shoe");
+        }
+        int inPlay = order.length - handStart;
+        byte[] discards = Arrays.copyOf(order, handStart);
+        System.arraycopy(order, handStart, order, 0, inPlay);
+        System.arraycopy(discards, 0, order, inPlay, discards.length);
+        shuffleFrom(inPlay);
+
+        rewind();
+        for (int i = 0; i < inPlay; i++) {
+            pointCounts[Hand.pointsOf(order[i])]--;
+        }
+        currentIndex = inPlay;
+    }
+
+    /**
+     * Gets the number of undealt cards worth {@code points} (1 for an Ace).
+     */
+    public int remainingOfPoints(int points) {
+        if (points < 1 || points > 10) {
+            return 0;
+        }
+        return pointCounts[points];
+    }
+
+    /**
+     * Copies the undealt counts into {@code dst}, indexed by points 1-10.
+     */
+    public void copyRemainingByPoints(int[] dst) {
+        System.arraycopy(pointCounts, 1, dst, 1, 10);
+    }
+
+    /**
+     * Copies the undealt card codes, in dealing order, into {@code dst}.
+     *
+     * @return the number of codes copied
+     */
+    public int copyRemaining(byte[] dst, int offset) {
+        return copyRemaining(dst, offset, remainingCards());
+    }
+
+    /**
+     * Copies at most {@code max} of the next undealt card codes into
+     * {@code dst} without dealing them.
+     *
+     * @return the number of codes copied
+     */
+    public int copyRemaining(byte[] dst, int offset, int max) {
+        int count = Math.min(max, remainingCards());
+        System.arraycopy(order, currentIndex, dst, offset, count);
+        return count;
+    }
+
+    /**
+     * Rearranges the shoe so that exactly the {@code count} codes at
+     * {@code src[offset]} are undealt, in that order, the cards of
+     * {@code inPlay} are the hand in play, and the rest of the shoe has been
+     * discarded. Used to resume a saved game.
+     *
+     * @throws IllegalArgumentException if a code is not a standard card or
+     *                                  appears more than once per deck; the
+     *                                  shoe is left unchanged
+     */
+    public void restoreRemaining(byte[] src, int offset, int count, Hand... inPlay) {
+        if (count > order.length) {
+            throw new IllegalArgumentException("Cannot restore " + count + " cards into a shoe of "
+                    + order.length);
+        }
+        int[] copies = new int[Card.STANDARD_CARD_COUNT];
+        for (int i = 0; i < count; i++) {
+            addCopy(copies, src[offset + i]);
+        }
+        for (Hand hand : inPlay) {
+            for (int i = 0; i < hand.size(); i++) {
+                addCopy(copies, hand.codeAt(i));
+            }
+        }
+
+        int dealt = 0;
+        for (int code = 0; code < copies.length; code++) {
+            for (int n = copies[code]; n < numDecks; n++) {
+                order[dealt++] = (byte) code;
+            }
+        }
+        int discarded = dealt;
+        for (Hand hand : inPlay) {
+            for (int i = 0; i < hand.size(); i++) {
+                order[dealt++] = (byte) hand.codeAt(i);
+            }
+        }
+        System.arraycopy(src, offset, order, dealt, count);
+
+        rewind();
+        for (int i = 0; i < dealt; i++) {
+            pointCounts[Hand.pointsOf(order[i])]--;
+        }
+        currentIndex = dealt;
+        handStart = discarded;
+    }
+
+    private void addCopy(int[] copies, int code) {
+        if (code < 0 || code >= Card.STANDARD_CARD_COUNT) {
+            throw new IllegalArgumentException("Card code " + code + " is not in a blackjack shoe");
+        }
+        if (++copies[code] > numDecks) {
+            throw new IllegalArgumentException("Card code " + code + " appears more than "
+                    + numDecks + " times");
+        }
+    }
+
+    public boolean isCutCardReached() {
+        return currentIndex >= cutIndex;
+    }
+
+    public int remainingCards() {
+        return order.length - currentIndex;
+    }
+
+    public int totalCards() {
+        return order.length;
+    }
+
+    public int getNumDecks() {
+        return numDecks;
+    }
+
+    public double getPenetration() {
+        return penetration;
+    }
+}
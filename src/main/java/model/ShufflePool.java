@@ -0,0 +1,129 @@
+package model;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+/**
+ * Keeps a bounded pool of ready-shuffled card orders warm on a background thread.
+ *
+ * A deck hands its spent order back in exchange for a fresh one, so taking an
+ * order is O(1) and the same buffers circulate forever. When the pool is empty
+ * the caller gets {@code null} and is expected to shuffle inline.
+ *
+ * Pooled orders come from the pool's own generator, so decks that need
+ * reproducible shuffles from a seed should not use a pool.
+ */
+public class ShufflePool implements OrderSource, AutoCloseable {
+
+    private final int cardCount;
+    private final BlockingQueue<byte[]> ready;
+    private final BlockingQueue<byte[]> spent;
+    private final Thread producer;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean closed;
+
+    private ShufflePool(byte[] template, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Pool depth must be at least 1: " + depth);
+        }
+        this.cardCount = template.length;
+        this.ready = new ArrayBlockingQueue<>(depth);
+        this.spent = new ArrayBlockingQueue<>(depth);
+        for (int i = 0; i < depth; i++) {
+            spent.add(template.clone());
+        }
+
+        this.producer = new Thread(this::produce, "shuffle-pool-" + cardCount);
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    /**
+     * Creates a pool of single-deck orders, with or without Jokers.
+     */
+    public static ShufflePool forDeck(boolean includeJokers, int depth) {
+        byte[] template = new byte[includeJokers ? Card.CARD_COUNT : Card.STANDARD_CARD_COUNT];
+        for (int code = 0; code < template.length; code++) {
+            template[code] = (byte) code;
+        }
+        return new ShufflePool(template, depth);
+    }
+
+    /**
+     * Creates a pool of orders for a shoe of {@code numDecks} standard decks.
+     */
+    public static ShufflePool forShoe(int numDecks, int depth) {
+        byte[] template = new byte[numDecks * Card.STANDARD_CARD_COUNT];
+        for (int i = 0; i < template.length; i++) {
+            template[i] = (byte) (i % Card.STANDARD_CARD_COUNT);
+        }
+        return new ShufflePool(template, depth);
+    }
+
+    private void produce() {
+        RandomGenerator random = RandomFactory.newDefaultGenerator();
+        try {
+            while (!closed) {
+                byte[] codes = spent.take();
+                for (int i = codes.length - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    byte temp = codes[i];
+                    codes[i] = codes[j];
+                    codes[j] = temp;
+                }
+                ready.put(codes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Swaps a spent order for a freshly shuffled one.
+     *
+     * @param spentOrder the caller's current order, recycled on a hit
+     * @return a shuffled order, or null if none is ready
+     */
+    @Override
+    public byte[] exchange(byte[] spentOrder) {
+        if (spentOrder.length != cardCount) {
+            throw new IllegalArgumentException("Expected an order of " + cardCount
+                    + " cards but got " + spentOrder.length);
+        }
+        byte[] fresh = ready.poll();
+        if (fresh == null) {
+            misses.increment();
+            return null;
+        }
+        // Buffers are conserved, so there is always room for the spent one
+        spent.offer(spentOrder);
+        hits.increment();
+        return fresh;
+    }
+
+    @Override
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        producer.interrupt();
+    }
+}
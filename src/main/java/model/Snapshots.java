@@ -0,0 +1,113 @@
+package model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Framing shared by the model snapshots: a type byte, a format version, the
+ * model's payload, and a CRC32 of everything before it.
+ */
+final class Snapshots {
+
+    static final byte HIGHER_LOWER = 'H';
+    static final byte BLACKJACK = 'B';
+    static final byte VERSION = 1;
+
+    /** Type and version bytes. */
+    static final int HEADER_SIZE = 2;
+    static final int CHECKSUM_SIZE = Integer.BYTES;
+
+    /** Card code written for a card that isn't there. */
+    static final byte NO_CARD = -1;
+
+    private Snapshots() {
+    }
+
+    /**
+     * Allocates a buffer for a payload of {@code payloadSize} bytes, with the
+     * header already written.
+     */
+    static ByteBuffer create(byte type, int payloadSize) {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + payloadSize + CHECKSUM_SIZE);
+        out.put(type).put(VERSION);
+        return out;
+    }
+
+    /**
+     * Appends the checksum and returns the finished snapshot.
+     */
+    static byte[] seal(ByteBuffer out) {
+        byte[] data = out.array();
+        out.putInt(checksum(data, out.position()));
+        return data;
+    }
+
+    /**
+     * Checks the header and checksum and returns a buffer positioned at the
+     * start of the payload and limited to its end. Positions in the buffer
+     * are indexes into {@code data}.
+     *
+     * @throws IllegalArgumentException if the snapshot is corrupt, of another
+     *                                  type or from an unknown version
+     */
+    static ByteBuffer open(byte[] data, byte type) {
+        if (data.length < HEADER_SIZE + CHECKSUM_SIZE) {
+            throw new IllegalArgumentException("Snapshot is too short: " + data.length + " bytes");
+        }
+        int length = data.length - CHECKSUM_SIZE;
+        if (ByteBuffer.wrap(data, length, CHECKSUM_SIZE).getInt() != checksum(data, length)) {
+            throw new IllegalArgumentException("Snapshot checksum mismatch");
+        }
+        if (data[0] != type) {
+            throw new IllegalArgumentException("Snapshot is of type '" + (char) data[0]
+                    + "', expected '" + (char) type + "'");
+        }
+        if (data[1] != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version: " + data[1]);
+        }
+        return ByteBuffer.wrap(data, HEADER_SIZE, length - HEADER_SIZE);
+    }
+
+    /**
+     * Reads a count byte and checks it against the bytes left in the payload.
+     */
+    static int readCount(ByteBuffer in, int max) {
+        return checkCount(in, in.get() & 0xff, max);
+    }
+
+    static int checkCount(ByteBuffer in, int count, int max) {
+        if (count > max || count > in.remaining()) {
+            throw new IllegalArgumentException("Snapshot card count out of range: " + count);
+        }
+        return count;
+    }
+
+    static Card readCard(ByteBuffer in) {
+        byte code = in.get();
+        if (code == NO_CARD) {
+            return null;
+        }
+        if (code < 0 || code >= Card.CARD_COUNT) {
+            throw new IllegalArgumentException("Snapshot card code out of range: " + code);
+        }
+        return Card.fromCode(code);
+    }
+
+    static void writeCard(ByteBuffer out, Card card) {
+        out.put(card == null ? NO_CARD : (byte) card.getCode());
+    }
+
+    /**
+     * Reports a payload that ended early like any other corruption.
+     */
+    static IllegalArgumentException truncated(BufferUnderflowException e) {
+        return new IllegalArgumentException("Snapshot payload is truncated", e);
+    }
+
+    private static int checksum(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return (int) crc.getValue();
+    }
+}
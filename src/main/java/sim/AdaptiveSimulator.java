@@ -0,0 +1,345 @@
+package sim;
+
+import model.BlackjackModel;
+import model.Deck;
+import model.HigherLowerModel;
+import model.RandomFactory;
+import model.Shoe;
+import strategy.BasicBlackjackStrategy;
+import strategy.BlackjackStrategy;
+import strategy.DealerMimicStrategy;
+import strategy.HigherLowerStrategy;
+import strategy.Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Simulation driver that plays strategies through the game models until the
+ * estimate is as precise as asked for, rather than for a fixed number of games.
+ *
+ * Three variance reduction techniques are available, see {@link ControlledOrders}:
+ * <ul>
+ *   <li>common random numbers: every strategy plays the same deck orders, and
+ *       strategies are compared by their paired per-game differences from
+ *       the first one, which is far less noisy than comparing two means;</li>
+ *   <li>antithetic orders: every order is also played mirrored, and the pair
+ *       counts as one sample;</li>
+ *   <li>stratification on the first Higher/Lower card or the dealer's upcard.</li>
+ * </ul>
+ *
+ * Games are played in rounds on a fork/join pool. After each round the
+ * progress callback gets the running estimates, and the run stops once the
+ * half-width of the 95% confidence interval is within the tolerance: for the
+ * mean of a single strategy, or for every difference when comparing several.
+ * Each round is sized from the variance seen so far, at most doubling the
+ * games played.
+ */
+public class AdaptiveSimulator {
+
+    /** Samples played by one task when not stratifying. */
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    /** One strategy's estimate, and its difference from the first strategy. */
+    public record Estimate(String name, double mean, double halfWidth,
+                           double difference, double differenceHalfWidth) {
+        @Override
+        public String toString() {
+            return String.format("%-16s %.5f +/- %.5f   diff %+.5f +/- %.5f",
+                    name, mean, halfWidth, difference, differenceHalfWidth);
+        }
+    }
+
+    /** Running state after a round; {@code halfWidth} is the one compared with the tolerance. */
+    public record Progress(long games, List<Estimate> estimates, double halfWidth, boolean converged) {
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format("%,d games, half-width %.5f%s%n",
+                    games, halfWidth, converged ? " (converged)" : ""));
+            for (Estimate estimate : estimates) {
+                text.append("  ").append(estimate).append(System.lineSeparator());
+            }
+            return text.toString();
+        }
+    }
+
+    private double tolerance = 0.01;
+    private long maxGames = Long.MAX_VALUE;
+    private boolean antithetic;
+    private boolean stratified;
+    private boolean includeJokers;
+    private int numDecks = 1;
+    private RandomFactory randomFactory = RandomFactory.create();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private Consumer<Progress> progressListener = progress -> { };
+
+    /**
+     * Sets the confidence-interval half-width at which to stop.
+     */
+    public AdaptiveSimulator tolerance(double tolerance) {
+        if (!(tolerance > 0.0)) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+        }
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Sets the number of games per strategy after which to stop even if the
+     * tolerance was not reached.
+     */
+    public AdaptiveSimulator maxGames(long maxGames) {
+        this.maxGames = maxGames;
+        return this;
+    }
+
+    /**
+     * Plays every order mirrored as well. This only pays off when mirroring
+     * tends to reverse the payoff; a strategy that treats high and low cards
+     * symmetrically, like most Higher/Lower strategies, scores the same on
+     * both orders and just doubles the work.
+     */
+    public AdaptiveSimulator antithetic(boolean antithetic) {
+        this.antithetic = antithetic;
+        return this;
+    }
+
+    public AdaptiveSimulator stratified(boolean stratified) {
+        this.stratified = stratified;
+        return this;
+    }
+
+    public AdaptiveSimulator includeJokers(boolean includeJokers) {
+        this.includeJokers = includeJokers;
+        return this;
+    }
+
+    public AdaptiveSimulator numDecks(int numDecks) {
+        this.numDecks = Shoe.checkNumDecks(numDecks);
+        return this;
+    }
+
+    public AdaptiveSimulator randomFactory(RandomFactory randomFactory) {
+        this.randomFactory = randomFactory;
+        return this;
+    }
+
+    public AdaptiveSimulator pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Sets the callback that gets the running estimates after every round.
+     * It is called on the thread that started the run.
+     */
+    public AdaptiveSimulator onProgress(Consumer<Progress> progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Estimates the mean Higher/Lower score of each strategy.
+     */
+    public Progress runHigherLower(List<? extends HigherLowerStrategy> strategies) {
+        byte[] template = ControlledOrders.deckTemplate(includeJokers);
+        return run(strategies, template, 0, (strategy, orders, random) -> {
+            Deck deck = new Deck(includeJokers, random);
+            deck.setOrderSource(orders);
+            HigherLowerModel model = new HigherLowerModel(deck);
+            return () -> strategy.play(model);
+        });
+    }
+
+    /**
+     * Estimates the mean blackjack return per hand of each strategy. The
+     * shoe is reshuffled before every hand.
+     */
+    public Progress runBlackjack(List<? extends BlackjackStrategy> strategies) {
+        byte[] template = ControlledOrders.shoeTemplate(numDecks);
+        // Stratify on the dealer's upcard, the second card dealt
+        return run(strategies, template, 1, (strategy, orders, random) -> {
+            Shoe shoe = new Shoe(numDecks, 0.0, random);
+            shoe.setOrderSource(orders);
+            BlackjackModel model = new BlackjackModel(shoe);
+            return () -> strategy.play(model);
+        });
+    }
+
+    /** Builds a model for one strategy that deals from the given orders and plays one game per call. */
+    private interface TableFactory<S extends Strategy> {
+        IntSupplier create(S strategy, ControlledOrders orders, RandomGenerator random);
+    }
+
+    private <S extends Strategy> Progress run(List<? extends S> strategies, byte[] template,
+                                              int stratifiedPosition, TableFactory<S> tables) {
+        if (strategies.isEmpty()) {
+            throw new IllegalArgumentException("No strategies to simulate");
+        }
+        int position = stratified ? stratifiedPosition : ControlledOrders.NOT_STRATIFIED;
+        double[] weights = ControlledOrders.stratumWeights(template, position);
+        int gamesPerSample = antithetic ? 2 : 1;
+        // Whole blocks of strata per chunk, so every chunk samples each stratum proportionally
+        int chunkSamples = stratified ? template.length * Math.max(1, CHUNK_SIZE / template.length) : CHUNK_SIZE;
+        long maxSamples = Math.max(1, maxGames / gamesPerSample);
+
+        Run<S> run = new Run<>(strategies, template, position, antithetic, tables, weights,
+                chunkSamples, randomFactory.newGenerator().nextLong());
+        Tally total = new Tally(strategies.size(), weights);
+        long samples = 0;
+        long nextChunk = 0;
+        long roundSamples = (long) pool.getParallelism() * chunkSamples;
+        while (true) {
+            long chunks = Math.max(1, (Math.min(roundSamples, maxSamples - samples) + chunkSamples - 1) / chunkSamples);
+            total.merge(pool.invoke(run.new ChunkTask(nextChunk, nextChunk + chunks)));
+            nextChunk += chunks;
+            samples += chunks * chunkSamples;
+
+            Progress progress = total.progress(strategies, samples * gamesPerSample, tolerance);
+            progressListener.accept(progress);
+            if (progress.converged() || samples >= maxSamples) {
+                return progress;
+            }
+
+            // Grow the next round towards the projected sample size, at most doubling
+            double projected = samples * Math.pow(progress.halfWidth() / tolerance, 2);
+            roundSamples = (long) Math.min(samples, Math.max(chunkSamples, projected - samples));
+        }
+    }
+
+    /** Everything a chunk needs to play its samples. */
+    private static class Run<S extends Strategy> {
+        private final List<? extends S> strategies;
+        private final byte[] template;
+        private final int stratifiedPosition;
+        private final boolean antithetic;
+        private final TableFactory<S> tables;
+        private final double[] weights;
+        private final int chunkSamples;
+        private final long baseSeed;
+
+        Run(List<? extends S> strategies, byte[] template, int stratifiedPosition, boolean antithetic,
+            TableFactory<S> tables, double[] weights, int chunkSamples, long baseSeed) {
+            this.strategies = strategies;
+            this.template = template;
+            this.stratifiedPosition = stratifiedPosition;
+            this.antithetic = antithetic;
+            this.tables = tables;
+            this.weights = weights;
+            this.chunkSamples = chunkSamples;
+            this.baseSeed = baseSeed;
+        }
+
+        @SuppressWarnings("serial")
+        private class ChunkTask extends RecursiveTask<Tally> {
+            private final long firstChunk;
+            private final long endChunk;
+
+            ChunkTask(long firstChunk, long endChunk) {
+                this.firstChunk = firstChunk;
+                this.endChunk = endChunk;
+            }
+
+            @Override
+            protected Tally compute() {
+                if (endChunk - firstChunk > 1) {
+                    long middle = (firstChunk + endChunk) >>> 1;
+                    ChunkTask left = new ChunkTask(firstChunk, middle);
+                    left.fork();
+                    Tally result = new ChunkTask(middle, endChunk).compute();
+                    return result.merge(left.join());
+                }
+                return playChunk(baseSeed + firstChunk);
+            }
+        }
+
+        private Tally playChunk(long seed) {
+            int count = strategies.size();
+            ControlledOrders[] orders = new ControlledOrders[count];
+            IntSupplier[] games = new IntSupplier[count];
+            for (int i = 0; i < count; i++) {
+                // Equal seeds for every strategy give them common random numbers
+                RandomGenerator random = RandomFactory.seeded(seed).newGenerator();
+                orders[i] = new ControlledOrders(template, random, antithetic, stratifiedPosition);
+                games[i] = tables.create(strategies.get(i), orders[i], random);
+            }
+
+            Tally tally = new Tally(count, weights);
+            double[] payoffs = new double[count];
+            for (int sample = 0; sample < chunkSamples; sample++) {
+                for (int i = 0; i < count; i++) {
+                    payoffs[i] = games[i].getAsInt();
+                    if (antithetic) {
+                        payoffs[i] = (payoffs[i] + games[i].getAsInt()) / 2.0;
+                    }
+                }
+                int stratum = stratifiedPosition == ControlledOrders.NOT_STRATIFIED ? 0 : orders[0].lastStratum();
+                tally.add(stratum, payoffs);
+            }
+            return tally;
+        }
+    }
+
+    /** Per-strategy payoffs and paired differences from the first strategy. */
+    private static class Tally {
+        private final StratifiedStatistics[] payoffs;
+        private final StratifiedStatistics[] differences;
+
+        Tally(int strategies, double[] weights) {
+            payoffs = new StratifiedStatistics[strategies];
+            differences = new StratifiedStatistics[strategies];
+            for (int i = 0; i < strategies; i++) {
+                payoffs[i] = new StratifiedStatistics(weights);
+                differences[i] = new StratifiedStatistics(weights);
+            }
+        }
+
+        void add(int stratum, double[] samples) {
+            for (int i = 0; i < samples.length; i++) {
+                payoffs[i].add(stratum, samples[i]);
+                differences[i].add(stratum, samples[i] - samples[0]);
+            }
+        }
+
+        Tally merge(Tally other) {
+            for (int i = 0; i < payoffs.length; i++) {
+                payoffs[i].merge(other.payoffs[i]);
+                differences[i].merge(other.differences[i]);
+            }
+            return this;
+        }
+
+        Progress progress(List<? extends Strategy> strategies, long games, double tolerance) {
+            List<Estimate> estimates = new ArrayList<>(payoffs.length);
+            double halfWidth = payoffs.length == 1 ? payoffs[0].getHalfWidth() : 0.0;
+            for (int i = 0; i < payoffs.length; i++) {
+                double differenceHalfWidth = i == 0 ? 0.0 : differences[i].getHalfWidth();
+                estimates.add(new Estimate(strategies.get(i).getName(),
+                        payoffs[i].getMean(), payoffs[i].getHalfWidth(),
+                        differences[i].getMean(), differenceHalfWidth));
+                halfWidth = Math.max(halfWidth, differenceHalfWidth);
+            }
+            return new Progress(games, estimates, halfWidth, halfWidth <= tolerance);
+        }
+    }
+
+    /**
+     * Compares the naive and basic blackjack strategies from the command line:
+     * {@code [tolerance] [seed]}.
+     */
+    public static void main(String[] args) {
+        AdaptiveSimulator simulator = new AdaptiveSimulator()
+                .tolerance(args.length > 0 ? Double.parseDouble(args[0]) : 0.005)
+                .stratified(true)
+                .onProgress(System.out::print);
+        if (args.length > 1) {
+            simulator.randomFactory(RandomFactory.seeded(Long.parseLong(args[1])));
+        }
+        simulator.runBlackjack(List.of(new DealerMimicStrategy(), new BasicBlackjackStrategy()));
+    }
+}
@@ -0,0 +1,180 @@
+package sim;
+
+import model.BlackjackTable;
+
+/**
+ * Aggregated outcome of a batch of simulated blackjack hands.
+ * Each worker fills its own instance, and the instances are merged at the end.
+ *
+ * Player counts are per hand, one per seat. The dealer plays one hand per
+ * round whatever the number of seats, so the dealer's totals, busts and
+ * upcards are counted once per round.
+ */
+public class BlackjackSimulationResult {
+
+    /** Totals above 21 are folded into this bucket. */
+    public static final int BUST_BUCKET = 22;
+
+    private long hands;
+    private long rounds;
+    private long wins;
+    private long losses;
+    private long pushes;
+    private long playerBlackjacks;
+    private long playerBusts;
+    private long dealerBusts;
+    private final long[] roundsByUpcard = new long[11];
+    private final long[] dealerBustsByUpcard = new long[11];
+    private final long[] playerTotals = new long[BUST_BUCKET + 1];
+    private final long[] dealerTotals = new long[BUST_BUCKET + 1];
+    private final long[] handsBySeat = new long[BlackjackTable.MAX_SEATS];
+    private final long[] netBySeat = new long[BlackjackTable.MAX_SEATS];
+
+    /**
+     * Records the dealer's hand of a round; {@code dealerPlayed} is false
+     * when every seat busted and the dealer didn't draw.
+     */
+    void recordDealer(int dealerUpcard, int dealerTotal, boolean dealerPlayed) {
+        rounds++;
+        roundsByUpcard[dealerUpcard]++;
+        if (!dealerPlayed) {
+            return;
+        }
+        dealerTotals[Math.min(dealerTotal, BUST_BUCKET)]++;
+        if (dealerTotal > 21) {
+            dealerBusts++;
+            dealerBustsByUpcard[dealerUpcard]++;
+        }
+    }
+
+    /**
+     * Records one seat's settled hand of a round: {@code payoff} is 1 for a
+     * win, -1 for a loss and 0 for a push.
+     */
+    void recordHand(int seat, int playerTotal, boolean playerBlackjack, int payoff) {
+        hands++;
+        handsBySeat[seat]++;
+        if (playerBlackjack) {
+            playerBlackjacks++;
+        }
+        playerTotals[Math.min(playerTotal, BUST_BUCKET)]++;
+        if (playerTotal > 21) {
+            playerBusts++;
+        }
+
+        if (payoff > 0) {
+            wins++;
+        } else if (payoff < 0) {
+            losses++;
+        } else {
+            pushes++;
+        }
+        netBySeat[seat] += payoff;
+    }
+
+    /**
+     * Adds another worker's counts into this result.
+     */
+    public BlackjackSimulationResult merge(BlackjackSimulationResult other) {
+        hands += other.hands;
+        rounds += other.rounds;
+        wins += other.wins;
+        losses += other.losses;
+        pushes += other.pushes;
+        playerBlackjacks += other.playerBlackjacks;
+        playerBusts += other.playerBusts;
+        dealerBusts += other.dealerBusts;
+        addInto(roundsByUpcard, other.roundsByUpcard);
+        addInto(dealerBustsByUpcard, other.dealerBustsByUpcard);
+        addInto(playerTotals, other.playerTotals);
+        addInto(dealerTotals, other.dealerTotals);
+        addInto(handsBySeat, other.handsBySeat);
+        addInto(netBySeat, other.netBySeat);
+        return this;
+    }
+
+    private static void addInto(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    private double rate(long count) {
+        return hands == 0 ? 0.0 : (double) count / hands;
+    }
+
+    public long getHands() { return hands; }
+    public long getRounds() { return rounds; }
+    public long getWins() { return wins; }
+    public long getLosses() { return losses; }
+    public long getPushes() { return pushes; }
+    public long getPlayerBlackjacks() { return playerBlackjacks; }
+    public long getPlayerBusts() { return playerBusts; }
+    public long getDealerBusts() { return dealerBusts; }
+    public double getWinRate() { return rate(wins); }
+    public double getLossRate() { return rate(losses); }
+    public double getPushRate() { return rate(pushes); }
+    public double getPlayerBustRate() { return rate(playerBusts); }
+
+    /**
+     * Gets the fraction of rounds in which the dealer busted.
+     */
+    public double getDealerBustRate() {
+        return rounds == 0 ? 0.0 : (double) dealerBusts / rounds;
+    }
+
+    /**
+     * Expected return per hand at even money.
+     */
+    public double getExpectedReturn() {
+        return rate(wins - losses);
+    }
+
+    /**
+     * Expected return per hand for one seat, counted from the dealer's left.
+     */
+    public double getExpectedReturn(int seat) {
+        long count = handsBySeat[seat];
+        return count == 0 ? 0.0 : (double) netBySeat[seat] / count;
+    }
+
+    /**
+     * Gets the dealer bust rate for rounds where the dealer showed the given
+     * upcard (1 for an Ace, 10 for any ten-point card), among all such rounds.
+     */
+    public double getDealerBustRate(int upcard) {
+        long count = roundsByUpcard[upcard];
+        return count == 0 ? 0.0 : (double) dealerBustsByUpcard[upcard] / count;
+    }
+
+    /**
+     * Gets how many hands ended with the player on {@code total};
+     * {@link #BUST_BUCKET} counts every bust.
+     */
+    public long getPlayerTotalCount(int total) {
+        return playerTotals[Math.min(total, BUST_BUCKET)];
+    }
+
+    /**
+     * Gets how many rounds' played-out dealer hands ended on {@code total};
+     * {@link #BUST_BUCKET} counts every bust.
+     */
+    public long getDealerTotalCount(int total) {
+        return dealerTotals[Math.min(total, BUST_BUCKET)];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format(
+                "%,d hands: win %.4f, lose %.4f, push %.4f, player bust %.4f, dealer bust %.4f, EV %+.5f",
+                hands, getWinRate(), getLossRate(), getPushRate(),
+                getPlayerBustRate(), getDealerBustRate(), getExpectedReturn()));
+        if (handsBySeat[1] > 0) {
+            text.append(System.lineSeparator()).append("EV by seat:");
+            for (int seat = 0; seat < handsBySeat.length && handsBySeat[seat] > 0; seat++) {
+                text.append(String.format(" %+.5f", getExpectedReturn(seat)));
+            }
+        }
+        return text.toString();
+    }
+}
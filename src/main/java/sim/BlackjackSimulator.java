@@ -0,0 +1,280 @@
+package sim;
+
+import model.BlackjackRules;
+import model.BlackjackTable;
+import model.Card;
+import model.Hand;
+import model.RandomFactory;
+import model.Rank;
+import model.Shoe;
+import model.Suit;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Headless Monte Carlo simulator for the blackjack rules in
+ * {@link model.BlackjackModel}.
+ *
+ * Hands are split into chunks on a fork/join pool. A chunk plays its rounds
+ * in batches, one round per lane, and every lane deals from its own shoe with
+ * its own generator split from the configured seed, so a seeded run is
+ * reproducible regardless of how many threads play it. The player hits until
+ * reaching a fixed total, like the dealer does.
+ *
+ * Players draw card by card, but the dealer hands and the settlement of a
+ * whole batch go through a {@link HandEvaluator}, which uses the Vector API
+ * when it is available. The dealer's lane is loaded with the next cards in
+ * its shoe, and only the ones the dealer took are dealt afterwards.
+ *
+ * With several seats each round is dealt like {@link BlackjackTable}: round-robin
+ * from one shoe, with a single dealer hand settled against every seat.
+ */
+public class BlackjackSimulator {
+
+    /** Rounds played by one task before it stops splitting. */
+    private static final long CHUNK_SIZE = 1 << 16;
+    /** Rounds a task plays side by side, each from its own shoe. */
+    private static final int LANES = 256;
+    /**
+     * Cards in the longest dealer hand: six Aces make a soft 16, a six makes
+     * it a hard 12, four more Aces reach 16, and one last card.
+     */
+    static final int DEALER_SLOTS = 12;
+    private static final int TEN = Card.codeOf(Rank.TEN, Suit.SPADES);
+
+    private int numDecks = 6;
+    private double penetration = 0.75;
+    private int playerStandsOn = BlackjackRules.DEALER_STANDS_ON;
+    private int seats = 1;
+    private RandomFactory randomFactory = RandomFactory.create();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private HandEvaluator evaluator = HandEvaluator.create();
+
+    public BlackjackSimulator numDecks(int numDecks) {
+        this.numDecks = Shoe.checkNumDecks(numDecks);
+        return this;
+    }
+
+    public BlackjackSimulator penetration(double penetration) {
+        this.penetration = Shoe.checkPenetration(penetration);
+        return this;
+    }
+
+    /**
+     * Sets the total the player stands on; below it the player hits.
+     */
+    public BlackjackSimulator playerStandsOn(int playerStandsOn) {
+        this.playerStandsOn = playerStandsOn;
+        return this;
+    }
+
+    /**
+     * Sets the number of seats dealt in each round.
+     */
+    public BlackjackSimulator seats(int seats) {
+        if (seats < 1 || seats > BlackjackTable.MAX_SEATS) {
+            throw new IllegalArgumentException("Number of seats must be between 1 and "
+                    + BlackjackTable.MAX_SEATS + ": " + seats);
+        }
+        this.seats = seats;
+        return this;
+    }
+
+    public BlackjackSimulator randomFactory(RandomFactory randomFactory) {
+        this.randomFactory = randomFactory;
+        return this;
+    }
+
+    public BlackjackSimulator pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Sets the evaluator that plays the dealers and settles the hands,
+     * {@link HandEvaluator#create()} by default.
+     */
+    public BlackjackSimulator evaluator(HandEvaluator evaluator) {
+        this.evaluator = Objects.requireNonNull(evaluator, "Evaluator cannot be null");
+        return this;
+    }
+
+    /**
+     * Plays {@code rounds} rounds across the pool and merges the results.
+     * Each round is one hand per seat.
+     */
+    public BlackjackSimulationResult run(long rounds) {
+        if (rounds < 0) {
+            throw new IllegalArgumentException("Number of rounds cannot be negative: " + rounds);
+        }
+        return pool.invoke(new SimulationTask(rounds, randomFactory.newGenerator()));
+    }
+
+    @SuppressWarnings("serial")
+    private class SimulationTask extends RecursiveTask<BlackjackSimulationResult> {
+        private final long rounds;
+        private final SplittableGenerator random;
+
+        SimulationTask(long rounds, SplittableGenerator random) {
+            this.rounds = rounds;
+            this.random = random;
+        }
+
+        @Override
+        protected BlackjackSimulationResult compute() {
+            if (rounds <= CHUNK_SIZE) {
+                return playHands(rounds, random);
+            }
+            long half = rounds / 2;
+            SimulationTask left = new SimulationTask(half, random.split());
+            SimulationTask right = new SimulationTask(rounds - half, random);
+            left.fork();
+            BlackjackSimulationResult result = right.compute();
+            return result.merge(left.join());
+        }
+    }
+
+    private BlackjackSimulationResult playHands(long rounds, SplittableGenerator random) {
+        BlackjackSimulationResult result = new BlackjackSimulationResult();
+        int lanes = (int) Math.min(LANES, rounds);
+        Shoe[] shoes = new Shoe[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            shoes[lane] = new Shoe(numDecks, penetration, random.split());
+        }
+        Hand[] players = new Hand[seats];
+        HandBatch[] playerBatches = new HandBatch[seats];
+        boolean[][] naturals = new boolean[seats][lanes];
+        for (int seat = 0; seat < seats; seat++) {
+            players[seat] = new Hand();
+            playerBatches[seat] = new HandBatch(lanes, Hand.MAX_CARDS);
+        }
+        Hand dealer = new Hand();
+        HandBatch dealers = new HandBatch(lanes, DEALER_SLOTS);
+        boolean[] dealerPlays = new boolean[lanes];
+        boolean[] dealerDrew = new boolean[lanes];
+        byte[] upcoming = new byte[DEALER_SLOTS - 2];
+        int[] payoffs = new int[dealers.capacity()];
+
+        for (long played = 0; played < rounds; ) {
+            int active = (int) Math.min(lanes, rounds - played);
+            dealers.clear();
+            for (HandBatch batch : playerBatches) {
+                batch.clear();
+            }
+            for (int lane = 0; lane < active; lane++) {
+                dealRound(lane, shoes[lane], players, naturals, dealer, dealers, playerBatches,
+                        dealerPlays, dealerDrew, upcoming);
+            }
+
+            dealers.setSize(active);
+            evaluator.playDealer(dealers);
+            for (int lane = 0; lane < active; lane++) {
+                if (dealerPlays[lane] && !dealerDrew[lane]) {
+                    // Deal the cards the dealer took, which were only looked at
+                    for (int card = 2; card < dealers.getCardCount(lane); card++) {
+                        shoes[lane].drawCode();
+                    }
+                }
+                result.recordDealer(Hand.pointsOf(dealers.code(lane, 0)), dealers.getValue(lane), dealerPlays[lane]);
+            }
+            for (int seat = 0; seat < seats; seat++) {
+                HandBatch batch = playerBatches[seat];
+                batch.setSize(active);
+                evaluator.evaluate(batch);
+                evaluator.settle(batch, dealers, payoffs);
+                for (int lane = 0; lane < active; lane++) {
+                    result.recordHand(seat, batch.getValue(lane), naturals[seat][lane], payoffs[lane]);
+                }
+            }
+            played += active;
+        }
+        return result;
+    }
+
+    /**
+     * Deals one round in a lane and plays the seats out. The dealer's two
+     * cards go into the dealer batch, followed by the next cards in the shoe,
+     * which stay undealt until the batch shows how many the dealer took.
+     */
+    private void dealRound(int lane, Shoe shoe, Hand[] players, boolean[][] naturals, Hand dealer,
+                           HandBatch dealers, HandBatch[] playerBatches, boolean[] dealerPlays,
+                           boolean[] dealerDrew, byte[] upcoming) {
+        shoe.prepareHand();
+        for (Hand player : players) {
+            player.clear();
+        }
+        dealer.clear();
+        for (int card = 0; card < 2; card++) {
+            for (Hand player : players) {
+                player.add(shoe.drawCode());
+            }
+            dealer.add(shoe.drawCode());
+        }
+
+        boolean plays = false;
+        for (int seat = 0; seat < seats; seat++) {
+            Hand player = players[seat];
+            naturals[seat][lane] = player.isBlackjack();
+            if (!naturals[seat][lane]) {
+                while (player.value() < playerStandsOn) {
+                    player.add(shoe.drawCode());
+                }
+            }
+            plays |= !player.isBust();
+            for (int card = 0; card < player.size(); card++) {
+                playerBatches[seat].set(lane, card, player.codeAt(card));
+            }
+        }
+        dealerPlays[lane] = plays;
+        dealerDrew[lane] = false;
+
+        dealers.set(lane, 0, dealer.codeAt(0));
+        dealers.set(lane, 1, dealer.codeAt(1));
+        if (!plays) {
+            // Every seat busted and the dealer doesn't draw; the padding makes
+            // the lane stop at once, and its total is not recorded
+            for (int slot = 2; slot < DEALER_SLOTS; slot++) {
+                dealers.set(lane, slot, TEN);
+            }
+        } else if (shoe.remainingCards() >= upcoming.length) {
+            shoe.copyRemaining(upcoming, 0, upcoming.length);
+            for (int card = 0; card < upcoming.length; card++) {
+                dealers.set(lane, card + 2, upcoming[card]);
+            }
+        } else {
+            // Too few cards left to look ahead: the dealer draws here, past
+            // the end of the shoe if need be, and the batch replays the hand
+            BlackjackRules.playDealer(dealer, shoe);
+            for (int card = 2; card < dealer.size(); card++) {
+                dealers.set(lane, card, dealer.codeAt(card));
+            }
+            dealerDrew[lane] = true;
+        }
+    }
+
+    /**
+     * Runs a simulation from the command line: {@code [rounds] [decks] [seed] [seats]}.
+     */
+    public static void main(String[] args) {
+        long rounds = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        BlackjackSimulator simulator = new BlackjackSimulator();
+        if (args.length > 1) {
+            simulator.numDecks(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            simulator.randomFactory(RandomFactory.seeded(Long.parseLong(args[2])));
+        }
+        if (args.length > 3) {
+            simulator.seats(Integer.parseInt(args[3]));
+        }
+
+        long start = System.nanoTime();
+        BlackjackSimulationResult result = simulator.run(rounds);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(result);
+        System.out.printf("%.2f s, %,.0f hands/s%n", seconds, result.getHands() / seconds);
+    }
+}
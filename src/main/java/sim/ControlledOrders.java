@@ -0,0 +1,166 @@
+package sim;
+
+import model.Card;
+import model.OrderSource;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Order source for variance-reduced simulation.
+ *
+ * Orders are uniform Fisher-Yates shuffles with two optional twists:
+ * <ul>
+ *   <li>stratified: the card at one position cycles through every card of
+ *       the deck once per block of orders, in a random sequence, with the
+ *       rest of the order uniform given that card;</li>
+ *   <li>antithetic: every order is followed by its mirror, in which each
+ *       rank is swapped with its opposite (2 with Ace, 3 with King, and so
+ *       on; 8 and the Jokers stay put).</li>
+ * </ul>
+ * Both keep every individual order uniformly distributed, so estimates stay
+ * unbiased. Two sources built from equal seeds produce identical sequences,
+ * which is how compared strategies get common random numbers.
+ */
+class ControlledOrders implements OrderSource {
+
+    /** Sentinel for {@code stratifiedPosition} when no position is stratified. */
+    static final int NOT_STRATIFIED = -1;
+
+    private static final byte[] MIRROR = new byte[Card.CARD_COUNT];
+
+    static {
+        int ranks = Card.STANDARD_CARD_COUNT / 4;
+        for (int code = 0; code < Card.STANDARD_CARD_COUNT; code++) {
+            int rank = code % ranks;
+            MIRROR[code] = (byte) (code - rank + (ranks - 1 - rank));
+        }
+        MIRROR[Card.JOKER_CODE] = (byte) Card.JOKER_CODE;
+        MIRROR[Card.JOKER_CODE + 1] = (byte) (Card.JOKER_CODE + 1);
+    }
+
+    private final byte[] template;
+    private final RandomGenerator random;
+    private final boolean antithetic;
+    private final int stratifiedPosition;
+    private final int[] strata;
+    private int nextStratum;
+    private final byte[] previous;
+    private boolean mirrorPending;
+    private int lastStratum;
+
+    /**
+     * @param template           the cards of the deck or shoe, in any order
+     * @param stratifiedPosition position whose card is stratified, or {@link #NOT_STRATIFIED}
+     */
+    ControlledOrders(byte[] template, RandomGenerator random, boolean antithetic, int stratifiedPosition) {
+        this.template = template.clone();
+        this.random = random;
+        this.antithetic = antithetic;
+        this.stratifiedPosition = stratifiedPosition;
+        this.strata = new int[template.length];
+        for (int i = 0; i < strata.length; i++) {
+            strata[i] = i;
+        }
+        this.nextStratum = strata.length;
+        this.previous = new byte[template.length];
+    }
+
+    /** Gets the template of a single deck, with or without Jokers. */
+    static byte[] deckTemplate(boolean includeJokers) {
+        byte[] template = new byte[includeJokers ? Card.CARD_COUNT : Card.STANDARD_CARD_COUNT];
+        for (int code = 0; code < template.length; code++) {
+            template[code] = (byte) code;
+        }
+        return template;
+    }
+
+    /** Gets the template of a shoe of {@code numDecks} standard decks. */
+    static byte[] shoeTemplate(int numDecks) {
+        byte[] template = new byte[numDecks * Card.STANDARD_CARD_COUNT];
+        for (int i = 0; i < template.length; i++) {
+            template[i] = (byte) (i % Card.STANDARD_CARD_COUNT);
+        }
+        return template;
+    }
+
+    @Override
+    public int getCardCount() {
+        return template.length;
+    }
+
+    @Override
+    public byte[] exchange(byte[] spentOrder) {
+        if (mirrorPending) {
+            for (int i = 0; i < spentOrder.length; i++) {
+                spentOrder[i] = MIRROR[previous[i]];
+            }
+            mirrorPending = false;
+            return spentOrder;
+        }
+
+        // The spent order is a permutation of the template, so shuffling it
+        // in place is as good as shuffling the template
+        shuffle(spentOrder);
+        if (stratifiedPosition != NOT_STRATIFIED) {
+            byte code = template[takeStratum()];
+            for (int i = 0; i < spentOrder.length; i++) {
+                if (spentOrder[i] == code) {
+                    spentOrder[i] = spentOrder[stratifiedPosition];
+                    spentOrder[stratifiedPosition] = code;
+                    break;
+                }
+            }
+            lastStratum = code;
+        }
+        if (antithetic) {
+            System.arraycopy(spentOrder, 0, previous, 0, spentOrder.length);
+            mirrorPending = true;
+        }
+        return spentOrder;
+    }
+
+    private int takeStratum() {
+        if (nextStratum == strata.length) {
+            for (int i = strata.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int temp = strata[i];
+                strata[i] = strata[j];
+                strata[j] = temp;
+            }
+            nextStratum = 0;
+        }
+        return strata[nextStratum++];
+    }
+
+    private void shuffle(byte[] codes) {
+        for (int i = codes.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte temp = codes[i];
+            codes[i] = codes[j];
+            codes[j] = temp;
+        }
+    }
+
+    /**
+     * Gets the card code at the stratified position of the last fresh
+     * (non-mirrored) order, or 0 when not stratified.
+     */
+    int lastStratum() {
+        return lastStratum;
+    }
+
+    /**
+     * Gets the weight of each stratum, indexed by card code: the fraction of
+     * the template holding that card. Unstratified orders have one stratum.
+     */
+    static double[] stratumWeights(byte[] template, int stratifiedPosition) {
+        if (stratifiedPosition == NOT_STRATIFIED) {
+            return new double[] { 1.0 };
+        }
+        double[] weights = new double[Card.CARD_COUNT];
+        for (byte code : template) {
+            weights[code] += 1.0 / template.length;
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,93 @@
+package sim;
+
+import java.util.Arrays;
+
+/**
+ * A batch of blackjack hands laid out for bulk evaluation by a
+ * {@link HandEvaluator}.
+ *
+ * Card codes are stored structure-of-arrays: slot {@code s} of every hand is
+ * contiguous, at {@code s * capacity() + hand}, so an evaluator can load the
+ * same slot of many hands at once. Unused slots hold {@link #EMPTY}. The
+ * evaluation results are stored the same way, one array per field.
+ *
+ * The capacity is rounded up to a multiple of 64 hands, so vector
+ * evaluators never need a scalar tail loop.
+ */
+public class HandBatch {
+
+    /** Code of an empty slot. */
+    public static final byte EMPTY = -1;
+
+    private static final int LANE_MULTIPLE = 64;
+
+    private final int capacity;
+    private final int slots;
+    private int size;
+
+    final byte[] codes;
+    final int[] hardTotals;
+    final int[] values;
+    final int[] cardCounts;
+    final boolean[] soft;
+    final boolean[] bust;
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param hands the number of hands it can hold
+     * @param slots the number of cards per hand
+     */
+    public HandBatch(int hands, int slots) {
+        if (hands < 1 || slots < 1) {
+            throw new IllegalArgumentException("Batch needs at least one hand and one slot: "
+                    + hands + " hands, " + slots + " slots");
+        }
+        this.capacity = (hands + LANE_MULTIPLE - 1) / LANE_MULTIPLE * LANE_MULTIPLE;
+        this.slots = slots;
+        this.codes = new byte[capacity * slots];
+        this.hardTotals = new int[capacity];
+        this.values = new int[capacity];
+        this.cardCounts = new int[capacity];
+        this.soft = new boolean[capacity];
+        this.bust = new boolean[capacity];
+        clear();
+    }
+
+    /**
+     * Empties every slot of every hand.
+     */
+    public void clear() {
+        Arrays.fill(codes, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Sets the number of hands to evaluate, counted from the first.
+     */
+    public void setSize(int size) {
+        if (size < 0 || size > capacity) {
+            throw new IllegalArgumentException("Batch size must be between 0 and " + capacity + ": " + size);
+        }
+        this.size = size;
+    }
+
+    public void set(int hand, int slot, int code) {
+        codes[slot * capacity + hand] = (byte) code;
+    }
+
+    public int code(int hand, int slot) {
+        return codes[slot * capacity + hand];
+    }
+
+    public int size() { return size; }
+    public int capacity() { return capacity; }
+    public int slots() { return slots; }
+
+    // Results of the last evaluation
+    public int getHardTotal(int hand) { return hardTotals[hand]; }
+    public int getValue(int hand) { return values[hand]; }
+    public int getCardCount(int hand) { return cardCounts[hand]; }
+    public boolean isSoft(int hand) { return soft[hand]; }
+    public boolean isBust(int hand) { return bust[hand]; }
+}
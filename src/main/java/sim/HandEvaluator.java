@@ -0,0 +1,53 @@
+package sim;
+
+/**
+ * Evaluates a whole {@link HandBatch} of blackjack hands at once, with the
+ * same results as {@link model.Hand} and {@link model.BlackjackRules}.
+ *
+ * {@link #create()} picks the Vector API implementation when it was built
+ * (the {@code vector} Maven profile) and the {@code jdk.incubator.vector}
+ * module is available (run with {@code --add-modules jdk.incubator.vector}),
+ * and a scalar one otherwise.
+ */
+public interface HandEvaluator {
+
+    /**
+     * Computes the totals of every hand from all of its cards.
+     */
+    void evaluate(HandBatch hands);
+
+    /**
+     * Plays out every dealer hand: slots 0 and 1 hold the dealer's two cards
+     * and the remaining slots the next cards in the shoe, which are taken
+     * in order while the dealer must hit. The card count tells how many were
+     * used; the batch needs enough slots for the longest possible hand.
+     */
+    void playDealer(HandBatch dealers);
+
+    /**
+     * Settles evaluated player hands against played dealer hands: 1 for a
+     * win, -1 for a loss and 0 for a push. {@code payoffs} needs room for
+     * {@link HandBatch#capacity()} hands.
+     */
+    void settle(HandBatch players, HandBatch dealers, int[] payoffs);
+
+    /**
+     * Gets the Vector API evaluator if it was built and the incubator module
+     * is present, or the scalar one.
+     */
+    static HandEvaluator create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (HandEvaluator) Class.forName("sim.VectorHandEvaluator")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall through to the scalar evaluator
+            }
+        }
+        return scalar();
+    }
+
+    static HandEvaluator scalar() {
+        return new ScalarHandEvaluator();
+    }
+}
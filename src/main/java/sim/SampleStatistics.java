@@ -0,0 +1,63 @@
+package sim;
+
+/**
+ * Running mean and variance of a stream of per-game payoffs (Welford's
+ * method). Workers fill their own instances, which are merged at the end.
+ */
+public class SampleStatistics {
+
+    /** Two-sided 95% normal quantile. */
+    public static final double Z_95 = 1.959963984540054;
+
+    private long count;
+    private double mean;
+    private double sumSquaredDeviations;
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        sumSquaredDeviations += delta * (value - mean);
+    }
+
+    /**
+     * Adds another worker's samples into this one.
+     */
+    public SampleStatistics merge(SampleStatistics other) {
+        if (other.count == 0) {
+            return this;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        sumSquaredDeviations += other.sumSquaredDeviations + delta * delta * count / total * other.count;
+        count = total;
+        return this;
+    }
+
+    public long getCount() { return count; }
+    public double getMean() { return mean; }
+
+    /**
+     * Gets the unbiased sample variance, or 0 with fewer than two samples.
+     */
+    public double getVariance() {
+        return count < 2 ? 0.0 : sumSquaredDeviations / (count - 1);
+    }
+
+    public double getStandardError() {
+        return count == 0 ? 0.0 : Math.sqrt(getVariance() / count);
+    }
+
+    /**
+     * Gets the half-width of the 95% confidence interval for the mean.
+     */
+    public double getHalfWidth() {
+        return Z_95 * getStandardError();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.5f +/- %.5f (n=%,d)", getMean(), getHalfWidth(), count);
+    }
+}
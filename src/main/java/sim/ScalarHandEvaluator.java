@@ -0,0 +1,72 @@
+package sim;
+
+import model.BlackjackRules;
+import model.Hand;
+
+/**
+ * Plain loop implementation of {@link HandEvaluator}, used when the Vector
+ * API is not available.
+ */
+class ScalarHandEvaluator implements HandEvaluator {
+
+    @Override
+    public void evaluate(HandBatch hands) {
+        for (int hand = 0; hand < hands.size(); hand++) {
+            int hard = 0;
+            int count = 0;
+            boolean hasAce = false;
+            for (int slot = 0; slot < hands.slots(); slot++) {
+                int code = hands.code(hand, slot);
+                if (code != HandBatch.EMPTY) {
+                    int points = Hand.pointsOf(code);
+                    hard += points;
+                    hasAce |= points == 1;
+                    count++;
+                }
+            }
+            finish(hands, hand, hard, hasAce, count);
+        }
+    }
+
+    @Override
+    public void playDealer(HandBatch dealers) {
+        for (int hand = 0; hand < dealers.size(); hand++) {
+            int hard = 0;
+            int count = 0;
+            boolean hasAce = false;
+            for (int slot = 0; slot < dealers.slots(); slot++) {
+                boolean soft = hasAce && hard <= 11;
+                if (slot >= 2 && (soft ? hard + 10 : hard) >= BlackjackRules.DEALER_STANDS_ON) {
+                    break;
+                }
+                int points = Hand.pointsOf(dealers.code(hand, slot));
+                hard += points;
+                hasAce |= points == 1;
+                count++;
+            }
+            finish(dealers, hand, hard, hasAce, count);
+        }
+    }
+
+    @Override
+    public void settle(HandBatch players, HandBatch dealers, int[] payoffs) {
+        for (int hand = 0; hand < players.size(); hand++) {
+            if (players.bust[hand]) {
+                payoffs[hand] = -1;
+            } else if (dealers.bust[hand]) {
+                payoffs[hand] = 1;
+            } else {
+                payoffs[hand] = Integer.signum(players.values[hand] - dealers.values[hand]);
+            }
+        }
+    }
+
+    private static void finish(HandBatch hands, int hand, int hard, boolean hasAce, int count) {
+        boolean soft = hasAce && hard <= 11;
+        hands.hardTotals[hand] = hard;
+        hands.values[hand] = soft ? hard + 10 : hard;
+        hands.soft[hand] = soft;
+        hands.bust[hand] = hard > 21;
+        hands.cardCounts[hand] = count;
+    }
+}
@@ -0,0 +1,87 @@
+package sim;
+
+/**
+ * Mean and 95% confidence interval of a stratified sample: each stratum has
+ * its own {@link SampleStatistics}, and the estimate weights the stratum means
+ * by the known stratum probabilities. With a single stratum this is a plain
+ * sample mean.
+ */
+public class StratifiedStatistics {
+
+    private final double[] weights;
+    private final SampleStatistics[] strata;
+
+    public StratifiedStatistics(double[] weights) {
+        this.weights = weights;
+        this.strata = new SampleStatistics[weights.length];
+        for (int i = 0; i < strata.length; i++) {
+            strata[i] = new SampleStatistics();
+        }
+    }
+
+    public void add(int stratum, double value) {
+        strata[stratum].add(value);
+    }
+
+    /**
+     * Adds another worker's samples into this one.
+     */
+    public StratifiedStatistics merge(StratifiedStatistics other) {
+        for (int i = 0; i < strata.length; i++) {
+            strata[i].merge(other.strata[i]);
+        }
+        return this;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (SampleStatistics stratum : strata) {
+            count += stratum.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the weighted mean over the strata sampled so far.
+     */
+    public double getMean() {
+        double sum = 0.0;
+        double weight = 0.0;
+        for (int i = 0; i < strata.length; i++) {
+            if (strata[i].getCount() > 0) {
+                sum += weights[i] * strata[i].getMean();
+                weight += weights[i];
+            }
+        }
+        return weight == 0.0 ? 0.0 : sum / weight;
+    }
+
+    /**
+     * Gets the half-width of the 95% confidence interval for the mean, or
+     * infinity while some sampled stratum has too few samples to estimate it.
+     */
+    public double getHalfWidth() {
+        double variance = 0.0;
+        double weight = 0.0;
+        for (int i = 0; i < strata.length; i++) {
+            long count = strata[i].getCount();
+            if (count == 0 || weights[i] == 0.0) {
+                continue;
+            }
+            if (count < 2) {
+                return Double.POSITIVE_INFINITY;
+            }
+            variance += weights[i] * weights[i] * strata[i].getVariance() / count;
+            weight += weights[i];
+        }
+        if (weight == 0.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return SampleStatistics.Z_95 * Math.sqrt(variance) / weight;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.5f +/- %.5f (n=%,d)", getMean(), getHalfWidth(), getCount());
+    }
+}
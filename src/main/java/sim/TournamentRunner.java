@@ -0,0 +1,217 @@
+package sim;
+
+import model.BlackjackModel;
+import model.HigherLowerModel;
+import model.RandomFactory;
+import model.Shoe;
+import strategy.AlwaysHigherStrategy;
+import strategy.BasicBlackjackStrategy;
+import strategy.BlackjackStrategy;
+import strategy.CompositionBlackjackStrategy;
+import strategy.DealerMimicStrategy;
+import strategy.HigherLowerOddsStrategy;
+import strategy.HigherLowerStrategy;
+import strategy.HigherLowerTableStrategy;
+import strategy.Strategy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays every registered strategy through the real game models and ranks
+ * them by their mean payoff per game.
+ *
+ * Games are split into chunks on a fork/join pool. Each chunk gets a seed,
+ * and every strategy plays the chunk on its own model shuffled from that same
+ * seed. Every game shuffles exactly once (the blackjack shoe is reshuffled
+ * before each hand), so all strategies see identical card orders and their
+ * differences come from their decisions, not from the luck of the deal.
+ *
+ * A Higher/Lower game pays its final score, a blackjack hand pays +1, -1 or 0.
+ */
+public class TournamentRunner {
+
+    /** Games played by one task before it stops splitting. */
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    /** One strategy's result; the interval is a 95% confidence interval for the mean. */
+    public record Standing(String name, SampleStatistics payoff) {
+        @Override
+        public String toString() {
+            return String.format("%-16s %s", name, payoff);
+        }
+    }
+
+    private final List<HigherLowerStrategy> higherLowerStrategies = new ArrayList<>();
+    private final List<BlackjackStrategy> blackjackStrategies = new ArrayList<>();
+    private boolean includeJokers;
+    private int numDecks = 1;
+    private RandomFactory randomFactory = RandomFactory.create();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public TournamentRunner register(HigherLowerStrategy strategy) {
+        higherLowerStrategies.add(strategy);
+        return this;
+    }
+
+    public TournamentRunner register(BlackjackStrategy strategy) {
+        blackjackStrategies.add(strategy);
+        return this;
+    }
+
+    public TournamentRunner includeJokers(boolean includeJokers) {
+        this.includeJokers = includeJokers;
+        return this;
+    }
+
+    public TournamentRunner numDecks(int numDecks) {
+        this.numDecks = Shoe.checkNumDecks(numDecks);
+        return this;
+    }
+
+    public TournamentRunner randomFactory(RandomFactory randomFactory) {
+        this.randomFactory = randomFactory;
+        return this;
+    }
+
+    public TournamentRunner pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Plays {@code games} Higher/Lower games with every registered strategy.
+     *
+     * @return the standings, best first
+     */
+    public List<Standing> runHigherLower(long games) {
+        return run(higherLowerStrategies, games, this::playHigherLower);
+    }
+
+    /**
+     * Plays {@code hands} blackjack hands with every registered strategy.
+     *
+     * @return the standings, best first
+     */
+    public List<Standing> runBlackjack(long hands) {
+        return run(blackjackStrategies, hands, this::playBlackjack);
+    }
+
+    /** Plays a chunk of games from one seed and returns the payoff statistics. */
+    private interface ChunkPlayer<S extends Strategy> {
+        SampleStatistics play(S strategy, long games, RandomGenerator random);
+    }
+
+    private <S extends Strategy> List<Standing> run(List<S> strategies, long games, ChunkPlayer<S> player) {
+        if (games < 0) {
+            throw new IllegalArgumentException("Number of games cannot be negative: " + games);
+        }
+        if (strategies.isEmpty()) {
+            throw new IllegalStateException("No strategies registered");
+        }
+
+        long chunks = (games + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        long baseSeed = randomFactory.newGenerator().nextLong();
+        SampleStatistics[] totals = pool.invoke(
+                new ChunkTask<>(strategies, player, baseSeed, games, 0, chunks));
+
+        List<Standing> standings = new ArrayList<>(strategies.size());
+        for (int i = 0; i < strategies.size(); i++) {
+            standings.add(new Standing(strategies.get(i).getName(), totals[i]));
+        }
+        standings.sort(Comparator.comparingDouble((Standing s) -> s.payoff().getMean()).reversed());
+        return standings;
+    }
+
+    @SuppressWarnings("serial")
+    private static class ChunkTask<S extends Strategy> extends RecursiveTask<SampleStatistics[]> {
+        private final List<S> strategies;
+        private final ChunkPlayer<S> player;
+        private final long baseSeed;
+        private final long games;
+        private final long firstChunk;
+        private final long endChunk;
+
+        ChunkTask(List<S> strategies, ChunkPlayer<S> player, long baseSeed, long games,
+                  long firstChunk, long endChunk) {
+            this.strategies = strategies;
+            this.player = player;
+            this.baseSeed = baseSeed;
+            this.games = games;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+        }
+
+        @Override
+        protected SampleStatistics[] compute() {
+            if (endChunk - firstChunk > 1) {
+                long middle = (firstChunk + endChunk) >>> 1;
+                ChunkTask<S> left = new ChunkTask<>(strategies, player, baseSeed, games, firstChunk, middle);
+                ChunkTask<S> right = new ChunkTask<>(strategies, player, baseSeed, games, middle, endChunk);
+                left.fork();
+                SampleStatistics[] result = right.compute();
+                SampleStatistics[] other = left.join();
+                for (int i = 0; i < result.length; i++) {
+                    result[i].merge(other[i]);
+                }
+                return result;
+            }
+
+            SampleStatistics[] result = new SampleStatistics[strategies.size()];
+            long chunkGames = Math.min(CHUNK_SIZE, games - firstChunk * CHUNK_SIZE);
+            long chunkSeed = baseSeed + firstChunk;
+            for (int i = 0; i < result.length; i++) {
+                // The same seed for every strategy, so they all see the same orders
+                RandomGenerator random = RandomFactory.seeded(chunkSeed).newGenerator();
+                result[i] = chunkGames > 0
+                        ? player.play(strategies.get(i), chunkGames, random)
+                        : new SampleStatistics();
+            }
+            return result;
+        }
+    }
+
+    private SampleStatistics playHigherLower(HigherLowerStrategy strategy, long games, RandomGenerator random) {
+        SampleStatistics payoff = new SampleStatistics();
+        HigherLowerModel model = new HigherLowerModel(includeJokers, random);
+        for (long i = 0; i < games; i++) {
+            payoff.add(strategy.play(model));
+        }
+        return payoff;
+    }
+
+    private SampleStatistics playBlackjack(BlackjackStrategy strategy, long hands, RandomGenerator random) {
+        SampleStatistics payoff = new SampleStatistics();
+        BlackjackModel model = new BlackjackModel(new Shoe(numDecks, 0.0, random));
+        for (long i = 0; i < hands; i++) {
+            payoff.add(strategy.play(model));
+        }
+        return payoff;
+    }
+
+    /**
+     * Runs the built-in strategies from the command line: {@code [games] [seed]}.
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+        TournamentRunner runner = new TournamentRunner()
+                .register(new AlwaysHigherStrategy())
+                .register(new HigherLowerTableStrategy())
+                .register(new HigherLowerOddsStrategy())
+                .register(new DealerMimicStrategy())
+                .register(new BasicBlackjackStrategy())
+                .register(new CompositionBlackjackStrategy());
+        if (args.length > 1) {
+            runner.randomFactory(RandomFactory.seeded(Long.parseLong(args[1])));
+        }
+
+        System.out.println("Higher/Lower, mean score per game:");
+        runner.runHigherLower(games).forEach(System.out::println);
+        System.out.println("Blackjack, mean return per hand:");
+        runner.runBlackjack(games).forEach(System.out::println);
+    }
+}
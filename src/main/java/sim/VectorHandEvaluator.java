@@ -0,0 +1,133 @@
+package sim;
+
+import model.BlackjackRules;
+import model.Card;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link HandEvaluator} on the incubating Vector API: each lane holds one
+ * hand, and a slot of as many hands as there are lanes is evaluated at once.
+ *
+ * Points are computed from the codes arithmetically rather than looked up:
+ * the rank is {@code code - 13 * (code / 13)}, with the division done as a
+ * multiply and shift, and empty slots and Jokers are masked to zero.
+ *
+ * Codes are loaded with the preferred byte species, which has the same bit
+ * size as the preferred int species and so is legal on every platform, and
+ * widened one quarter at a time. The byte vector covers four int vectors'
+ * worth of hands; the batch capacity is a multiple of 64, so it never reads
+ * past a slot.
+ *
+ * Only compiled by the {@code vector} Maven profile, and only loaded through
+ * {@link HandEvaluator#create()}, after checking that the incubator module
+ * is present.
+ */
+class VectorHandEvaluator implements HandEvaluator {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final int PARTS = BYTES.length() / INTS.length();
+
+    private static final int RANKS = Card.STANDARD_CARD_COUNT / 4;
+    private static final int ACE_RANK = RANKS - 1;
+
+    /** {@code (code * DIVIDE_MULTIPLIER) >> DIVIDE_SHIFT == code / 13} for every card code. */
+    private static final int DIVIDE_MULTIPLIER = 79;
+    private static final int DIVIDE_SHIFT = 10;
+
+    private static IntVector load(HandBatch hands, int slot, int hand) {
+        int part = hand / INTS.length() % PARTS;
+        return (IntVector) ByteVector.fromArray(BYTES, hands.codes,
+                        slot * hands.capacity() + hand - part * INTS.length())
+                .convertShape(VectorOperators.B2I, INTS, part);
+    }
+
+    private static IntVector rank(IntVector code) {
+        return code.sub(code.mul(DIVIDE_MULTIPLIER).lanewise(VectorOperators.ASHR, DIVIDE_SHIFT).mul(RANKS));
+    }
+
+    private static VectorMask<Integer> standard(IntVector code) {
+        return code.compare(VectorOperators.GE, 0).and(code.compare(VectorOperators.LT, Card.STANDARD_CARD_COUNT));
+    }
+
+    private static IntVector points(IntVector rank, VectorMask<Integer> standard, VectorMask<Integer> ace) {
+        return rank.add(2).min(10).blend(1, ace).blend(0, standard.not());
+    }
+
+    private static void store(HandBatch hands, int hand, IntVector hard, VectorMask<Integer> hasAce, IntVector count) {
+        VectorMask<Integer> soft = hasAce.and(hard.compare(VectorOperators.LE, 11));
+        hard.intoArray(hands.hardTotals, hand);
+        hard.add(10, soft).intoArray(hands.values, hand);
+        count.intoArray(hands.cardCounts, hand);
+        soft.intoArray(hands.soft, hand);
+        hard.compare(VectorOperators.GT, 21).intoArray(hands.bust, hand);
+    }
+
+    @Override
+    public void evaluate(HandBatch hands) {
+        for (int hand = 0; hand < hands.size(); hand += INTS.length()) {
+            IntVector hard = IntVector.zero(INTS);
+            IntVector count = IntVector.zero(INTS);
+            VectorMask<Integer> hasAce = INTS.maskAll(false);
+            for (int slot = 0; slot < hands.slots(); slot++) {
+                IntVector code = load(hands, slot, hand);
+                IntVector rank = rank(code);
+                VectorMask<Integer> standard = standard(code);
+                VectorMask<Integer> ace = rank.compare(VectorOperators.EQ, ACE_RANK).and(standard);
+                hard = hard.add(points(rank, standard, ace));
+                hasAce = hasAce.or(ace);
+                count = count.add(1, code.compare(VectorOperators.NE, HandBatch.EMPTY));
+            }
+            store(hands, hand, hard, hasAce, count);
+        }
+    }
+
+    @Override
+    public void playDealer(HandBatch dealers) {
+        VectorMask<Integer> all = INTS.maskAll(true);
+        for (int hand = 0; hand < dealers.size(); hand += INTS.length()) {
+            IntVector hard = IntVector.zero(INTS);
+            IntVector count = IntVector.zero(INTS);
+            VectorMask<Integer> hasAce = INTS.maskAll(false);
+            for (int slot = 0; slot < dealers.slots(); slot++) {
+                VectorMask<Integer> hitting = all;
+                if (slot >= 2) {
+                    IntVector value = hard.add(10, hasAce.and(hard.compare(VectorOperators.LE, 11)));
+                    hitting = value.compare(VectorOperators.LT, BlackjackRules.DEALER_STANDS_ON);
+                    if (!hitting.anyTrue()) {
+                        break;
+                    }
+                }
+                IntVector code = load(dealers, slot, hand);
+                IntVector rank = rank(code);
+                VectorMask<Integer> standard = standard(code);
+                VectorMask<Integer> ace = rank.compare(VectorOperators.EQ, ACE_RANK).and(standard);
+                hard = hard.add(points(rank, standard, ace), hitting);
+                hasAce = hasAce.or(ace.and(hitting));
+                count = count.add(1, hitting);
+            }
+            store(dealers, hand, hard, hasAce, count);
+        }
+    }
+
+    @Override
+    public void settle(HandBatch players, HandBatch dealers, int[] payoffs) {
+        for (int hand = 0; hand < players.size(); hand += INTS.length()) {
+            VectorMask<Integer> playerBust = VectorMask.fromArray(INTS, players.bust, hand);
+            VectorMask<Integer> dealerBust = VectorMask.fromArray(INTS, dealers.bust, hand);
+            IntVector player = IntVector.fromArray(INTS, players.values, hand);
+            IntVector dealer = IntVector.fromArray(INTS, dealers.values, hand);
+            IntVector payoff = IntVector.zero(INTS)
+                    .blend(1, player.compare(VectorOperators.GT, dealer))
+                    .blend(-1, player.compare(VectorOperators.LT, dealer))
+                    .blend(1, dealerBust)
+                    .blend(-1, playerBust);
+            payoff.intoArray(payoffs, hand);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The column encodings of the columnar hand-history format. Every encoded
+ * chunk starts with its encoding byte, so a reader decodes any chunk without
+ * knowing which column it belongs to.
+ *
+ * <ul>
+ *   <li>{@link #BIT_PACKED}: a bit width, then the values packed
+ *       least-significant bit first into little-endian longs;</li>
+ *   <li>{@link #DICTIONARY}: the distinct values as varints, then each
+ *       value's dictionary index bit-packed;</li>
+ *   <li>{@link #DELTA}: zigzag varints of the difference from the previous
+ *       value (the first from 0);</li>
+ *   <li>{@link #RLE}: runs of equal values as a zigzag varint value and a
+ *       varint length.</li>
+ * </ul>
+ * Values are non-negative except under delta and run-length encoding.
+ * Bit-packed data is followed by eight bytes of padding so the decoder can
+ * always read whole longs.
+ */
+final class ColumnCodec {
+
+    static final byte BIT_PACKED = 0;
+    static final byte DICTIONARY = 1;
+    static final byte DELTA = 2;
+    static final byte RLE = 3;
+
+    /** Dictionaries only pay off for a handful of distinct values. */
+    static final int MAX_DICTIONARY_SIZE = 16;
+
+    private ColumnCodec() {
+    }
+
+    /**
+     * A growable little-endian output buffer.
+     */
+    static final class Sink {
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        ByteBuffer view() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+
+        void put(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void putLong(long value) {
+            ensure(Long.BYTES);
+            for (int i = 0; i < Long.BYTES; i++) {
+                bytes[size++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        void putVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + extra));
+            }
+        }
+    }
+
+    static int bitWidth(long max) {
+        return Long.SIZE - Long.numberOfLeadingZeros(max);
+    }
+
+    static void bitPack(Sink out, long[] values, int count) {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max |= values[i];
+        }
+        out.put(BIT_PACKED);
+        packIndexes(out, values, count, bitWidth(max));
+    }
+
+    /**
+     * Writes a dictionary chunk, or a bit-packed one if there are too many
+     * distinct values.
+     */
+    static void dictionary(Sink out, long[] values, int count) {
+        long[] dictionary = new long[MAX_DICTIONARY_SIZE];
+        int size = 0;
+        long[] indexes = new long[count];
+        for (int i = 0; i < count; i++) {
+            int index = 0;
+            while (index < size && dictionary[index] != values[i]) {
+                index++;
+            }
+            if (index == size) {
+                if (size == MAX_DICTIONARY_SIZE) {
+                    bitPack(out, values, count);
+                    return;
+                }
+                dictionary[size++] = values[i];
+            }
+            indexes[i] = index;
+        }
+        out.put(DICTIONARY);
+        out.putVarint(size);
+        for (int i = 0; i < size; i++) {
+            out.putVarint(dictionary[i]);
+        }
+        packIndexes(out, indexes, count, bitWidth(size - 1));
+    }
+
+    private static void packIndexes(Sink out, long[] values, int count, int width) {
+        out.put(width);
+        long word = 0;
+        int filled = 0;
+        for (int i = 0; i < count; i++) {
+            long value = values[i];
+            word |= value << filled;
+            filled += width;
+            if (filled >= Long.SIZE) {
+                out.putLong(word);
+                filled -= Long.SIZE;
+                word = filled == 0 ? 0 : value >>> (width - filled);
+            }
+        }
+        if (filled > 0) {
+            out.putLong(word);
+        }
+        out.putLong(0L);
+    }
+
+    static void delta(Sink out, long[] values, int count) {
+        out.put(DELTA);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            out.putVarint(zigzag(values[i] - previous));
+            previous = values[i];
+        }
+    }
+
+    static void runLength(Sink out, long[] values, int count) {
+        out.put(RLE);
+        int i = 0;
+        while (i < count) {
+            int run = 1;
+            while (i + run < count && values[i + run] == values[i]) {
+                run++;
+            }
+            out.putVarint(zigzag(values[i]));
+            out.putVarint(run);
+            i += run;
+        }
+    }
+
+    /**
+     * Decodes {@code count} values of the chunk at {@code offset} into {@code dst}.
+     */
+    static void decode(ByteBuffer in, int offset, int count, long[] dst) {
+        ByteBuffer chunk = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        chunk.position(offset);
+        byte encoding = chunk.get();
+        switch (encoding) {
+            case BIT_PACKED -> unpack(chunk, count, dst);
+            case DICTIONARY -> {
+                long[] dictionary = new long[(int) getVarint(chunk)];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = getVarint(chunk);
+                }
+                unpack(chunk, count, dst);
+                for (int i = 0; i < count; i++) {
+                    dst[i] = dictionary[(int) dst[i]];
+                }
+            }
+            case DELTA -> {
+                long value = 0;
+                for (int i = 0; i < count; i++) {
+                    value += unzigzag(getVarint(chunk));
+                    dst[i] = value;
+                }
+            }
+            case RLE -> {
+                int i = 0;
+                while (i < count) {
+                    long value = unzigzag(getVarint(chunk));
+                    int end = i + (int) getVarint(chunk);
+                    if (end > count) {
+                        throw new IllegalArgumentException("Run-length chunk overruns its " + count + " values");
+                    }
+                    Arrays.fill(dst, i, end, value);
+                    i = end;
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown column encoding " + encoding);
+        }
+    }
+
+    private static void unpack(ByteBuffer chunk, int count, long[] dst) {
+        int width = chunk.get();
+        if (width == 0) {
+            Arrays.fill(dst, 0, count, 0L);
+            return;
+        }
+        long mask = width == Long.SIZE ? -1L : (1L << width) - 1;
+        int base = chunk.position();
+        long bit = 0;
+        for (int i = 0; i < count; i++, bit += width) {
+            int index = base + (int) (bit >>> 6) * Long.BYTES;
+            int shift = (int) (bit & 63);
+            long value = chunk.getLong(index) >>> shift;
+            if (shift + width > Long.SIZE) {
+                value |= chunk.getLong(index + Long.BYTES) << (Long.SIZE - shift);
+            }
+            dst[i] = value & mask;
+        }
+    }
+
+    private static long getVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint ending at offset " + in.position());
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,342 @@
+package storage;
+
+import model.Hand;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a file written by {@link ColumnarHandWriter} through memory-mapped
+ * I/O and runs aggregate queries over it.
+ *
+ * A query decodes only the columns it needs, one row group at a time, into
+ * reusable arrays. Groups whose min/max statistics rule out the query's
+ * filters are skipped without being touched, and filter columns aren't
+ * decoded at all for groups the statistics show match entirely.
+ *
+ * The file is mapped in windows of whole row groups, so files larger than a
+ * single mapping are fine. A reader is not safe for concurrent queries; open
+ * one per thread.
+ */
+public class ColumnarHandReader implements AutoCloseable {
+
+    private static final int WINDOW_SIZE = 1 << 30;
+
+    /** Passed to a row visitor for a row without dealer cards. */
+    private static final int NO_UPCARD = -1;
+
+    /**
+     * Wins, losses and pushes among the rows a query matched.
+     */
+    public record OutcomeCounts(long wins, long losses, long pushes) {
+
+        public long total() {
+            return wins + losses + pushes;
+        }
+
+        public double winRate() {
+            long total = total();
+            return total == 0 ? 0.0 : (double) wins / total;
+        }
+
+        /** Expected return per hand at even money. */
+        public double expectedReturn() {
+            long total = total();
+            return total == 0 ? 0.0 : (double) (wins - losses) / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d hands: win %.4f, EV %+.5f", total(), winRate(), expectedReturn());
+        }
+    }
+
+    /** Where a row group is and what the footer says about its columns. */
+    private record Group(long offset, int rows, int[] chunkOffsets, int[] valueCounts, long[] min, long[] max) {}
+
+    private final FileChannel channel;
+    private final List<Group> groups = new ArrayList<>();
+    private final List<MappedByteBuffer> windows = new ArrayList<>();
+    private final List<Long> windowStarts = new ArrayList<>();
+    private int[] groupWindows;
+    private long rowCount;
+
+    // Decoding scratch, sized for the largest group
+    private long[] timestamps = new long[0];
+    private long[] modes = new long[0];
+    private long[] outcomes = new long[0];
+    private long[] counts = new long[0];
+    private long[] cards = new long[0];
+
+    private ColumnarHandReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        int trailer = Long.BYTES + Integer.BYTES;
+        ByteBuffer header = read(0, ColumnarHandWriter.HEADER_SIZE);
+        if (size < ColumnarHandWriter.HEADER_SIZE + Integer.BYTES + trailer
+                || header.getInt() != ColumnarHandWriter.FILE_MAGIC
+                || header.getInt() != ColumnarHandWriter.FILE_VERSION) {
+            throw new IOException("Not a columnar hand file");
+        }
+        ByteBuffer end = read(size - trailer, trailer);
+        long footerStart = end.getLong();
+        if (end.getInt() != ColumnarHandWriter.FILE_MAGIC || footerStart < ColumnarHandWriter.HEADER_SIZE
+                || footerStart > size - trailer - Integer.BYTES) {
+            throw new IOException("Columnar hand file has no footer; was the writer closed?");
+        }
+        ByteBuffer footer = read(footerStart, (int) (size - trailer - footerStart));
+        int groupCount = footer.getInt();
+        if (groupCount < 0 || (long) groupCount * ColumnarHandWriter.GROUP_ENTRY_SIZE != footer.remaining()) {
+            throw new IOException("Corrupt columnar hand file footer");
+        }
+        for (int g = 0; g < groupCount; g++) {
+            long offset = footer.getLong();
+            int rows = footer.getInt();
+            int[] chunkOffsets = new int[ColumnarHandWriter.COLUMNS + 1];
+            int[] valueCounts = new int[ColumnarHandWriter.COLUMNS];
+            long[] min = new long[ColumnarHandWriter.COLUMNS];
+            long[] max = new long[ColumnarHandWriter.COLUMNS];
+            for (int column = 0; column < ColumnarHandWriter.COLUMNS; column++) {
+                chunkOffsets[column + 1] = chunkOffsets[column] + footer.getInt();
+                valueCounts[column] = footer.getInt();
+                min[column] = footer.getLong();
+                max[column] = footer.getLong();
+            }
+            groups.add(new Group(offset, rows, chunkOffsets, valueCounts, min, max));
+            rowCount += rows;
+        }
+        mapWindows(footerStart);
+    }
+
+    /**
+     * Maps the row groups in windows of up to {@link #WINDOW_SIZE} bytes,
+     * never splitting a group.
+     */
+    private void mapWindows(long footerStart) throws IOException {
+        groupWindows = new int[groups.size()];
+        int first = 0;
+        while (first < groups.size()) {
+            long start = groups.get(first).offset();
+            int last = first;
+            while (last + 1 < groups.size() && groups.get(last + 1).offset() - start
+                    + groups.get(last + 1).chunkOffsets()[ColumnarHandWriter.COLUMNS] <= WINDOW_SIZE) {
+                last++;
+            }
+            long end = last + 1 < groups.size() ? groups.get(last + 1).offset() : footerStart;
+            for (int g = first; g <= last; g++) {
+                groupWindows[g] = windows.size();
+            }
+            windows.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            windowStarts.add(start);
+            first = last + 1;
+        }
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // keep reading until full or end of file
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Opens and maps a file.
+     */
+    public static ColumnarHandReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ColumnarHandReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getRowGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * Starts a query over every row.
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * Filters and aggregates. Set the filters, then call one of the
+     * aggregations; {@link #getGroupsSkipped()} then tells how many row groups
+     * the statistics let it skip.
+     */
+    public final class Query {
+        private int mode = -1;
+        private long from = Long.MIN_VALUE;
+        private long until = Long.MAX_VALUE;
+        private int groupsSkipped;
+
+        private Query() {
+        }
+
+        /** Only rows of the given mode. */
+        public Query mode(GameMode mode) {
+            this.mode = mode.ordinal();
+            return this;
+        }
+
+        /** Only rows with {@code from <= timestamp < until}. */
+        public Query between(long from, long until) {
+            this.from = from;
+            this.until = until;
+            return this;
+        }
+
+        public int getGroupsSkipped() {
+            return groupsSkipped;
+        }
+
+        public OutcomeCounts countOutcomes() {
+            long[] totals = new long[3];
+            scan(mode, false, (row, upcard) -> totals[(int) outcomes[row]]++);
+            return counts(totals, 0);
+        }
+
+        /**
+         * Counts blackjack outcomes by the dealer's upcard, indexed by its
+         * points: 1 for an Ace up to 10 for any ten-point card. Index 0 is
+         * always empty, and rows without dealer cards aren't counted. The mode
+         * filter is ignored, and stays set for later aggregations.
+         */
+        public OutcomeCounts[] countByDealerUpcard() {
+            long[] totals = new long[3 * 11];
+            scan(GameMode.BLACKJACK.ordinal(), true, (row, upcard) -> {
+                if (upcard != NO_UPCARD) {
+                    totals[3 * Hand.pointsOf(upcard) + (int) outcomes[row]]++;
+                }
+            });
+            OutcomeCounts[] byUpcard = new OutcomeCounts[11];
+            for (int points = 0; points <= 10; points++) {
+                byUpcard[points] = counts(totals, 3 * points);
+            }
+            return byUpcard;
+        }
+
+        private OutcomeCounts counts(long[] totals, int offset) {
+            return new OutcomeCounts(totals[offset + Outcome.WIN.ordinal()],
+                    totals[offset + Outcome.LOSE.ordinal()], totals[offset + Outcome.PUSH.ordinal()]);
+        }
+
+        private void scan(int mode, boolean upcards, RowVisitor visitor) {
+            groupsSkipped = 0;
+            for (int g = 0; g < groups.size(); g++) {
+                Group group = groups.get(g);
+                boolean modeDecided = mode < 0
+                        || (group.min()[ColumnarHandWriter.MODE] == mode && group.max()[ColumnarHandWriter.MODE] == mode);
+                boolean timeDecided = group.min()[ColumnarHandWriter.TIMESTAMP] >= from
+                        && group.max()[ColumnarHandWriter.TIMESTAMP] < until;
+                if ((mode >= 0 && (mode < group.min()[ColumnarHandWriter.MODE] || mode > group.max()[ColumnarHandWriter.MODE]))
+                        || group.max()[ColumnarHandWriter.TIMESTAMP] < from
+                        || group.min()[ColumnarHandWriter.TIMESTAMP] >= until) {
+                    groupsSkipped++;
+                    continue;
+                }
+
+                int rows = group.rows();
+                ensureCapacity(rows, group.valueCounts()[ColumnarHandWriter.DEALER_CARDS]);
+                decode(g, ColumnarHandWriter.OUTCOME, outcomes);
+                if (!modeDecided) {
+                    decode(g, ColumnarHandWriter.MODE, modes);
+                }
+                if (!timeDecided) {
+                    decode(g, ColumnarHandWriter.TIMESTAMP, timestamps);
+                }
+                if (upcards) {
+                    decode(g, ColumnarHandWriter.DEALER_COUNT, counts);
+                    decode(g, ColumnarHandWriter.DEALER_CARDS, cards);
+                }
+
+                int card = 0;
+                for (int row = 0; row < rows; row++) {
+                    int upcard = NO_UPCARD;
+                    if (upcards) {
+                        // Rows without dealer cards have no upcard to read
+                        int dealt = (int) counts[row];
+                        if (dealt > 0) {
+                            upcard = (int) cards[card];
+                        }
+                        card += dealt;
+                    }
+                    if ((modeDecided || modes[row] == mode)
+                            && (timeDecided || (timestamps[row] >= from && timestamps[row] < until))) {
+                        visitor.visit(row, upcard);
+                    }
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowVisitor {
+        void visit(int row, int upcard);
+    }
+
+    private void decode(int g, int column, long[] dst) {
+        Group group = groups.get(g);
+        int window = groupWindows[g];
+        int offset = (int) (group.offset() - windowStarts.get(window)) + group.chunkOffsets()[column];
+        ColumnCodec.decode(windows.get(window), offset, group.valueCounts()[column], dst);
+    }
+
+    private void ensureCapacity(int rows, int dealerCards) {
+        if (outcomes.length < rows) {
+            timestamps = new long[rows];
+            modes = new long[rows];
+            outcomes = new long[rows];
+            counts = new long[rows];
+        }
+        if (cards.length < dealerCards) {
+            cards = new long[dealerCards];
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        windows.clear();
+        windowStarts.clear();
+        groups.clear();
+        channel.close();
+    }
+
+    /**
+     * Prints the blackjack win rate by dealer upcard for a file.
+     * Usage: {@code ColumnarHandReader <file>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: ColumnarHandReader <file>");
+            System.exit(2);
+        }
+        try (ColumnarHandReader reader = open(Path.of(args[0]))) {
+            long start = System.nanoTime();
+            OutcomeCounts[] byUpcard = reader.query().countByDealerUpcard();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%,d rows in %,d row groups%n", reader.getRowCount(), reader.getRowGroupCount());
+            for (int points = 1; points <= 10; points++) {
+                System.out.printf("Dealer %s: %s%n", points == 1 ? "A " : String.format("%-2d", points),
+                        byUpcard[points]);
+            }
+            System.out.printf("Scanned in %.3f s (%,.0f rows/s)%n", seconds, reader.getRowCount() / seconds);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package storage;
+
+import model.Card;
+import model.Hand;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes hand records in a columnar, compressed file for offline analysis,
+ * read back with {@link ColumnarHandReader}.
+ *
+ * Rows are buffered into row groups. Each group is written as one chunk per
+ * column, each with the encoding that suits it (see {@link ColumnCodec}):
+ * delta-encoded timestamps, run-length encoded streaks, dictionary-encoded
+ * modes and outcomes, and bit-packed totals, card counts and card codes. The
+ * cards of all rows in a group are concatenated in one chunk per side, with
+ * the counts in their own column.
+ *
+ * The file is a header, the row groups, and a footer that lists every group
+ * with the size, value count and min/max of each of its column chunks, so a
+ * reader can skip groups a query can't match. The footer is only written by
+ * {@link #close()}; a file that was never closed can't be read.
+ *
+ * The streak column is the number of wins in a row for the row's mode,
+ * counted by the writer; pushes don't break it. Rows are recorded the same
+ * way as in {@link HandHistory}, so Higher/Lower rows are single guesses.
+ */
+public class ColumnarHandWriter implements AutoCloseable {
+
+    static final int FILE_MAGIC = 0x48434F4C; // "HCOL"
+    static final int FILE_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+
+    static final int TIMESTAMP = 0;
+    static final int MODE = 1;
+    static final int OUTCOME = 2;
+    static final int STREAK = 3;
+    static final int PLAYER_TOTAL = 4;
+    static final int DEALER_TOTAL = 5;
+    static final int PLAYER_COUNT = 6;
+    static final int DEALER_COUNT = 7;
+    static final int PLAYER_CARDS = 8;
+    static final int DEALER_CARDS = 9;
+    static final int COLUMNS = 10;
+
+    /** Bytes of footer metadata per column chunk: length, value count, min and max. */
+    static final int CHUNK_ENTRY_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+    /** Bytes of footer metadata per group: offset, row count and the chunk entries. */
+    static final int GROUP_ENTRY_SIZE = Long.BYTES + Integer.BYTES + COLUMNS * CHUNK_ENTRY_SIZE;
+
+    public static final int DEFAULT_ROW_GROUP_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final int rowGroupSize;
+    private final long[][] rows = new long[PLAYER_COUNT + 2][];
+    private long[] playerCards;
+    private long[] dealerCards;
+    private int rowCount;
+    private int playerCardCount;
+    private int dealerCardCount;
+    private final int[] streaks = new int[GameMode.values().length];
+    private final ColumnCodec.Sink sink = new ColumnCodec.Sink();
+    private final List<ByteBuffer> footer = new ArrayList<>();
+    private long rowsWritten;
+    private boolean closed;
+
+    private ColumnarHandWriter(FileChannel channel, int rowGroupSize) throws IOException {
+        this.channel = channel;
+        this.rowGroupSize = rowGroupSize;
+        for (int column = 0; column < rows.length; column++) {
+            rows[column] = new long[rowGroupSize];
+        }
+        this.playerCards = new long[4 * rowGroupSize];
+        this.dealerCards = new long[4 * rowGroupSize];
+        write(ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(FILE_MAGIC).putInt(FILE_VERSION).flip());
+    }
+
+    /**
+     * Creates the file, replacing any existing one.
+     */
+    public static ColumnarHandWriter create(Path file) throws IOException {
+        return create(file, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    /**
+     * Creates the file with row groups of {@code rowGroupSize} rows. Larger
+     * groups compress a little better; smaller ones let selective queries skip
+     * more.
+     */
+    public static ColumnarHandWriter create(Path file, int rowGroupSize) throws IOException {
+        if (rowGroupSize < 1 || rowGroupSize > 1 << 24) {
+            throw new IllegalArgumentException("Row group size must be between 1 and " + (1 << 24)
+                    + ": " + rowGroupSize);
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            return new ColumnarHandWriter(channel, rowGroupSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a settled blackjack hand.
+     */
+    public void append(Hand player, Hand dealer, Outcome outcome, long timestamp) throws IOException {
+        for (int i = 0; i < player.size(); i++) {
+            addPlayerCard(player.codeAt(i));
+        }
+        for (int i = 0; i < dealer.size(); i++) {
+            addDealerCard(dealer.codeAt(i));
+        }
+        endRow(GameMode.BLACKJACK, outcome, timestamp, player.value(), dealer.value(),
+                player.size(), dealer.size());
+    }
+
+    /**
+     * Appends a resolved Higher/Lower guess.
+     *
+     * @param previousCode the card guessed from
+     * @param nextCode     the card turned over
+     */
+    public void append(GameMode mode, int previousCode, int nextCode, Outcome outcome, long timestamp)
+            throws IOException {
+        addPlayerCard(previousCode);
+        addDealerCard(nextCode);
+        endRow(mode, outcome, timestamp, Card.valueOf(previousCode), Card.valueOf(nextCode), 1, 1);
+    }
+
+    /**
+     * Appends every hand the cursor has still to read. Only the cards the
+     * history stored are kept.
+     *
+     * @return the number of hands appended
+     */
+    public long appendAll(HandHistory.Cursor cursor) throws IOException {
+        long appended = 0;
+        while (cursor.next()) {
+            int players = Math.min(cursor.getPlayerCardCount(), HandHistory.MAX_STORED_CARDS);
+            int dealers = Math.min(cursor.getDealerCardCount(), HandHistory.MAX_STORED_CARDS);
+            for (int i = 0; i < players; i++) {
+                addPlayerCard(cursor.getPlayerCard(i));
+            }
+            for (int i = 0; i < dealers; i++) {
+                addDealerCard(cursor.getDealerCard(i));
+            }
+            endRow(cursor.getMode(), cursor.getOutcome(), cursor.getTimestamp(),
+                    cursor.getPlayerTotal(), cursor.getDealerTotal(), players, dealers);
+            appended++;
+        }
+        return appended;
+    }
+
+    private void addPlayerCard(int code) {
+        if (playerCardCount == playerCards.length) {
+            playerCards = Arrays.copyOf(playerCards, 2 * playerCardCount);
+        }
+        playerCards[playerCardCount++] = code;
+    }
+
+    private void addDealerCard(int code) {
+        if (dealerCardCount == dealerCards.length) {
+            dealerCards = Arrays.copyOf(dealerCards, 2 * dealerCardCount);
+        }
+        dealerCards[dealerCardCount++] = code;
+    }
+
+    private void endRow(GameMode mode, Outcome outcome, long timestamp, int playerTotal, int dealerTotal,
+                        int playerCount, int dealerCount) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        int streak = streaks[mode.ordinal()];
+        if (outcome == Outcome.WIN) {
+            streak++;
+        } else if (outcome == Outcome.LOSE) {
+            streak = 0;
+        }
+        streaks[mode.ordinal()] = streak;
+
+        rows[TIMESTAMP][rowCount] = timestamp;
+        rows[MODE][rowCount] = mode.ordinal();
+        rows[OUTCOME][rowCount] = outcome.ordinal();
+        rows[STREAK][rowCount] = streak;
+        rows[PLAYER_TOTAL][rowCount] = playerTotal;
+        rows[DEALER_TOTAL][rowCount] = dealerTotal;
+        rows[PLAYER_COUNT][rowCount] = playerCount;
+        rows[DEALER_COUNT][rowCount] = dealerCount;
+        if (++rowCount == rowGroupSize) {
+            writeGroup();
+        }
+    }
+
+    private void writeGroup() throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(GROUP_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        entry.putLong(channel.position()).putInt(rowCount);
+        for (int column = 0; column < COLUMNS; column++) {
+            long[] values = column == PLAYER_CARDS ? playerCards
+                    : column == DEALER_CARDS ? dealerCards : rows[column];
+            int count = column == PLAYER_CARDS ? playerCardCount
+                    : column == DEALER_CARDS ? dealerCardCount : rowCount;
+            sink.reset();
+            switch (column) {
+                case TIMESTAMP -> ColumnCodec.delta(sink, values, count);
+                case STREAK -> ColumnCodec.runLength(sink, values, count);
+                case MODE, OUTCOME -> ColumnCodec.dictionary(sink, values, count);
+                default -> ColumnCodec.bitPack(sink, values, count);
+            }
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+            entry.putInt(sink.size()).putInt(count).putLong(min).putLong(max);
+            write(sink.view());
+        }
+        footer.add(entry.flip());
+        rowsWritten += rowCount;
+        rowCount = 0;
+        playerCardCount = 0;
+        dealerCardCount = 0;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Gets the number of rows appended so far.
+     */
+    public long getRowCount() {
+        return rowsWritten + rowCount;
+    }
+
+    /**
+     * Writes the last partial row group and the footer, and forces the file
+     * to disk.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (rowCount > 0) {
+                writeGroup();
+            }
+            long footerStart = channel.position();
+            write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(footer.size()).flip());
+            for (ByteBuffer entry : footer) {
+                write(entry);
+            }
+            write(ByteBuffer.allocate(Long.BYTES + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putLong(footerStart).putInt(FILE_MAGIC).flip());
+            channel.force(false);
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package storage;
+
+import model.BlackjackModel;
+import model.EventBus.Subscriber;
+import model.GameEvent;
+import model.GameEvent.CardDealt;
+import model.GameEvent.GameOver;
+import model.GameEvent.GameRestored;
+import model.GameEvent.GameStarted;
+import model.GameEvent.GuessMade;
+import model.GameEvent.GuessResolved;
+import model.GameEvent.HandResolved;
+import model.GameEvent.PlayerHit;
+import model.GameEvent.PlayerStood;
+import model.GameEvent.ScoreChanged;
+import model.HigherLowerModel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An append-only binary journal of every game played on the attached models:
+ * the cards in the order they were dealt, every player action, and each
+ * recorded outcome. {@link JournalReplayer} re-drives fresh models from it and
+ * reports the first place where they disagree.
+ *
+ * Records are a tag byte followed by unsigned varints. The low four bits of
+ * the tag are the record kind and the high four bits a small argument, such
+ * as a result ordinal, so a dealt card takes two bytes and an action one.
+ * Each time the journal is opened it writes a session record with the wall
+ * clock, and every game start stores the milliseconds since the previous one.
+ * Models attached to the same journal get their own stream number; a stream
+ * record is written only when the stream changes. A game resumed from a
+ * snapshot is journaled as a restore record holding the snapshot, which has
+ * the cards in play and the undealt cards in order, so the replayer can pick
+ * the game up from there.
+ *
+ * Records are gathered in a direct buffer and written to the file channel
+ * when it fills up, when {@link #FLUSH_INTERVAL_NANOS} has passed at the end
+ * of a delivery, on {@link #flush()} and on {@link #close()}, which also
+ * forces the file to disk. A crash can lose at most the unwritten buffer, and
+ * a torn record at the end of the file is ignored by the replayer.
+ */
+public class GameJournal implements AutoCloseable {
+
+    static final int FILE_MAGIC = 0x474A4E4C; // "GJNL"
+    static final int FILE_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+
+    static final int SESSION = 0;
+    static final int STREAM = 1;
+    static final int GAME = 2;
+    static final int CARD = 3;
+    static final int GUESS = 4;
+    static final int GUESS_RESULT = 5;
+    static final int HIT = 6;
+    static final int STAND = 7;
+    static final int GAME_OVER = 8;
+    static final int HAND_RESOLVED = 9;
+    static final int RESTORE = 10;
+
+    /** Longest record: a tag and four varints of up to ten bytes. */
+    private static final int MAX_RECORD_SIZE = 1 + 4 * 10;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private int streams;
+    private int currentStream;
+    private long lastGameMillis;
+    private long lastFlushNanos = System.nanoTime();
+    private IOException failure;
+    private boolean closed;
+
+    private GameJournal(FileChannel channel) throws IOException {
+        this.channel = channel;
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(FILE_MAGIC).putInt(FILE_VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.flip().remaining() < HEADER_SIZE
+                    || header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION) {
+                throw new IOException("Not a game journal");
+            }
+        }
+        channel.position(channel.size());
+
+        lastGameMillis = System.currentTimeMillis();
+        buffer.put((byte) SESSION);
+        putVarint(lastGameMillis);
+    }
+
+    /**
+     * Opens the journal for appending, creating the file if it doesn't exist.
+     */
+    public static GameJournal open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new GameJournal(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Journals every game of a Higher/Lower model from its next game on.
+     */
+    public synchronized void attach(HigherLowerModel model) {
+        int stream = streams++;
+        GameMode mode = model.hasJokers() ? GameMode.HIGHER_LOWER_JOKERS : GameMode.HIGHER_LOWER;
+        model.getEvents().subscribe(GameEvent.class, new Subscriber<GameEvent>() {
+            private int score;
+            private int streak;
+            private int highScore;
+
+            @Override
+            public void onEvents(List<GameEvent> events) {
+                synchronized (GameJournal.this) {
+                    for (GameEvent event : events) {
+                        if (event instanceof ScoreChanged scores) {
+                            score = scores.score();
+                            streak = scores.streak();
+                            highScore = scores.highScore();
+                        } else if (event instanceof GameOver over) {
+                            begin(stream, GAME_OVER, over.result().ordinal());
+                            putVarint(score);
+                            putVarint(streak);
+                            putVarint(highScore);
+                        } else {
+                            journal(stream, mode, 0, event);
+                        }
+                    }
+                    endDelivery();
+                }
+            }
+        });
+    }
+
+    /**
+     * Journals every hand of a blackjack model from its next hand on.
+     */
+    public synchronized void attach(BlackjackModel model) {
+        int stream = streams++;
+        int numDecks = model.getShoe().getNumDecks();
+        model.getEvents().subscribe(GameEvent.class, events -> {
+            synchronized (this) {
+                for (GameEvent event : events) {
+                    journal(stream, GameMode.BLACKJACK, numDecks, event);
+                }
+                endDelivery();
+            }
+        });
+    }
+
+    private void journal(int stream, GameMode mode, int numDecks, GameEvent event) {
+        if (event instanceof GameStarted) {
+            long now = System.currentTimeMillis();
+            begin(stream, GAME, mode.ordinal());
+            putVarint(numDecks);
+            putVarint(Math.max(now - lastGameMillis, 0));
+            lastGameMillis = Math.max(now, lastGameMillis);
+        } else if (event instanceof GameRestored restored) {
+            byte[] snapshot = restored.snapshot();
+            if (buffer.remaining() < 2 * MAX_RECORD_SIZE + snapshot.length) {
+                drain();
+            }
+            begin(stream, RESTORE, mode.ordinal());
+            putVarint(numDecks);
+            putVarint(snapshot.length);
+            buffer.put(snapshot);
+        } else if (event instanceof CardDealt dealt) {
+            begin(stream, CARD, dealt.target().ordinal() | (dealt.faceDown() ? 4 : 0));
+            buffer.put((byte) dealt.card().getCode());
+        } else if (event instanceof GuessMade made) {
+            begin(stream, GUESS, made.guess().ordinal());
+        } else if (event instanceof GuessResolved resolved) {
+            begin(stream, GUESS_RESULT, resolved.result().ordinal());
+        } else if (event instanceof PlayerHit) {
+            begin(stream, HIT, 0);
+        } else if (event instanceof PlayerStood) {
+            begin(stream, STAND, 0);
+        } else if (event instanceof HandResolved resolved) {
+            begin(stream, HAND_RESOLVED, resolved.result().ordinal());
+            putVarint(resolved.playerValue());
+            putVarint(resolved.dealerValue());
+        }
+    }
+
+    /**
+     * Makes room for a record and writes its tag, switching streams first if
+     * needed.
+     */
+    private void begin(int stream, int kind, int argument) {
+        if (buffer.remaining() < 2 * MAX_RECORD_SIZE) {
+            drain();
+        }
+        if (stream != currentStream) {
+            buffer.put((byte) STREAM);
+            putVarint(stream);
+            currentStream = stream;
+        }
+        buffer.put((byte) (kind | argument << 4));
+    }
+
+    private void putVarint(long value) {
+        putVarint(buffer, value);
+    }
+
+    /**
+     * Writes an unsigned varint: seven bits per byte, low bits first, with
+     * the top bit set on every byte but the last.
+     */
+    static void putVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private void endDelivery() {
+        if (System.nanoTime() - lastFlushNanos >= FLUSH_INTERVAL_NANOS) {
+            drain();
+        }
+    }
+
+    /**
+     * Writes out the buffer. Subscribers can't throw checked exceptions, so
+     * the first failure is kept, further records are discarded, and the
+     * failure is thrown from {@link #flush()} or {@link #close()}.
+     */
+    private void drain() {
+        buffer.flip();
+        try {
+            if (failure == null && !closed) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            buffer.clear();
+            lastFlushNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Writes every journaled record to the file.
+     *
+     * @throws IOException if any write since the journal was opened failed
+     */
+    public synchronized void flush() throws IOException {
+        drain();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Writes out the remaining records and forces them to disk.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            channel.force(false);
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+}
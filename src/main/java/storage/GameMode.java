@@ -0,0 +1,6 @@
+package storage;
+
+/**
+ * The game variants statistics are kept for.
+ */
+public enum GameMode { HIGHER_LOWER, HIGHER_LOWER_JOKERS, BLACKJACK }
@@ -0,0 +1,337 @@
+package storage;
+
+import model.BlackjackModel;
+import model.Card;
+import model.EventBus.Subscriber;
+import model.GameEvent;
+import model.GameEvent.CardDealt;
+import model.GameEvent.GameRestored;
+import model.GameEvent.GameStarted;
+import model.GameEvent.GuessResolved;
+import model.GameEvent.HandResolved;
+import model.GameEvent.Target;
+import model.Hand;
+import model.HigherLowerModel;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * A rolling history of the most recent hands, kept off the heap in a
+ * fixed-capacity ring of fixed-width records. Once the ring is full each new
+ * hand overwrites the oldest one, so memory use is set at construction and
+ * appending or reading never allocates.
+ *
+ * A record is {@value #RECORD_SIZE} bytes: a version word, a timestamp, the
+ * game mode, the {@link Outcome}, both totals and card counts, and up to
+ * {@value #MAX_STORED_CARDS} card codes per side. The counts are exact;
+ * cards beyond the stored ones are not kept. For blackjack the sides are the
+ * player's and the dealer's hand. For Higher/Lower a record is one resolved
+ * guess: the player side holds the card guessed from, the dealer side the
+ * card turned over, and the totals are their values.
+ *
+ * There is one writer: {@link #append} and the attached models must all run
+ * on the same thread, and appending takes no lock. Any number of
+ * {@link Cursor}s can read concurrently. Each record is guarded by a seqlock
+ * on its version word, which is odd while the record is being written, so a
+ * reader can tell a consistent copy from one the writer overwrote mid-read.
+ */
+public class HandHistory {
+
+    public static final int RECORD_SIZE = 48;
+    public static final int MAX_STORED_CARDS = 12;
+
+    /** The player had a natural. */
+    public static final int FLAG_BLACKJACK = 1;
+    /** The Higher/Lower player guessed higher. */
+    public static final int FLAG_GUESSED_HIGHER = 2;
+
+    /** Largest capacity whose ring still fits in one buffer. */
+    public static final int MAX_CAPACITY = 1 << 25;
+
+    private static final int VERSION = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int MODE = 16;
+    private static final int OUTCOME = 17;
+    private static final int PLAYER_TOTAL = 18;
+    private static final int DEALER_TOTAL = 19;
+    private static final int PLAYER_COUNT = 20;
+    private static final int DEALER_COUNT = 21;
+    private static final int FLAGS = 22;
+    private static final int PLAYER_CARDS = 24;
+    private static final int DEALER_CARDS = PLAYER_CARDS + MAX_STORED_CARDS;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    private static final VarHandle PUBLISHED;
+
+    static {
+        try {
+            PUBLISHED = MethodHandles.lookup().findVarHandle(HandHistory.class, "published", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final GameMode[] MODES = GameMode.values();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final ByteBuffer ring;
+    private final int capacity;
+    private final int mask;
+
+    /** Records appended so far; only the writer changes it. */
+    private long next;
+    /** Records fully written so far, published to readers. */
+    @SuppressWarnings("unused")
+    private volatile long published;
+
+    /**
+     * Creates a history holding the last {@code capacity} hands, rounded up to
+     * a power of two.
+     */
+    public HandHistory(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY + ": " + capacity);
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.ring = ByteBuffer.allocateDirect(this.capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Appends a finished blackjack hand.
+     */
+    public void append(Hand player, Hand dealer, Outcome outcome, long timestamp) {
+        int base = begin();
+        ring.put(base + MODE, (byte) GameMode.BLACKJACK.ordinal());
+        ring.put(base + OUTCOME, (byte) outcome.ordinal());
+        ring.put(base + PLAYER_TOTAL, (byte) player.value());
+        ring.put(base + DEALER_TOTAL, (byte) dealer.value());
+        ring.put(base + FLAGS, (byte) (player.isBlackjack() ? FLAG_BLACKJACK : 0));
+        putCards(base + PLAYER_COUNT, base + PLAYER_CARDS, player);
+        putCards(base + DEALER_COUNT, base + DEALER_CARDS, dealer);
+        commit(base, timestamp);
+    }
+
+    private void putCards(int countIndex, int cardsIndex, Hand hand) {
+        int size = hand.size();
+        ring.put(countIndex, (byte) size);
+        for (int i = 0; i < Math.min(size, MAX_STORED_CARDS); i++) {
+            ring.put(cardsIndex + i, (byte) hand.codeAt(i));
+        }
+    }
+
+    /**
+     * Appends a resolved Higher/Lower guess.
+     *
+     * @param previousCode the card guessed from
+     * @param nextCode     the card turned over
+     */
+    public void append(GameMode mode, HigherLowerModel.Guess guess, int previousCode, int nextCode,
+                       Outcome outcome, long timestamp) {
+        int base = begin();
+        ring.put(base + MODE, (byte) mode.ordinal());
+        ring.put(base + OUTCOME, (byte) outcome.ordinal());
+        ring.put(base + PLAYER_TOTAL, (byte) Card.valueOf(previousCode));
+        ring.put(base + DEALER_TOTAL, (byte) Card.valueOf(nextCode));
+        ring.put(base + FLAGS, (byte) (guess == HigherLowerModel.Guess.HIGHER ? FLAG_GUESSED_HIGHER : 0));
+        ring.put(base + PLAYER_COUNT, (byte) 1);
+        ring.put(base + PLAYER_CARDS, (byte) previousCode);
+        ring.put(base + DEALER_COUNT, (byte) 1);
+        ring.put(base + DEALER_CARDS, (byte) nextCode);
+        commit(base, timestamp);
+    }
+
+    /**
+     * Marks the next slot as being written and returns its offset.
+     */
+    private int begin() {
+        int base = (int) (next & mask) * RECORD_SIZE;
+        LONGS.setOpaque(ring, base + VERSION, 2 * next + 1);
+        VarHandle.storeStoreFence();
+        return base;
+    }
+
+    private void commit(int base, long timestamp) {
+        ring.putLong(base + TIMESTAMP, timestamp);
+        LONGS.setRelease(ring, base + VERSION, 2 * next + 2);
+        next++;
+        PUBLISHED.setRelease(this, next);
+    }
+
+    /**
+     * Records the hands of a blackjack model as they are settled. A hand
+     * resumed from a snapshot isn't recorded, since its deal was never seen.
+     * The model's events must be delivered on the writer thread.
+     */
+    public void attach(BlackjackModel model) {
+        model.getEvents().subscribe(GameEvent.class, new Subscriber<GameEvent>() {
+            private final Hand player = new Hand();
+            private final Hand dealer = new Hand();
+            private boolean restored;
+
+            @Override
+            public void onEvents(List<GameEvent> events) {
+                for (GameEvent event : events) {
+                    if (event instanceof GameStarted) {
+                        player.clear();
+                        dealer.clear();
+                        restored = false;
+                    } else if (event instanceof GameRestored) {
+                        restored = true;
+                    } else if (restored) {
+                        continue;
+                    } else if (event instanceof CardDealt dealt) {
+                        (dealt.target() == Target.DEALER ? dealer : player).add(dealt.card());
+                    } else if (event instanceof HandResolved resolved) {
+                        append(player, dealer, Outcome.of(resolved.result()), System.currentTimeMillis());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Records every resolved guess of a Higher/Lower model. The model's events
+     * must be delivered on the writer thread.
+     */
+    public void attach(HigherLowerModel model, GameMode mode) {
+        model.getEvents().subscribe(GuessResolved.class, events -> {
+            for (GuessResolved resolved : events) {
+                append(mode, resolved.guess(), resolved.previousCard().getCode(), resolved.nextCard().getCode(),
+                        Outcome.of(resolved.result()), System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Gets the number of hands ever appended, including overwritten ones.
+     */
+    public long getAppended() {
+        return (long) PUBLISHED.getAcquire(this);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the off-heap memory held by the ring, in bytes.
+     */
+    public long getMemoryBytes() {
+        return (long) capacity * RECORD_SIZE;
+    }
+
+    /**
+     * Opens a cursor at the oldest hand still held.
+     */
+    public Cursor cursor() {
+        Cursor cursor = new Cursor();
+        cursor.seek(Math.max(getAppended() - capacity, 0));
+        return cursor;
+    }
+
+    /**
+     * Reads hands in the order they were appended. A cursor copies each record
+     * into its own scratch space and checks the copy against the record's
+     * version, so the accessors stay valid until the next call to
+     * {@link #next()}. If the writer laps the cursor, the overwritten hands are
+     * skipped and counted in {@link #getMissed()}.
+     *
+     * A cursor is used by one thread; open one per reading thread.
+     */
+    public final class Cursor {
+        private final byte[] record = new byte[RECORD_SIZE];
+        private final ByteBuffer view = ByteBuffer.wrap(record).order(ByteOrder.nativeOrder());
+        private long position;
+        private long sequence = -1;
+        private long missed;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the hand with the given sequence number; the next call to
+         * {@link #next()} reads it.
+         */
+        public void seek(long sequence) {
+            if (sequence < 0) {
+                throw new IllegalArgumentException("Sequence cannot be negative: " + sequence);
+            }
+            position = sequence;
+        }
+
+        /**
+         * Reads the next hand.
+         *
+         * @return false if the cursor has caught up with the writer
+         */
+        public boolean next() {
+            while (true) {
+                long appended = getAppended();
+                if (position >= appended) {
+                    return false;
+                }
+                if (appended - position > capacity) {
+                    missed += appended - capacity - position;
+                    position = appended - capacity;
+                }
+                int base = (int) (position & mask) * RECORD_SIZE;
+                long expected = 2 * position + 2;
+                long before = (long) LONGS.getAcquire(ring, base + VERSION);
+                ring.get(base, record);
+                VarHandle.loadLoadFence();
+                long after = (long) LONGS.getOpaque(ring, base + VERSION);
+                if (before == expected && after == expected) {
+                    sequence = position++;
+                    return true;
+                }
+                // Overwritten while we read it; the lap check above skips ahead
+                missed++;
+                position++;
+            }
+        }
+
+        /** Gets the number of hands the writer overwrote before this cursor read them. */
+        public long getMissed() { return missed; }
+
+        /** Gets the sequence number of the current hand, counted from the first one appended. */
+        public long getSequence() { return sequence; }
+
+        public long getTimestamp() { return view.getLong(TIMESTAMP); }
+        public GameMode getMode() { return MODES[record[MODE]]; }
+        public Outcome getOutcome() { return OUTCOMES[record[OUTCOME]]; }
+        public int getPlayerTotal() { return record[PLAYER_TOTAL]; }
+        public int getDealerTotal() { return record[DEALER_TOTAL]; }
+        public int getPlayerCardCount() { return record[PLAYER_COUNT]; }
+        public int getDealerCardCount() { return record[DEALER_COUNT]; }
+        public int getFlags() { return record[FLAGS]; }
+
+        /**
+         * Gets the code of one of the player's cards; only the first
+         * {@link #MAX_STORED_CARDS} are stored.
+         */
+        public int getPlayerCard(int index) {
+            return record[PLAYER_CARDS + storedIndex(index, getPlayerCardCount())];
+        }
+
+        /**
+         * Gets the code of one of the dealer's cards; only the first
+         * {@link #MAX_STORED_CARDS} are stored.
+         */
+        public int getDealerCard(int index) {
+            return record[DEALER_CARDS + storedIndex(index, getDealerCardCount())];
+        }
+
+        private int storedIndex(int index, int count) {
+            if (index < 0 || index >= Math.min(count, MAX_STORED_CARDS)) {
+                throw new IndexOutOfBoundsException("Card " + index + " is not stored for a hand of " + count);
+            }
+            return index;
+        }
+    }
+}
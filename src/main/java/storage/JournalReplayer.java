@@ -0,0 +1,505 @@
+package storage;
+
+import model.BlackjackModel;
+import model.Card;
+import model.Deck;
+import model.GameEvent;
+import model.HigherLowerModel;
+import model.RandomFactory;
+import model.Shoe;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Replays a {@link GameJournal} headlessly against fresh models.
+ *
+ * Each journaled game is dealt again from its recorded cards, through a
+ * {@link RecordedOrders} source on the model's deck or shoe, and every
+ * recorded action is repeated. After each action the replayed model has to
+ * show the same cards, results, scores and hand values as the journal; the
+ * first difference stops the replay and is reported with the offset of the
+ * record it was found at. A journal written by the current models replays
+ * cleanly, so a divergence points either at a model change or at the game
+ * being investigated.
+ *
+ * High scores are not compared, since the replayed models start without the
+ * high scores the original ones were given. A game resumed from a snapshot
+ * is replayed by restoring the journaled snapshot and going on from there.
+ */
+public class JournalReplayer {
+
+    /**
+     * The first point where the replayed model disagreed with the journal.
+     *
+     * @param game   1-based number of the game in the journal
+     * @param offset file offset of the record being checked
+     */
+    public record Divergence(long game, int stream, long offset, String expected, String actual) {
+        @Override
+        public String toString() {
+            return String.format("game %,d (stream %d) at offset %,d: expected %s but the model has %s",
+                    game, stream, offset, expected, actual);
+        }
+    }
+
+    /**
+     * Totals of a replay; {@code divergence} is null when every game matched.
+     *
+     * @param unfinished games still in progress at the end of the journal,
+     *                   which are not replayed
+     * @param truncated  whether the journal ended partway through a record
+     */
+    public record Report(long games, long actions, long cards, long unfinished, boolean truncated,
+                         Divergence divergence) {
+        public boolean isConsistent() {
+            return divergence == null;
+        }
+
+        @Override
+        public String toString() {
+            String totals = String.format("%,d games, %,d actions, %,d cards, %,d unfinished%s",
+                    games, actions, cards, unfinished, truncated ? " (journal ends in a torn record)" : "");
+            return divergence == null ? totals + ": all consistent" : totals + ": diverged in " + divergence;
+        }
+    }
+
+    private final List<Stream> streams = new ArrayList<>();
+    private long games;
+    private long actions;
+    private long cards;
+    private long unfinished;
+    private Divergence divergence;
+
+    private JournalReplayer() {
+    }
+
+    /**
+     * Replays a journal file.
+     */
+    public static Report replay(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Replays a journal held in a buffer, from its position to its limit.
+     *
+     * @throws IllegalArgumentException if the buffer doesn't start with a journal header
+     */
+    public static Report replay(ByteBuffer journal) {
+        ByteBuffer in = journal.duplicate();
+        if (in.remaining() < GameJournal.HEADER_SIZE
+                || in.getInt() != GameJournal.FILE_MAGIC || in.getInt() != GameJournal.FILE_VERSION) {
+            throw new IllegalArgumentException("Not a game journal");
+        }
+        return new JournalReplayer().run(in);
+    }
+
+    private Report run(ByteBuffer in) {
+        boolean truncated = false;
+        Stream current = null;
+        while (in.hasRemaining() && divergence == null) {
+            long offset = in.position();
+            try {
+                int tag = in.get() & 0xFF;
+                int kind = tag & 0xF;
+                int argument = tag >>> 4;
+                switch (kind) {
+                    case GameJournal.SESSION -> {
+                        getVarint(in);
+                        finishAll();
+                        streams.clear();
+                        current = stream(0);
+                    }
+                    case GameJournal.STREAM -> current = stream(getVarint(in));
+                    case GameJournal.GAME -> {
+                        int numDecks = (int) getVarint(in);
+                        getVarint(in);
+                        if (current == null) {
+                            current = stream(0);
+                        }
+                        finish(current);
+                        current.begin(offset, argument, numDecks);
+                    }
+                    case GameJournal.RESTORE -> {
+                        int numDecks = (int) getVarint(in);
+                        long length = getVarint(in);
+                        if (length > in.remaining()) {
+                            throw new BufferUnderflowException();
+                        }
+                        byte[] snapshot = new byte[(int) length];
+                        in.get(snapshot);
+                        if (current == null) {
+                            current = stream(0);
+                        }
+                        finish(current);
+                        current.begin(offset, argument, numDecks);
+                        current.restore(snapshot);
+                    }
+                    case GameJournal.CARD -> {
+                        byte code = in.get();
+                        if (current != null) {
+                            current.add(offset, kind, argument, code, 0);
+                            current.deal(code);
+                        }
+                    }
+                    case GameJournal.GAME_OVER -> {
+                        int score = (int) getVarint(in);
+                        int streak = (int) getVarint(in);
+                        getVarint(in);
+                        if (current != null) {
+                            current.add(offset, kind, argument, score, streak);
+                        }
+                    }
+                    case GameJournal.HAND_RESOLVED -> {
+                        int playerValue = (int) getVarint(in);
+                        int dealerValue = (int) getVarint(in);
+                        if (current != null) {
+                            current.add(offset, kind, argument, playerValue, dealerValue);
+                        }
+                    }
+                    case GameJournal.GUESS, GameJournal.GUESS_RESULT, GameJournal.HIT, GameJournal.STAND -> {
+                        if (current != null) {
+                            current.add(offset, kind, argument, 0, 0);
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown journal record " + kind
+                            + " at offset " + offset);
+                }
+            } catch (BufferUnderflowException e) {
+                truncated = true;
+                break;
+            }
+        }
+        finishAll();
+        return new Report(games, actions, cards, unfinished, truncated, divergence);
+    }
+
+    private Stream stream(long number) {
+        if (number < 0 || number > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal stream number out of range: " + number);
+        }
+        while (streams.size() <= number) {
+            streams.add(new Stream(streams.size()));
+        }
+        return streams.get((int) number);
+    }
+
+    /**
+     * Replays the last game of every stream at the end of a session. A last
+     * game without an outcome may have been cut short by a crash, so it is
+     * counted as unfinished instead.
+     */
+    private void finishAll() {
+        for (Stream stream : streams) {
+            if (stream.mode != null && !stream.resolved) {
+                unfinished++;
+                stream.mode = null;
+            }
+            finish(stream);
+        }
+    }
+
+    private void finish(Stream stream) {
+        if (divergence == null && stream.mode != null) {
+            games++;
+            stream.replay();
+        }
+        stream.mode = null;
+    }
+
+    static long getVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint ending at offset " + in.position());
+    }
+
+    /**
+     * The game being collected for one stream, and the models it is
+     * replayed on. Records are held as parallel arrays until the game ends,
+     * since its cards have to be known before it can be dealt again.
+     */
+    private final class Stream {
+        private final int number;
+        private GameMode mode;
+        private long gameOffset;
+        private int numDecks;
+        private boolean resolved;
+
+        private int size;
+        private long[] offsets = new long[64];
+        private int[] kinds = new int[64];
+        private int[] arguments = new int[64];
+        private int[] values = new int[2 * 64];
+        private byte[] dealt = new byte[64];
+        private int dealtCount;
+        private boolean restored;
+
+        private HigherLowerModel higherLower;
+        private GameMode higherLowerMode;
+        private RecordedOrders higherLowerOrders;
+        private BlackjackModel blackjack;
+        private RecordedOrders blackjackOrders;
+
+        Stream(int number) {
+            this.number = number;
+        }
+
+        void begin(long offset, int modeIndex, int decks) {
+            if (modeIndex >= GameMode.values().length) {
+                throw new IllegalArgumentException("Unknown game mode " + modeIndex + " at offset " + offset);
+            }
+            mode = GameMode.values()[modeIndex];
+            gameOffset = offset;
+            numDecks = decks;
+            size = 0;
+            dealtCount = 0;
+            resolved = false;
+            restored = false;
+        }
+
+        /**
+         * Resumes the replayed model from a journaled snapshot, so the rest
+         * of the game is replayed from the same point. The model is restored
+         * straight away, since the stream's previous game has already been
+         * replayed and a game that was over when saved has no outcome record
+         * to mark it finished.
+         */
+        void restore(byte[] snapshot) {
+            try {
+                if (mode == GameMode.BLACKJACK) {
+                    BlackjackModel model = blackjackModel();
+                    if (model == null) {
+                        return;
+                    }
+                    model.restore(snapshot);
+                    resolved = model.isGameOver();
+                } else {
+                    HigherLowerModel model = higherLowerModel();
+                    model.restore(snapshot);
+                    resolved = model.isGameOver();
+                }
+                restored = true;
+            } catch (IllegalArgumentException e) {
+                diverge(gameOffset, "a snapshot the model can restore", e.getMessage());
+                mode = null;
+            }
+        }
+
+        void add(long offset, int kind, int argument, int a, int b) {
+            if (mode == null) {
+                return; // the model was attached in the middle of a game
+            }
+            if (size == kinds.length) {
+                offsets = Arrays.copyOf(offsets, 2 * size);
+                kinds = Arrays.copyOf(kinds, 2 * size);
+                arguments = Arrays.copyOf(arguments, 2 * size);
+                values = Arrays.copyOf(values, 4 * size);
+            }
+            offsets[size] = offset;
+            kinds[size] = kind;
+            arguments[size] = argument;
+            values[2 * size] = a;
+            values[2 * size + 1] = b;
+            size++;
+            resolved |= kind == GameJournal.GAME_OVER || kind == GameJournal.HAND_RESOLVED;
+        }
+
+        void deal(byte code) {
+            if (mode == null) {
+                return;
+            }
+            if (dealtCount == dealt.length) {
+                dealt = Arrays.copyOf(dealt, 2 * dealtCount);
+            }
+            dealt[dealtCount++] = code;
+        }
+
+        void replay() {
+            cards += dealtCount;
+            if (mode == GameMode.BLACKJACK) {
+                replayBlackjack();
+            } else {
+                replayHigherLower();
+            }
+        }
+
+        private boolean load(RecordedOrders orders) {
+            try {
+                orders.load(dealt, dealtCount);
+                return true;
+            } catch (IllegalArgumentException e) {
+                diverge(gameOffset, "cards from a single deck or shoe", e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * Gets the Higher/Lower model for the current game's mode, creating
+         * it if the mode changed.
+         */
+        private HigherLowerModel higherLowerModel() {
+            if (higherLower == null || higherLowerMode != mode) {
+                boolean jokers = mode == GameMode.HIGHER_LOWER_JOKERS;
+                Deck deck = new Deck(jokers, RandomFactory.seeded(0).newGenerator());
+                higherLowerOrders = new RecordedOrders(deck.totalCards(), 1);
+                deck.setOrderSource(higherLowerOrders);
+                higherLower = new HigherLowerModel(deck);
+                higherLowerMode = mode;
+            }
+            return higherLower;
+        }
+
+        private void replayHigherLower() {
+            HigherLowerModel model = higherLowerModel();
+            if (!restored) {
+                if (!load(higherLowerOrders)) {
+                    return;
+                }
+                model.startNewGame();
+            }
+            for (int i = 0; i < size && divergence == null; i++) {
+                int argument = arguments[i];
+                switch (kinds[i]) {
+                    case GameJournal.CARD -> {
+                        Card card = model.getCurrentCard();
+                        check(i, Card.fromCode(values[2 * i]), card);
+                    }
+                    case GameJournal.GUESS -> {
+                        model.makeGuess(HigherLowerModel.Guess.values()[argument & 1]);
+                        actions++;
+                    }
+                    case GameJournal.GUESS_RESULT -> check(i, result(argument), model.getLastResult());
+                    case GameJournal.GAME_OVER -> {
+                        check(i, "game over", model.isGameOver() ? "game over" : "game in progress");
+                        check(i, result(argument), model.getLastResult());
+                        check(i, "score " + values[2 * i], "score " + model.getScore());
+                        check(i, "streak " + values[2 * i + 1], "streak " + model.getStreak());
+                    }
+                    default -> diverge(offsets[i], "a Higher/Lower record", "record kind " + kinds[i]);
+                }
+            }
+        }
+
+        private HigherLowerModel.Result result(int argument) {
+            HigherLowerModel.Result[] results = HigherLowerModel.Result.values();
+            return argument < results.length ? results[argument] : null;
+        }
+
+        /**
+         * Gets the blackjack model for the current game's shoe size, creating
+         * it if the size changed.
+         *
+         * @return null, after reporting a divergence, if the size is invalid
+         */
+        private BlackjackModel blackjackModel() {
+            if (blackjack == null || blackjack.getShoe().getNumDecks() != numDecks) {
+                if (numDecks < Shoe.MIN_DECKS || numDecks > Shoe.MAX_DECKS) {
+                    diverge(gameOffset, "a shoe of " + Shoe.MIN_DECKS + " to " + Shoe.MAX_DECKS + " decks",
+                            numDecks + " decks");
+                    return null;
+                }
+                Shoe shoe = new Shoe(numDecks, 0.0, RandomFactory.seeded(0).newGenerator());
+                blackjackOrders = new RecordedOrders(Card.STANDARD_CARD_COUNT, numDecks);
+                shoe.setOrderSource(blackjackOrders);
+                blackjack = new BlackjackModel(shoe);
+            }
+            return blackjack;
+        }
+
+        private void replayBlackjack() {
+            BlackjackModel model = blackjackModel();
+            if (model == null) {
+                return;
+            }
+            if (!restored) {
+                if (!load(blackjackOrders)) {
+                    return;
+                }
+                model.startNewGame();
+            }
+            // A restored hand already holds the cards dealt before it was saved
+            int playerCards = restored ? model.getPlayerHand().size() : 0;
+            int dealerCards = restored ? model.getDealerHand().size() : 0;
+            for (int i = 0; i < size && divergence == null; i++) {
+                int argument = arguments[i];
+                switch (kinds[i]) {
+                    case GameJournal.CARD -> {
+                        boolean dealer = (argument & 3) == GameEvent.Target.DEALER.ordinal();
+                        List<Card> hand = dealer ? model.getDealerHand() : model.getPlayerHand();
+                        int index = dealer ? dealerCards++ : playerCards++;
+                        check(i, Card.fromCode(values[2 * i]), index < hand.size() ? hand.get(index) : "no card");
+                    }
+                    case GameJournal.HIT -> {
+                        model.hit();
+                        actions++;
+                    }
+                    case GameJournal.STAND -> {
+                        model.stand();
+                        actions++;
+                    }
+                    case GameJournal.HAND_RESOLVED -> {
+                        BlackjackModel.GameResult[] results = BlackjackModel.GameResult.values();
+                        check(i, argument < results.length ? results[argument] : null, model.getResult());
+                        check(i, "player on " + values[2 * i], "player on " + model.getPlayerValue());
+                        check(i, "dealer on " + values[2 * i + 1], "dealer on " + model.getDealerValue());
+                    }
+                    default -> diverge(offsets[i], "a blackjack record", "record kind " + kinds[i]);
+                }
+            }
+            if (divergence == null) {
+                long end = size == 0 ? gameOffset : offsets[size - 1];
+                if (model.getPlayerHand().size() > playerCards) {
+                    diverge(end, playerCards + " player cards", model.getPlayerHand().size() + " player cards");
+                } else if (model.getDealerHand().size() > dealerCards) {
+                    diverge(end, dealerCards + " dealer cards", model.getDealerHand().size() + " dealer cards");
+                }
+            }
+        }
+
+        private void check(int record, Object expected, Object actual) {
+            if (divergence == null && !Objects.equals(expected, actual)) {
+                diverge(offsets[record], String.valueOf(expected), String.valueOf(actual));
+            }
+        }
+
+        private void diverge(long offset, String expected, String actual) {
+            divergence = new Divergence(games, number, offset, expected, actual);
+        }
+    }
+
+    /**
+     * Replays a journal and prints the report.
+     * Usage: {@code JournalReplayer <journal>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JournalReplayer <journal>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        Report report = replay(Path.of(args[0]));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(report);
+        System.out.printf("Replayed in %.2f s (%,.0f actions/s)%n", seconds, report.actions() / seconds);
+        if (!report.isConsistent()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package storage;
+
+/**
+ * Running totals for one game mode.
+ */
+public record ModeStatistics(long games, long wins, long losses, long pushes, int highScore, int bestStreak) {
+
+    public static final ModeStatistics EMPTY = new ModeStatistics(0, 0, 0, 0, 0, 0);
+
+    /**
+     * Gets the totals with one more game added.
+     */
+    public ModeStatistics plus(Outcome outcome, int score, int streak) {
+        return new ModeStatistics(games + 1,
+                wins + (outcome == Outcome.WIN ? 1 : 0),
+                losses + (outcome == Outcome.LOSE ? 1 : 0),
+                pushes + (outcome == Outcome.PUSH ? 1 : 0),
+                Math.max(highScore, score),
+                Math.max(bestStreak, streak));
+    }
+}
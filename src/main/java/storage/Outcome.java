@@ -0,0 +1,29 @@
+package storage;
+
+import model.BlackjackModel.GameResult;
+import model.HigherLowerModel.Result;
+
+/**
+ * How a recorded game ended, from the player's point of view. A Higher/Lower
+ * game is won by getting through the whole deck.
+ */
+public enum Outcome {
+    WIN, LOSE, PUSH;
+
+    public static Outcome of(GameResult result) {
+        return switch (result) {
+            case WIN -> WIN;
+            case LOSE -> LOSE;
+            case PUSH -> PUSH;
+            case IN_PROGRESS -> throw new IllegalArgumentException("Game is still in progress");
+        };
+    }
+
+    public static Outcome of(Result result) {
+        return switch (result) {
+            case CORRECT -> WIN;
+            case WRONG -> LOSE;
+            case PUSH -> PUSH;
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package storage;
+
+import model.OrderSource;
+
+import java.util.Arrays;
+
+/**
+ * Deals a journaled game again: each order starts with the cards the game
+ * dealt, in the same order, followed by the rest of the deck or shoe. The
+ * undealt rest never reaches the player unless the replayed model deals more
+ * cards than the original did, which the replayer reports as a divergence.
+ */
+final class RecordedOrders implements OrderSource {
+
+    private final int codes;
+    private final int copies;
+    private final int[] used;
+    private byte[] dealt = new byte[0];
+    private int dealtCount;
+
+    /**
+     * @param codes  number of distinct card codes, starting from 0
+     * @param copies copies of each code (the number of decks in a shoe)
+     */
+    RecordedOrders(int codes, int copies) {
+        this.codes = codes;
+        this.copies = copies;
+        this.used = new int[codes];
+    }
+
+    /**
+     * Sets the cards the next order starts with.
+     *
+     * @throws IllegalArgumentException if they couldn't all come from one deck or shoe
+     */
+    void load(byte[] dealt, int count) {
+        Arrays.fill(used, 0);
+        for (int i = 0; i < count; i++) {
+            int code = dealt[i];
+            if (code < 0 || code >= codes) {
+                throw new IllegalArgumentException("Card code " + code + " is not in the deck");
+            }
+            if (++used[code] > copies) {
+                throw new IllegalArgumentException("Card code " + code + " was dealt more than "
+                        + copies + (copies == 1 ? " time" : " times"));
+            }
+        }
+        this.dealt = dealt;
+        this.dealtCount = count;
+    }
+
+    @Override
+    public int getCardCount() {
+        return codes * copies;
+    }
+
+    @Override
+    public byte[] exchange(byte[] spentOrder) {
+        System.arraycopy(dealt, 0, spentOrder, 0, dealtCount);
+        int position = dealtCount;
+        for (int code = 0; code < codes; code++) {
+            for (int n = used[code]; n < copies; n++) {
+                spentOrder[position++] = (byte) code;
+            }
+        }
+        return spentOrder;
+    }
+}
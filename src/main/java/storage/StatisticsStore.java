@@ -0,0 +1,332 @@
+package storage;
+
+import model.BlackjackModel;
+import model.EventBus.Subscriber;
+import model.GameEvent;
+import model.GameEvent.GameOver;
+import model.GameEvent.HandResolved;
+import model.GameEvent.ScoreChanged;
+import model.HigherLowerModel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent game statistics and high scores, kept in a memory-mapped file.
+ *
+ * The file holds a header, two summary slots and an append-only log of
+ * fixed-size game records. Every record carries a sequence number and a CRC.
+ * Once the log is full, or {@link #COMPACT_INTERVAL_MILLIS} after the last
+ * compaction if anything has been logged since, the totals are compacted into
+ * the older summary slot with a higher generation, and the log starts over
+ * from the top. On open, the newest valid summary is read and only the records
+ * logged after it are replayed, so startup time doesn't grow with history.
+ *
+ * {@link #record} never blocks: the game goes onto a bounded queue for a
+ * background writer thread, and is dropped (and counted) if the queue is
+ * full. The in-memory totals are updated straight away. Records reach the
+ * page cache as soon as they are written, so they survive a crash of the
+ * process; they are forced to disk on compaction, so a power loss costs at
+ * most the games of the last interval.
+ */
+public class StatisticsStore implements AutoCloseable {
+
+    private static final int FILE_MAGIC = 0x53544154; // "STAT"
+    private static final int FILE_VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MODES = GameMode.values().length;
+    private static final int MODE_SIZE = 4 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int SLOT_SIZE = 256;
+    private static final int RECORD_SIZE = 32;
+    private static final int LOG_CAPACITY = 4096;
+    private static final int LOG_OFFSET = HEADER_SIZE + 2 * SLOT_SIZE;
+    private static final int FILE_SIZE = LOG_OFFSET + LOG_CAPACITY * RECORD_SIZE;
+
+    private static final int QUEUE_CAPACITY = 1 << 14;
+
+    /** How long logged games may wait before they are compacted and forced to disk. */
+    public static final long COMPACT_INTERVAL_MILLIS = 30_000;
+
+    /** A game waiting for the writer. */
+    private record Entry(GameMode mode, Outcome outcome, int score, int streak, long timestamp) {}
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private final AtomicReferenceArray<ModeStatistics> statistics = new AtomicReferenceArray<>(MODES);
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Owned by the writer thread after open
+    private final ModeStatistics[] persisted = new ModeStatistics[MODES];
+    private long generation;
+    private long sequence;
+    private int logIndex;
+    private long lastCompaction = System.nanoTime();
+
+    private StatisticsStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        boolean fresh = channel.size() == 0;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        if (fresh) {
+            buffer.putInt(0, FILE_MAGIC);
+            buffer.putInt(4, FILE_VERSION);
+        } else if (buffer.getInt(0) != FILE_MAGIC || buffer.getInt(4) != FILE_VERSION) {
+            throw new IOException("Not a statistics file");
+        }
+        recover();
+        for (int i = 0; i < MODES; i++) {
+            statistics.set(i, persisted[i]);
+        }
+
+        this.writer = new Thread(this::write, "statistics-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Opens the store, creating the file if it doesn't exist.
+     */
+    public static StatisticsStore open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new StatisticsStore(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Records a finished game. Never blocks.
+     *
+     * @return false if the writer is too far behind and the game was dropped
+     */
+    public boolean record(GameMode mode, Outcome outcome, int score, int streak) {
+        if (closed || !queue.offer(new Entry(mode, outcome, score, streak, System.currentTimeMillis()))) {
+            dropped.increment();
+            return false;
+        }
+        statistics.getAndUpdate(mode.ordinal(), current -> current.plus(outcome, score, streak));
+        return true;
+    }
+
+    public ModeStatistics getStatistics(GameMode mode) {
+        return statistics.get(mode.ordinal());
+    }
+
+    /**
+     * Gets the number of games dropped because the queue was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Records every finished game of a Higher/Lower model.
+     */
+    public void attach(HigherLowerModel model, GameMode mode) {
+        model.getEvents().subscribe(GameEvent.class, new Subscriber<GameEvent>() {
+            private int score;
+            private int streak;
+
+            @Override
+            public void onEvents(List<GameEvent> events) {
+                for (GameEvent event : events) {
+                    if (event instanceof ScoreChanged scores) {
+                        score = scores.score();
+                        streak = scores.streak();
+                    } else if (event instanceof GameOver over) {
+                        record(mode, Outcome.of(over.result()), score, streak);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Records every finished hand of a blackjack model. The streak is the
+     * number of hands won in a row; pushes don't break it.
+     *
+     * The application doesn't call this yet: its blackjack screen has no
+     * model or controller behind it, so there are no hands to record.
+     */
+    public void attach(BlackjackModel model) {
+        model.getEvents().subscribe(HandResolved.class, new Subscriber<HandResolved>() {
+            private int streak;
+
+            @Override
+            public void onEvents(List<HandResolved> events) {
+                for (HandResolved resolved : events) {
+                    Outcome outcome = Outcome.of(resolved.result());
+                    if (outcome == Outcome.WIN) {
+                        streak++;
+                    } else if (outcome == Outcome.LOSE) {
+                        streak = 0;
+                    }
+                    record(GameMode.BLACKJACK, outcome, 0, streak);
+                }
+            }
+        });
+    }
+
+    private void recover() {
+        generation = -1;
+        int newest = -1;
+        for (int slot = 0; slot < 2; slot++) {
+            int offset = HEADER_SIZE + slot * SLOT_SIZE;
+            int length = Long.BYTES * 2 + MODES * MODE_SIZE;
+            if (buffer.getInt(offset + length) == checksum(offset, length)) {
+                long slotGeneration = buffer.getLong(offset);
+                if (slotGeneration > generation) {
+                    generation = slotGeneration;
+                    newest = slot;
+                }
+            }
+        }
+
+        if (newest < 0) {
+            generation = 0;
+            sequence = 0;
+            for (int i = 0; i < MODES; i++) {
+                persisted[i] = ModeStatistics.EMPTY;
+            }
+        } else {
+            int offset = HEADER_SIZE + newest * SLOT_SIZE;
+            sequence = buffer.getLong(offset + Long.BYTES);
+            for (int i = 0; i < MODES; i++) {
+                int mode = offset + 2 * Long.BYTES + i * MODE_SIZE;
+                persisted[i] = new ModeStatistics(buffer.getLong(mode), buffer.getLong(mode + 8),
+                        buffer.getLong(mode + 16), buffer.getLong(mode + 24),
+                        buffer.getInt(mode + 32), buffer.getInt(mode + 36));
+            }
+        }
+
+        // Replay the records logged since the summary, up to the first stale or torn one
+        logIndex = 0;
+        while (logIndex < LOG_CAPACITY) {
+            int offset = LOG_OFFSET + logIndex * RECORD_SIZE;
+            if (buffer.getLong(offset) != sequence + 1
+                    || buffer.getInt(offset + RECORD_SIZE - Integer.BYTES) != checksum(offset, RECORD_SIZE - Integer.BYTES)) {
+                break;
+            }
+            int mode = buffer.get(offset + 16);
+            Outcome outcome = Outcome.values()[buffer.get(offset + 17)];
+            persisted[mode] = persisted[mode].plus(outcome, buffer.getInt(offset + 20), buffer.getInt(offset + 24));
+            sequence++;
+            logIndex++;
+        }
+    }
+
+    private void write() {
+        List<Entry> batch = new ArrayList<>();
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    for (Entry entry : batch) {
+                        append(entry);
+                    }
+                    batch.clear();
+                }
+                if (logIndex > 0 && System.nanoTime() - lastCompaction
+                        >= TimeUnit.MILLISECONDS.toNanos(COMPACT_INTERVAL_MILLIS)) {
+                    compact();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(Entry entry) {
+        if (logIndex == LOG_CAPACITY) {
+            compact();
+        }
+        int offset = LOG_OFFSET + logIndex * RECORD_SIZE;
+        buffer.putLong(offset, sequence + 1);
+        buffer.putLong(offset + 8, entry.timestamp());
+        buffer.put(offset + 16, (byte) entry.mode().ordinal());
+        buffer.put(offset + 17, (byte) entry.outcome().ordinal());
+        buffer.putShort(offset + 18, (short) 0);
+        buffer.putInt(offset + 20, entry.score());
+        buffer.putInt(offset + 24, entry.streak());
+        buffer.putInt(offset + RECORD_SIZE - Integer.BYTES, checksum(offset, RECORD_SIZE - Integer.BYTES));
+        sequence++;
+        logIndex++;
+
+        int mode = entry.mode().ordinal();
+        persisted[mode] = persisted[mode].plus(entry.outcome(), entry.score(), entry.streak());
+    }
+
+    /**
+     * Writes the totals to the older summary slot and starts the log over.
+     */
+    private void compact() {
+        generation++;
+        int offset = HEADER_SIZE + (int) (generation & 1) * SLOT_SIZE;
+        buffer.putLong(offset, generation);
+        buffer.putLong(offset + Long.BYTES, sequence);
+        for (int i = 0; i < MODES; i++) {
+            int mode = offset + 2 * Long.BYTES + i * MODE_SIZE;
+            ModeStatistics totals = persisted[i];
+            buffer.putLong(mode, totals.games());
+            buffer.putLong(mode + 8, totals.wins());
+            buffer.putLong(mode + 16, totals.losses());
+            buffer.putLong(mode + 24, totals.pushes());
+            buffer.putInt(mode + 32, totals.highScore());
+            buffer.putInt(mode + 36, totals.bestStreak());
+        }
+        int length = Long.BYTES * 2 + MODES * MODE_SIZE;
+        buffer.putInt(offset + length, checksum(offset, length));
+        buffer.force();
+        logIndex = 0;
+        lastCompaction = System.nanoTime();
+    }
+
+    private int checksum(int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes out every queued game, compacts the log and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compact();
+        channel.close();
+    }
+}
@@ -0,0 +1,20 @@
+package strategy;
+
+import model.HigherLowerModel;
+import model.HigherLowerModel.Guess;
+
+/**
+ * Naive Higher/Lower strategy that always guesses higher.
+ */
+public class AlwaysHigherStrategy implements HigherLowerStrategy {
+
+    @Override
+    public String getName() {
+        return "always-higher";
+    }
+
+    @Override
+    public Guess chooseGuess(HigherLowerModel model) {
+        return Guess.HIGHER;
+    }
+}
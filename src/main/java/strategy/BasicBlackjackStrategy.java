@@ -0,0 +1,29 @@
+package strategy;
+
+import model.BlackjackModel;
+import model.Hand;
+
+/**
+ * Blackjack basic strategy for hit or stand: a fixed table by the player's
+ * total, whether it is soft, and the dealer's upcard.
+ */
+public class BasicBlackjackStrategy implements BlackjackStrategy {
+
+    /** Lowest hard total to stand on, indexed by upcard points (1 = Ace). */
+    private static final int[] HARD_STAND = { 0, 17, 13, 13, 12, 12, 12, 17, 17, 17, 17 };
+
+    /** Lowest soft total to stand on, indexed by upcard points (1 = Ace). */
+    private static final int[] SOFT_STAND = { 0, 19, 18, 18, 18, 18, 18, 18, 18, 19, 19 };
+
+    @Override
+    public String getName() {
+        return "basic";
+    }
+
+    @Override
+    public Action decide(BlackjackModel model) {
+        int upcard = Hand.pointsOf(model.getDealerHand().get(0).getCode());
+        int[] table = model.isPlayerSoft() ? SOFT_STAND : HARD_STAND;
+        return model.getPlayerValue() < table[upcard] ? Action.HIT : Action.STAND;
+    }
+}
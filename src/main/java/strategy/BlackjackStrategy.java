@@ -0,0 +1,37 @@
+package strategy;
+
+import model.BlackjackModel;
+
+/**
+ * Decides whether to hit or stand in a blackjack game in progress.
+ */
+public interface BlackjackStrategy extends Strategy {
+
+    enum Action { HIT, STAND }
+
+    /**
+     * Decides the player's next action. Only called while the game is not
+     * over and the player has not stood.
+     */
+    Action decide(BlackjackModel model);
+
+    /**
+     * Plays a new hand to the end and returns its payoff: 1 for a win, -1
+     * for a loss and 0 for a push.
+     */
+    default int play(BlackjackModel model) {
+        model.startNewGame();
+        while (!model.isGameOver()) {
+            if (decide(model) == Action.HIT) {
+                model.hit();
+            } else {
+                model.stand();
+            }
+        }
+        return switch (model.getResult()) {
+            case WIN -> 1;
+            case LOSE -> -1;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package strategy;
+
+import analysis.BlackjackAdvisor;
+import model.BlackjackModel;
+
+/**
+ * Composition-aware blackjack strategy: takes whichever of hit or stand has
+ * the higher expected value for the unseen cards, see {@link BlackjackAdvisor}.
+ */
+public class CompositionBlackjackStrategy implements BlackjackStrategy {
+
+    private final BlackjackAdvisor advisor;
+
+    public CompositionBlackjackStrategy() {
+        this(new BlackjackAdvisor());
+    }
+
+    public CompositionBlackjackStrategy(BlackjackAdvisor advisor) {
+        this.advisor = advisor;
+    }
+
+    @Override
+    public String getName() {
+        return "composition";
+    }
+
+    @Override
+    public Action decide(BlackjackModel model) {
+        return advisor.advise(model).shouldHit() ? Action.HIT : Action.STAND;
+    }
+}
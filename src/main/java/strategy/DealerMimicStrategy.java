@@ -0,0 +1,20 @@
+package strategy;
+
+import model.BlackjackModel;
+import model.BlackjackRules;
+
+/**
+ * Naive blackjack strategy that plays like the dealer: hit below 17.
+ */
+public class DealerMimicStrategy implements BlackjackStrategy {
+
+    @Override
+    public String getName() {
+        return "mimic-dealer";
+    }
+
+    @Override
+    public Action decide(BlackjackModel model) {
+        return model.getPlayerValue() < BlackjackRules.DEALER_STANDS_ON ? Action.HIT : Action.STAND;
+    }
+}
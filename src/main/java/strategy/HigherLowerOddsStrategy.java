@@ -0,0 +1,21 @@
+package strategy;
+
+import model.HigherLowerModel;
+import model.HigherLowerModel.Guess;
+
+/**
+ * Composition-aware Higher/Lower strategy: guesses whichever way the
+ * remaining cards make more likely, see {@link HigherLowerModel#suggestGuess()}.
+ */
+public class HigherLowerOddsStrategy implements HigherLowerStrategy {
+
+    @Override
+    public String getName() {
+        return "composition";
+    }
+
+    @Override
+    public Guess chooseGuess(HigherLowerModel model) {
+        return model.suggestGuess();
+    }
+}
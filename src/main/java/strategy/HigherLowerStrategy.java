@@ -0,0 +1,26 @@
+package strategy;
+
+import model.HigherLowerModel;
+import model.HigherLowerModel.Guess;
+
+/**
+ * Chooses the guess for a Higher/Lower game in progress.
+ */
+public interface HigherLowerStrategy extends Strategy {
+
+    /**
+     * Chooses the next guess. Only called while the game is not over.
+     */
+    Guess chooseGuess(HigherLowerModel model);
+
+    /**
+     * Plays a new game to the end and returns the final score.
+     */
+    default int play(HigherLowerModel model) {
+        model.startNewGame();
+        while (!model.isGameOver()) {
+            model.makeGuess(chooseGuess(model));
+        }
+        return model.getScore();
+    }
+}
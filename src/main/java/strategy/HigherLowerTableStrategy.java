@@ -0,0 +1,49 @@
+package strategy;
+
+import model.Card;
+import model.HigherLowerModel;
+import model.HigherLowerModel.Guess;
+
+/**
+ * Higher/Lower basic strategy: a fixed guess per card value, picked from
+ * the composition of a full deck and ignoring the cards already dealt.
+ */
+public class HigherLowerTableStrategy implements HigherLowerStrategy {
+
+    private static final Guess[] STANDARD_TABLE = buildTable(false);
+    private static final Guess[] JOKERS_TABLE = buildTable(true);
+
+    private static Guess[] buildTable(boolean includeJokers) {
+        int cardCount = includeJokers ? Card.CARD_COUNT : Card.STANDARD_CARD_COUNT;
+        int[] byValue = new int[Card.valueOf(Card.JOKER_CODE) + 1];
+        for (int code = 0; code < cardCount; code++) {
+            byValue[Card.valueOf(code)]++;
+        }
+
+        Guess[] table = new Guess[byValue.length];
+        for (int value = 0; value < byValue.length; value++) {
+            int above = 0;
+            int below = 0;
+            for (int other = 0; other < byValue.length; other++) {
+                if (other > value) {
+                    above += byValue[other];
+                } else if (other < value) {
+                    below += byValue[other];
+                }
+            }
+            table[value] = above >= below ? Guess.HIGHER : Guess.LOWER;
+        }
+        return table;
+    }
+
+    @Override
+    public String getName() {
+        return "value-table";
+    }
+
+    @Override
+    public Guess chooseGuess(HigherLowerModel model) {
+        Guess[] table = model.hasJokers() ? JOKERS_TABLE : STANDARD_TABLE;
+        return table[model.getCurrentCard().getValue()];
+    }
+}
@@ -0,0 +1,15 @@
+package strategy;
+
+/**
+ * A bot player for one of the games.
+ *
+ * Strategies are shared by every worker thread of a tournament, so
+ * implementations must be stateless or thread-safe.
+ */
+public interface Strategy {
+
+    /**
+     * Gets a short name used to identify the strategy in reports.
+     */
+    String getName();
+}
@@ -2,15 +2,26 @@ package view;
 
 import model.BlackjackModel;
 import model.Card;
+import model.EventBus;
+import model.GameEvent;
+import model.GameEvent.CardDealt;
+import model.GameEvent.DealerRevealed;
+import model.GameEvent.GameRestored;
+import model.GameEvent.GameStarted;
+import model.GameEvent.HandResolved;
+import model.Hand;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * View for the Blackjack card game.
+ * Updates incrementally from the model's typed events, so each action only
+ * touches the cards and labels it changed.
  */
-public class BlackjackView extends JPanel implements BlackjackModel.GameListener {
+public class BlackjackView extends JPanel {
     
     private BlackjackModel model;
     
@@ -27,13 +38,27 @@ public class BlackjackView extends JPanel implements BlackjackModel.GameListener
     private JPanel resultOverlay;
     private JLabel resultLabel;
     
+    // Hands as shown on screen, rebuilt from dealt-card events
+    private final Hand playerHand = new Hand();
+    private final Hand dealerHand = new Hand();
+    private CardPanel holeCardPanel;
+    private boolean dealerRevealed;
+    
     public BlackjackView() {
         setupUI();
     }
     
     public void setModel(BlackjackModel model) {
         this.model = model;
-        this.model.addListener(this);
+        
+        // Subscribers run in registration order, so values refresh last
+        EventBus events = model.getEvents();
+        events.subscribe(GameStarted.class, onEdt(e -> onGameStarted()));
+        events.subscribe(CardDealt.class, onEdt(this::onCardsDealt));
+        events.subscribe(DealerRevealed.class, onEdt(e -> onDealerRevealed()));
+        events.subscribe(HandResolved.class, onEdt(e -> onHandResolved(e.get(e.size() - 1))));
+        events.subscribe(GameRestored.class, onEdt(e -> onGameRestored()));
+        events.subscribe(GameEvent.class, onEdt(e -> updateValues()));
     }
     
     private void setupUI() {
@@ -214,27 +239,36 @@ public class BlackjackView extends JPanel implements BlackjackModel.GameListener
         return overlay;
     }
     
-    private void updateCards() {
+    private void onGameStarted() {
         dealerCardsPanel.removeAll();
         playerCardsPanel.removeAll();
-        
-        if (model == null) return;
-        
-        // Dealer cards
-        List<Card> dealerHand = model.getDealerHand();
-        boolean showAll = model.isGameOver() || model.hasPlayerStood();
-        
-        for (int i = 0; i < dealerHand.size(); i++) {
-            CardPanel cardPanel = new CardPanel(dealerHand.get(i), !showAll && i == 1);
-            cardPanel.setPreferredSize(new Dimension(100, 150));
-            dealerCardsPanel.add(cardPanel);
-        }
-        
-        // Player cards
-        for (Card card : model.getPlayerHand()) {
-            CardPanel cardPanel = new CardPanel(card, false);
+        playerHand.clear();
+        dealerHand.clear();
+        holeCardPanel = null;
+        dealerRevealed = false;
+        
+        hitButton.setEnabled(true);
+        standButton.setEnabled(true);
+        messageLabel.setText("Hit or Stand?");
+        messageLabel.setForeground(StyleUtils.TEXT_COLOR);
+        resultOverlay.setVisible(false);
+    }
+    
+    private void onCardsDealt(List<CardDealt> dealt) {
+        for (CardDealt event : dealt) {
+            CardPanel cardPanel = new CardPanel(event.card(), event.faceDown());
             cardPanel.setPreferredSize(new Dimension(100, 150));
-            playerCardsPanel.add(cardPanel);
+            
+            if (event.target() == GameEvent.Target.DEALER) {
+                dealerHand.add(event.card());
+                dealerCardsPanel.add(cardPanel);
+                if (event.faceDown()) {
+                    holeCardPanel = cardPanel;
+                }
+            } else {
+                playerHand.add(event.card());
+                playerCardsPanel.add(cardPanel);
+            }
         }
         
         dealerCardsPanel.revalidate();
@@ -243,53 +277,68 @@ public class BlackjackView extends JPanel implements BlackjackModel.GameListener
         playerCardsPanel.repaint();
     }
     
-    @Override
-    public void onGameStateChanged() {
-        if (model == null) return;
+    private void onDealerRevealed() {
+        dealerRevealed = true;
+        if (holeCardPanel != null) {
+            holeCardPanel.setFaceDown(false);
+        }
+    }
+    
+    /**
+     * Redraws a hand resumed from a snapshot, which deals nothing, from the
+     * model.
+     */
+    private void onGameRestored() {
+        onGameStarted();
+        BlackjackModel.GameResult result = model.getResult();
+        boolean revealed = model.isGameOver() || model.hasPlayerStood();
+        int remaining = model.getShoe().remainingCards();
+        List<CardDealt> cards = new ArrayList<>();
+        for (Card card : model.getPlayerHand()) {
+            cards.add(new CardDealt(GameEvent.Target.PLAYER, card, false, remaining));
+        }
+        List<Card> dealerCards = model.getDealerHand();
+        for (int i = 0; i < dealerCards.size(); i++) {
+            cards.add(new CardDealt(GameEvent.Target.DEALER, dealerCards.get(i), i == 1 && !revealed, remaining));
+        }
+        onCardsDealt(cards);
+        dealerRevealed = revealed;
+        
+        if (result == null) {
+            hitButton.setEnabled(false);
+            standButton.setEnabled(false);
+            messageLabel.setText("");
+        } else if (model.isGameOver()) {
+            onHandResolved(new HandResolved(result, model.getPlayerValue(), model.getDealerValue(),
+                    model.getResultMessage()));
+        }
+    }
+    
+    private void onHandResolved(HandResolved resolved) {
+        hitButton.setEnabled(false);
+        standButton.setEnabled(false);
+        messageLabel.setText(resolved.message());
+        resultLabel.setText(resolved.message());
+        
+        Color color = switch (resolved.result()) {
+            case WIN -> StyleUtils.SUCCESS_COLOR;
+            case LOSE -> StyleUtils.ACCENT_COLOR;
+            case PUSH -> StyleUtils.SECONDARY_COLOR;
+            default -> StyleUtils.TEXT_COLOR;
+        };
+        messageLabel.setForeground(color);
+        resultLabel.setForeground(color);
         
-        SwingUtilities.invokeLater(() -> {
-            updateCards();
-            
-            // Update values
-            if (model.isGameOver() || model.hasPlayerStood()) {
-                dealerValueLabel.setText("(" + model.getDealerValue() + ")");
-            } else {
-                dealerValueLabel.setText("(?)");
-            }
-            playerValueLabel.setText("(" + model.getPlayerValue() + ")");
-            
-            // Update buttons and message
-            boolean isOver = model.isGameOver();
-            hitButton.setEnabled(!isOver);
-            standButton.setEnabled(!isOver);
-            
-            if (isOver) {
-                messageLabel.setText(model.getResultMessage());
-                resultLabel.setText(model.getResultMessage());
-                
-                switch (model.getResult()) {
-                    case WIN -> {
-                        messageLabel.setForeground(StyleUtils.SUCCESS_COLOR);
-                        resultLabel.setForeground(StyleUtils.SUCCESS_COLOR);
-                    }
-                    case LOSE -> {
-                        messageLabel.setForeground(StyleUtils.ACCENT_COLOR);
-                        resultLabel.setForeground(StyleUtils.ACCENT_COLOR);
-                    }
-                    case PUSH -> {
-                        messageLabel.setForeground(StyleUtils.SECONDARY_COLOR);
-                        resultLabel.setForeground(StyleUtils.SECONDARY_COLOR);
-                    }
-                    default -> messageLabel.setForeground(StyleUtils.TEXT_COLOR);
-                }
-                
-                resultOverlay.setVisible(true);
-            } else {
-                messageLabel.setText("Hit or Stand?");
-                messageLabel.setForeground(StyleUtils.TEXT_COLOR);
-                resultOverlay.setVisible(false);
-            }
-        });
+        resultOverlay.setVisible(true);
+    }
+    
+    private void updateValues() {
+        dealerValueLabel.setText(dealerRevealed ? "(" + dealerHand.value() + ")" : "(?)");
+        playerValueLabel.setText("(" + playerHand.value() + ")");
+    }
+    
+    private static <E extends GameEvent> EventBus.Subscriber<E> onEdt(EventBus.Subscriber<E> subscriber) {
+        return events -> SwingUtilities.invokeLater(() -> subscriber.onEvents(events));
     }
     
     // Getters for controller
@@ -1,16 +1,28 @@
 package view;
 
+import model.EventBus;
+import model.GameEvent;
+import model.GameEvent.CardDealt;
+import model.GameEvent.GameOver;
+import model.GameEvent.GameStarted;
+import model.GameEvent.GuessResolved;
+import model.GameEvent.ScoreChanged;
+import model.GameEvent.TableRestored;
 import model.HigherLowerModel;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
 
 /**
  * View for the Higher/Lower card game.
+ * Updates from the model's typed events, touching only what each event changed.
  */
-public class HigherLowerView extends JPanel implements HigherLowerModel.GameListener {
+public class HigherLowerView extends JPanel {
     
     private HigherLowerModel model;
+    private final EventBus.Subscriber<GameEvent> eventSubscriber =
+            events -> SwingUtilities.invokeLater(() -> onEvents(events));
     
     // UI Components
     private CardPanel currentCardPanel;
@@ -31,10 +43,10 @@ public class HigherLowerView extends JPanel implements HigherLowerModel.GameList
     
     public void setModel(HigherLowerModel model) {
         if (this.model != null) {
-            this.model.removeListener(this);
+            this.model.getEvents().unsubscribe(eventSubscriber);
         }
         this.model = model;
-        this.model.addListener(this);
+        this.model.getEvents().subscribe(GameEvent.class, eventSubscriber);
     }
     
     private void setupUI() {
@@ -218,40 +230,53 @@ public class HigherLowerView extends JPanel implements HigherLowerModel.GameList
         return overlay;
     }
     
-    @Override
-    public void onGameStateChanged() {
-        if (model == null) return;
-        
-        SwingUtilities.invokeLater(() -> {
-            // Update cards
-            currentCardPanel.setCard(model.getCurrentCard());
-            previousCardPanel.setCard(model.getPreviousCard());
-            
-            // Update scores
-            scoreLabel.setText(String.valueOf(model.getScore()));
-            highScoreLabel.setText(String.valueOf(model.getHighScore()));
-            remainingLabel.setText(String.valueOf(model.getRemainingCards()));
-            
-            // Update message
-            messageLabel.setText(model.getLastMessage());
-            
-            // Update message color based on result
-            if (model.getLastResult() != null) {
-                switch (model.getLastResult()) {
-                    case CORRECT -> messageLabel.setForeground(StyleUtils.SUCCESS_COLOR);
-                    case WRONG -> messageLabel.setForeground(StyleUtils.ACCENT_COLOR);
-                    case PUSH -> messageLabel.setForeground(StyleUtils.SECONDARY_COLOR);
-                }
-            } else {
+    private void onEvents(List<GameEvent> events) {
+        for (GameEvent event : events) {
+            if (event instanceof GameStarted) {
+                currentCardPanel.setCard(null);
+                previousCardPanel.setCard(null);
+                messageLabel.setText(HigherLowerModel.FIRST_GUESS_MESSAGE);
                 messageLabel.setForeground(StyleUtils.TEXT_COLOR);
+                higherButton.setEnabled(true);
+                lowerButton.setEnabled(true);
+                gameOverPanel.setVisible(false);
+            } else if (event instanceof TableRestored table) {
+                // A resumed game deals nothing, so redraw it from the event
+                currentCardPanel.setCard(table.currentCard());
+                previousCardPanel.setCard(table.previousCard());
+                remainingLabel.setText(String.valueOf(table.remaining()));
+                messageLabel.setText(table.message());
+                messageLabel.setForeground(table.result() == null ? StyleUtils.TEXT_COLOR
+                        : resultColor(table.result()));
+                higherButton.setEnabled(!table.gameOver());
+                lowerButton.setEnabled(!table.gameOver());
+                gameOverPanel.setVisible(table.gameOver());
+            } else if (event instanceof CardDealt dealt) {
+                previousCardPanel.setCard(currentCardPanel.getCard());
+                currentCardPanel.setCard(dealt.card());
+                remainingLabel.setText(String.valueOf(dealt.remaining()));
+            } else if (event instanceof GuessResolved resolved) {
+                messageLabel.setText(resolved.message());
+                messageLabel.setForeground(resultColor(resolved.result()));
+            } else if (event instanceof ScoreChanged scores) {
+                scoreLabel.setText(String.valueOf(scores.score()));
+                highScoreLabel.setText(String.valueOf(scores.highScore()));
+            } else if (event instanceof GameOver over) {
+                messageLabel.setText(over.message());
+                messageLabel.setForeground(resultColor(over.result()));
+                higherButton.setEnabled(false);
+                lowerButton.setEnabled(false);
+                gameOverPanel.setVisible(true);
             }
-            
-            // Handle game over
-            boolean isOver = model.isGameOver();
-            higherButton.setEnabled(!isOver);
-            lowerButton.setEnabled(!isOver);
-            gameOverPanel.setVisible(isOver);
-        });
+        }
+    }
+    
+    private static Color resultColor(HigherLowerModel.Result result) {
+        return switch (result) {
+            case CORRECT -> StyleUtils.SUCCESS_COLOR;
+            case WRONG -> StyleUtils.ACCENT_COLOR;
+            case PUSH -> StyleUtils.SECONDARY_COLOR;
+        };
     }
     
     // Getters for controller
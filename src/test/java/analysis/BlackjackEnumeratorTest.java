@@ -0,0 +1,84 @@
+package analysis;
+
+import model.BlackjackRules;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlackjackEnumeratorTest {
+
+    private static double totalProbability(BlackjackEnumerator.Result result) {
+        double total = 0.0;
+        for (int up = 1; up <= 10; up++) {
+            for (int first = 1; first <= 10; first++) {
+                for (int second = first; second <= 10; second++) {
+                    total += result.getDealProbability(first, second, up);
+                }
+            }
+        }
+        return total;
+    }
+
+    @Test
+    void dealProbabilitiesSumToOne() {
+        BlackjackEnumerator enumerator = new BlackjackEnumerator();
+        for (int numDecks : new int[] { 1, 2, 8 }) {
+            BlackjackEnumerator.Result result = enumerator.enumerate(numDecks, 17);
+            assertEquals(1.0, totalProbability(result), 1e-12, numDecks + " deck(s)");
+        }
+        BlackjackEnumerator.Result result = enumerator.enumerate(1, 17);
+        // Both orders of the player's cards, so a ten and a six is twice as likely as two tens
+        assertEquals(2 * 16.0 / 52 * 4 / 51 * 4 / 50, result.getDealProbability(10, 6, 5), 1e-15);
+        assertEquals(result.getDealProbability(6, 10, 5), result.getDealProbability(10, 6, 5));
+        assertEquals(16.0 / 52 * 15 / 51 * 4 / 50, result.getDealProbability(10, 10, 5), 1e-15);
+    }
+
+    @Test
+    void optimalPlayBeatsEveryFixedStandingTotal() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BlackjackEnumerator enumerator = new BlackjackEnumerator(new DealerOutcomes(1 << 16), pool);
+            BlackjackEnumerator.Result optimal = enumerator.enumerate(1, BlackjackEnumerator.OPTIMAL);
+            assertEquals(1.0, totalProbability(optimal), 1e-12);
+            for (int standOn : new int[] { 12, 17, 21 }) {
+                BlackjackEnumerator.Result fixed = enumerator.enumerate(1, standOn);
+                assertTrue(optimal.getExpectedReturn() >= fixed.getExpectedReturn(), "stand on " + standOn);
+                for (int up = 1; up <= 10; up++) {
+                    for (int first = 1; first <= 10; first++) {
+                        for (int second = first; second <= 10; second++) {
+                            double ev = optimal.getDealEv(first, second, up);
+                            assertTrue(ev >= -1.0 && ev <= 1.0);
+                            assertTrue(ev >= fixed.getDealEv(first, second, up) - 1e-12,
+                                    first + "," + second + " against " + up + ", stand on " + standOn);
+                        }
+                    }
+                }
+            }
+
+            // A natural wins unless the dealer also makes 21 from what is left
+            int[] counts = new int[11];
+            for (int points = 1; points <= 9; points++) {
+                counts[points] = 4;
+            }
+            counts[10] = 15;
+            counts[1]--;
+            counts[6]--;
+            double[] dealer = new DealerOutcomes(16).distribution(6, counts);
+            assertEquals(1.0 - dealer[21 - BlackjackRules.DEALER_STANDS_ON], optimal.getDealEv(1, 10, 6), 1e-12);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void deckCountsAreChecked() {
+        BlackjackEnumerator enumerator = new BlackjackEnumerator();
+        assertThrows(IllegalArgumentException.class, () -> enumerator.enumerate(0, 17));
+        assertThrows(IllegalArgumentException.class, () -> enumerator.enumerate(9, 17));
+    }
+}
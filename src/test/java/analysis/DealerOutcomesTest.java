@@ -0,0 +1,128 @@
+package analysis;
+
+import model.BlackjackRules;
+import model.Card;
+import model.Hand;
+import model.Rank;
+import model.Suit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealerOutcomesTest {
+
+    private static final double EPSILON = 1e-12;
+
+    private static int code(int points) {
+        Rank rank = points == 1 ? Rank.ACE : points == 10 ? Rank.TEN : Rank.values()[points - 2];
+        return Card.codeOf(rank, Suit.CLUBS);
+    }
+
+    /** Unseen cards of {@code numDecks} decks by points, less the upcard. */
+    private static int[] shoe(int numDecks, int upcard) {
+        int[] counts = new int[11];
+        for (int points = 1; points <= 9; points++) {
+            counts[points] = 4 * numDecks;
+        }
+        counts[10] = 16 * numDecks;
+        counts[upcard]--;
+        return counts;
+    }
+
+    /** Plays the dealer out through {@link Hand} and the rules, for every order of draws. */
+    private static void playOut(int[] drawn, int size, int[] counts, int remaining, double probability,
+                                double[] outcomes) {
+        Hand dealer = new Hand();
+        for (int i = 0; i < size; i++) {
+            dealer.add(code(drawn[i]));
+        }
+        if (!BlackjackRules.dealerMustHit(dealer)) {
+            int value = dealer.value();
+            outcomes[value > 21 ? DealerOutcomes.BUST : value - BlackjackRules.DEALER_STANDS_ON] += probability;
+            return;
+        }
+        for (int points = 1; points <= 10; points++) {
+            if (counts[points] == 0) {
+                continue;
+            }
+            double p = probability * counts[points] / remaining;
+            counts[points]--;
+            drawn[size] = points;
+            playOut(drawn, size + 1, counts, remaining - 1, p, outcomes);
+            counts[points]++;
+        }
+    }
+
+    private static double[] reference(int upcard, int[] counts) {
+        double[] outcomes = new double[DealerOutcomes.OUTCOMES];
+        int[] drawn = new int[Hand.MAX_CARDS];
+        drawn[0] = upcard;
+        playOut(drawn, 1, counts.clone(), Arrays.stream(counts).sum(), 1.0, outcomes);
+        return outcomes;
+    }
+
+    @Test
+    void distributionsSumToOneAndMatchTheRules() {
+        DealerOutcomes outcomes = new DealerOutcomes(1024);
+        for (int numDecks : new int[] { 1, 6 }) {
+            for (int upcard = 1; upcard <= 10; upcard++) {
+                int[] counts = shoe(numDecks, upcard);
+                int[] before = counts.clone();
+                double[] distribution = outcomes.distribution(upcard, counts);
+                assertArrayEquals(before, counts, "composition was changed");
+                assertEquals(DealerOutcomes.OUTCOMES, distribution.length);
+                assertEquals(1.0, Arrays.stream(distribution).sum(), EPSILON, "upcard " + upcard);
+                assertArrayEquals(reference(upcard, counts), distribution, EPSILON, "upcard " + upcard);
+            }
+        }
+        // A depleted, ten-poor composition
+        int[] poor = { 0, 1, 3, 2, 4, 0, 2, 1, 0, 3, 2 };
+        assertArrayEquals(reference(6, poor), outcomes.distribution(6, poor), EPSILON);
+        assertEquals(1.0, Arrays.stream(outcomes.distribution(6, poor)).sum(), EPSILON);
+    }
+
+    @Test
+    void forcedCompositionsAreCertain() {
+        DealerOutcomes outcomes = new DealerOutcomes(16);
+        int[] tens = new int[11];
+        tens[10] = 5;
+        assertEquals(1.0, outcomes.distribution(7, tens)[0], EPSILON);
+        assertEquals(1.0, outcomes.distribution(1, tens)[21 - BlackjackRules.DEALER_STANDS_ON], EPSILON);
+
+        // Either order of a ten and a five on a six makes 21
+        int[] tenAndFive = new int[11];
+        tenAndFive[10] = 1;
+        tenAndFive[5] = 1;
+        assertEquals(1.0, outcomes.distribution(6, tenAndFive)[21 - BlackjackRules.DEALER_STANDS_ON], EPSILON);
+    }
+
+    @Test
+    void cacheReturnsTheSameDistributionAndStaysBounded() {
+        DealerOutcomes outcomes = new DealerOutcomes(64);
+        int[] counts = shoe(1, 6);
+        double[] first = outcomes.distribution(6, counts);
+        assertSame(first, outcomes.distribution(6, counts));
+        assertEquals(1, outcomes.cachedDistributions());
+
+        for (int ten = 0; ten < 200; ten++) {
+            counts[10] = ten % 17;
+            counts[2] = ten / 17;
+            outcomes.distribution(1 + ten % 10, counts);
+            assertTrue(outcomes.cachedDistributions() <= 64);
+        }
+
+        DealerOutcomes uncached = new DealerOutcomes(0);
+        int[] shoe = shoe(2, 10);
+        assertNotSame(uncached.distribution(10, shoe), uncached.distribution(10, shoe));
+        assertEquals(0, uncached.cachedDistributions());
+        assertThrows(IllegalArgumentException.class, () -> new DealerOutcomes(-1));
+    }
+}
@@ -0,0 +1,245 @@
+package analysis;
+
+import model.Card;
+import model.Deck;
+import model.HigherLowerModel.Guess;
+import model.Rank;
+import model.Suit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HigherLowerSolverTest {
+
+    private static final double TOLERANCE = 1e-5;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Plain memoized recursion over (cards left of each value, showing value),
+     * in doubles: {expected score, clear probability, higher minus lower score}.
+     */
+    private static final class BruteForce {
+        private final Map<String, double[]> memo = new HashMap<>();
+
+        double[] position(int[] counts, int showing) {
+            String key = Arrays.toString(counts) + showing;
+            double[] known = memo.get(key);
+            if (known != null) {
+                return known;
+            }
+            int cards = 0;
+            for (int count : counts) {
+                cards += count;
+            }
+            double[] result;
+            if (cards == 0) {
+                result = new double[] { 0.0, 1.0, 0.0 };
+            } else {
+                double higherScore = 0, lowerScore = 0, higherClear = 0, lowerClear = 0, pushScore = 0,
+                        pushClear = 0;
+                for (int next = 0; next < counts.length; next++) {
+                    if (counts[next] == 0) {
+                        continue;
+                    }
+                    double weight = (double) counts[next] / cards;
+                    counts[next]--;
+                    double[] child = position(counts, next);
+                    counts[next]++;
+                    if (next > showing) {
+                        higherScore += weight * (1 + child[0]);
+                        higherClear += weight * child[1];
+                    } else if (next < showing) {
+                        lowerScore += weight * (1 + child[0]);
+                        lowerClear += weight * child[1];
+                    } else {
+                        pushScore += weight * child[0];
+                        pushClear += weight * child[1];
+                    }
+                }
+                result = new double[] { Math.max(higherScore, lowerScore) + pushScore,
+                        Math.max(higherClear, lowerClear) + pushClear, higherScore - lowerScore };
+            }
+            memo.put(key, result);
+            return result;
+        }
+
+        double[] deck(int[] counts) {
+            int cards = 0;
+            for (int count : counts) {
+                cards += count;
+            }
+            double score = 0;
+            double clear = 0;
+            for (int first = 0; first < counts.length; first++) {
+                if (counts[first] == 0) {
+                    continue;
+                }
+                double weight = (double) counts[first] / cards;
+                counts[first]--;
+                double[] child = position(counts, first);
+                counts[first]++;
+                score += weight * child[0];
+                clear += weight * child[1];
+            }
+            return new double[] { score, clear };
+        }
+    }
+
+    private static int[] fullCounts(int suits, boolean jokers) {
+        int[] counts = new int[jokers ? 14 : 13];
+        Arrays.fill(counts, suits);
+        if (jokers) {
+            counts[13] = 2;
+        }
+        return counts;
+    }
+
+    /** Codes of the first {@code suits} suits, plus the Jokers. */
+    private static List<Integer> reducedDeck(int suits, boolean jokers) {
+        List<Integer> codes = new ArrayList<>();
+        for (int suit = 0; suit < suits; suit++) {
+            for (Rank rank : Rank.values()) {
+                codes.add(Card.codeOf(rank, Suit.values()[suit]));
+            }
+        }
+        if (jokers) {
+            codes.add(Card.JOKER_CODE);
+            codes.add(Card.JOKER_CODE + 1);
+        }
+        return codes;
+    }
+
+    private static int position(int code) {
+        return Card.valueOf(code) - 2;
+    }
+
+    /**
+     * Deals a random part of a reduced deck and checks the solver against the
+     * brute force on the position it leaves.
+     */
+    private static void assertLivePositionsMatch(HigherLowerSolver solver, int suits, boolean jokers,
+                                                 int maxRemaining, int samples, long seed) {
+        BruteForce bruteForce = new BruteForce();
+        Random random = new Random(seed);
+        Deck deck = new Deck(jokers);
+        for (int sample = 0; sample < samples; sample++) {
+            List<Integer> codes = reducedDeck(suits, jokers);
+            Collections.shuffle(codes, random);
+            int current = codes.get(0);
+            int left = random.nextInt(Math.min(maxRemaining, codes.size() - 1) + 1);
+            byte[] remaining = new byte[left];
+            int[] counts = new int[jokers ? 14 : 13];
+            for (int i = 0; i < left; i++) {
+                remaining[i] = (byte) (int) codes.get(i + 1);
+                counts[position(remaining[i])]++;
+            }
+            deck.restoreRemaining(remaining, 0, left);
+            Card showing = Card.fromCode(current);
+
+            double[] expected = bruteForce.position(counts, position(current));
+            HigherLowerSolver.Solution solution = solver.evaluate(deck, showing);
+            assertEquals(expected[0], solution.expectedScore(), TOLERANCE, "score of sample " + sample);
+            assertEquals(expected[1], solution.clearProbability(), TOLERANCE, "clear of sample " + sample);
+            if (Math.abs(expected[2]) > 1e-4) {
+                assertEquals(expected[2] > 0 ? Guess.HIGHER : Guess.LOWER, solver.bestGuess(deck, showing),
+                        "guess of sample " + sample);
+            } else if (left == 0) {
+                assertEquals(Guess.HIGHER, solver.bestGuess(deck, showing));
+            }
+        }
+    }
+
+    @Test
+    void oneSuitMatchesTheBruteForce() {
+        HigherLowerSolver solver = new HigherLowerSolver(1, false);
+        assertFalse(solver.isSolved());
+        HigherLowerSolver.Solution solution = solver.solve();
+        assertTrue(solver.isSolved());
+        assertEquals(3.006201, solution.expectedScore(), 1e-6);
+        assertEquals(0.05246136, solution.clearProbability(), 1e-7);
+
+        double[] expected = new BruteForce().deck(fullCounts(1, false));
+        assertEquals(expected[0], solution.expectedScore(), TOLERANCE);
+        assertEquals(expected[1], solution.clearProbability(), TOLERANCE);
+        assertLivePositionsMatch(solver, 1, false, 12, 2_000, 1);
+    }
+
+    @Test
+    void oneSuitWithJokersMatchesTheBruteForce() {
+        HigherLowerSolver solver = new HigherLowerSolver(1, true);
+        HigherLowerSolver.Solution solution = solver.solve();
+        assertEquals(3.024313, solution.expectedScore(), 1e-6);
+        assertEquals(0.03117454, solution.clearProbability(), 1e-7);
+
+        double[] expected = new BruteForce().deck(fullCounts(1, true));
+        assertEquals(expected[0], solution.expectedScore(), TOLERANCE);
+        assertEquals(expected[1], solution.clearProbability(), TOLERANCE);
+        assertLivePositionsMatch(solver, 1, true, 14, 2_000, 2);
+    }
+
+    @Test
+    void twoSuitsSolveInAMappedTable() {
+        // Too large for the heap threshold, so the table lives in the scratch directory
+        HigherLowerSolver solver = new HigherLowerSolver(2, false).setScratchDirectory(directory);
+        HigherLowerSolver.Solution solution = solver.solve();
+        assertEquals(2.993132114, solution.expectedScore(), TOLERANCE);
+        assertEquals(1.7865203e-03, solution.clearProbability(), 1e-8);
+        // Every composition of 3^13 but the full deck, per showing value, and the fresh deck
+        assertEquals((1_594_323L - 1) * 13 + 1, solver.solvedPositions());
+        assertLivePositionsMatch(solver, 2, false, 12, 500, 3);
+    }
+
+    @Test
+    void savedTableLoadsWithoutSolving() throws IOException {
+        Path file = directory.resolve("one-suit-jokers.hlso");
+        HigherLowerSolver solved = new HigherLowerSolver(1, true);
+        solved.save(file);
+
+        HigherLowerSolver loaded = new HigherLowerSolver(1, true);
+        assertEquals(0, loaded.solvedPositions());
+        loaded.load(file);
+        assertTrue(loaded.isSolved());
+        assertEquals(solved.solvedPositions(), loaded.solvedPositions());
+        assertEquals(solved.solve(), loaded.solve());
+        assertLivePositionsMatch(loaded, 1, true, 14, 500, 4);
+
+        assertThrows(IOException.class, () -> new HigherLowerSolver(1, false).load(file));
+        assertThrows(IOException.class, () -> new HigherLowerSolver(2, true).load(file));
+        Path truncated = directory.resolve("truncated.hlso");
+        Files.copy(file, truncated);
+        try (var channel = Files.newByteChannel(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 1);
+        }
+        assertThrows(IOException.class, () -> new HigherLowerSolver(1, true).load(truncated));
+    }
+
+    @Test
+    void positionsFromAnotherDeckAreRejected() {
+        HigherLowerSolver solver = new HigherLowerSolver(1, false);
+        Card ace = Card.of(Rank.ACE, Suit.HEARTS);
+        assertThrows(IllegalArgumentException.class, () -> solver.evaluate(new Deck(true), ace));
+        assertThrows(IllegalArgumentException.class, () -> solver.evaluate(new Deck(false), ace));
+        assertThrows(IllegalArgumentException.class, () -> solver.bestGuess(new Deck(false), Card.createJoker()));
+        assertThrows(IllegalArgumentException.class, () -> new HigherLowerSolver(5, false));
+        assertFalse(solver.isSolved());
+    }
+}
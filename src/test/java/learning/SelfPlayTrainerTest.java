@@ -0,0 +1,120 @@
+package learning;
+
+import model.RandomFactory;
+import strategy.BlackjackStrategy.Action;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SelfPlayTrainerTest {
+
+    @TempDir
+    Path directory;
+
+    private static long totalVisits(ActionValueTable table) {
+        long total = 0;
+        for (int state = 0; state < table.getStates(); state++) {
+            for (int action = 0; action < table.getActions(); action++) {
+                total += table.getVisits(state, action);
+            }
+        }
+        return total;
+    }
+
+    private static void assertSameTable(ActionValueTable expected, ActionValueTable actual) {
+        assertEquals(expected.getGame(), actual.getGame());
+        for (int state = 0; state < expected.getStates(); state++) {
+            for (int action = 0; action < expected.getActions(); action++) {
+                assertEquals(expected.getVisits(state, action), actual.getVisits(state, action));
+                assertEquals(expected.getValue(state, action), actual.getValue(state, action));
+            }
+        }
+    }
+
+    @Test
+    void blackjackTableLearnsToStandOnHardTwentyAndSurvivesSaving() throws IOException {
+        Path file = directory.resolve("blackjack.qtab");
+        SelfPlayTrainer trainer = new SelfPlayTrainer()
+                .randomFactory(RandomFactory.seeded(1))
+                .checkpoint(file, Duration.ofMinutes(5));
+        ActionValueTable table = trainer.trainBlackjack(LearnedBlackjackStrategy.newTable(), 100_000);
+        // Every hand starts with at least one decision unless someone has a natural
+        assertTrue(totalVisits(table) > 90_000, "visits " + totalVisits(table));
+
+        for (int upcard = 1; upcard <= 10; upcard++) {
+            int state = LearnedBlackjackStrategy.state(20, false, upcard);
+            assertEquals(Action.STAND.ordinal(), table.bestAction(state), "hard 20 against " + upcard);
+        }
+
+        ActionValueTable loaded = ActionValueTable.load(file, LearnedBlackjackStrategy.GAME);
+        assertSameTable(table, loaded);
+        assertSame(loaded, new LearnedBlackjackStrategy(loaded).getTable());
+    }
+
+    @Test
+    void higherLowerTrainingRoundTrips() throws IOException {
+        Path file = directory.resolve("higher-lower.qtab");
+        ActionValueTable table = new SelfPlayTrainer()
+                .randomFactory(RandomFactory.seeded(2))
+                .checkpoint(file, Duration.ofMinutes(5))
+                .trainHigherLower(LearnedHigherLowerStrategy.newTable(), 20_000);
+        assertTrue(totalVisits(table) >= 20_000);
+        assertSameTable(table, ActionValueTable.load(file, LearnedHigherLowerStrategy.GAME));
+    }
+
+    @Test
+    void badSettingsAreRejectedUpFront() {
+        SelfPlayTrainer trainer = new SelfPlayTrainer();
+        assertThrows(IllegalArgumentException.class, () -> trainer.numDecks(0));
+        assertThrows(IllegalArgumentException.class, () -> trainer.epsilon(1.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> trainer.trainBlackjack(LearnedHigherLowerStrategy.newTable(), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> trainer.trainHigherLower(LearnedBlackjackStrategy.newTable(), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> trainer.trainBlackjack(LearnedBlackjackStrategy.newTable(), -1));
+    }
+
+    @Test
+    void interruptingStopsTheWorkers() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ActionValueTable table = LearnedBlackjackStrategy.newTable();
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            Thread trainer = new Thread(() -> {
+                try {
+                    new SelfPlayTrainer().pool(pool).trainBlackjack(table, Long.MAX_VALUE);
+                } catch (Exception e) {
+                    failure.set(e);
+                }
+            });
+            trainer.start();
+            while (totalVisits(table) == 0) {
+                Thread.sleep(10);
+            }
+            trainer.interrupt();
+            trainer.join();
+            assertTrue(failure.get() instanceof IllegalStateException, String.valueOf(failure.get()));
+
+            // Workers finish the episode they are in and claim nothing more
+            assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+            long visits = totalVisits(table);
+            Thread.sleep(100);
+            assertEquals(visits, totalVisits(table));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckTest {
+
+    /** Checks every composition query against a count over {@code undealt}. */
+    private static void assertComposition(Deck deck, boolean[] undealt) {
+        long mask = 0L;
+        int[] byValue = new int[17];
+        int total = 0;
+        for (int code = 0; code < undealt.length; code++) {
+            if (undealt[code]) {
+                mask |= 1L << code;
+                byValue[Card.valueOf(code)]++;
+                total++;
+            }
+            assertEquals(undealt[code], deck.isRemaining(code), "card " + code);
+        }
+        assertEquals(mask, deck.remainingMask());
+        assertEquals(total, deck.remainingCards());
+        for (int value = -1; value <= 16; value++) {
+            int above = 0;
+            int below = 0;
+            for (int other = 0; other < byValue.length; other++) {
+                above += other > value ? byValue[other] : 0;
+                below += other < value ? byValue[other] : 0;
+            }
+            int expected = value >= 0 && value < byValue.length ? byValue[value] : 0;
+            assertEquals(expected, deck.remainingOfValue(value), "value " + value);
+            assertEquals(expected, deck.remainingIn(Deck.valueMask(value)), "mask of value " + value);
+            assertEquals(above, deck.remainingAbove(value), "above " + value);
+            assertEquals(below, deck.remainingBelow(value), "below " + value);
+        }
+        for (Rank rank : Rank.values()) {
+            assertEquals(byValue[rank.getValue()], deck.remainingOfRank(rank));
+        }
+    }
+
+    @Test
+    void freshDecksHaveEveryCard() {
+        Deck standard = new Deck(false);
+        assertEquals(52, standard.totalCards());
+        assertEquals((1L << 52) - 1, standard.remainingMask());
+        assertEquals(4, standard.remainingOfValue(14));
+        assertEquals(0, standard.remainingOfValue(15));
+
+        Deck jokers = new Deck(true);
+        assertEquals((1L << 54) - 1, jokers.remainingMask());
+        assertEquals(2, jokers.remainingOfValue(15));
+        assertEquals(2, jokers.remainingAbove(14));
+        assertTrue(jokers.containsAll(Deck.valueMask(15) | Deck.rankMask(Rank.ACE)));
+    }
+
+    @Test
+    void drawingKeepsTheCompositionCurrent() {
+        for (boolean jokers : new boolean[] { false, true }) {
+            Deck deck = new Deck(jokers, new Random(7));
+            deck.shuffle();
+            boolean[] undealt = new boolean[deck.totalCards()];
+            Arrays.fill(undealt, true);
+            assertComposition(deck, undealt);
+            while (!deck.isEmpty()) {
+                int peeked = deck.peekCode();
+                Card card = deck.draw();
+                assertEquals(peeked, card.getCode());
+                assertTrue(undealt[peeked], "card dealt twice");
+                undealt[peeked] = false;
+                assertFalse(deck.isRemaining(card));
+                assertFalse(deck.containsAll(1L << peeked));
+                assertComposition(deck, undealt);
+            }
+            assertNull(deck.draw());
+            assertNull(deck.peek());
+            assertEquals(-1, deck.drawCode());
+            assertEquals(-1, deck.peekCode());
+            assertEquals(0L, deck.remainingMask());
+
+            deck.reset();
+            Arrays.fill(undealt, true);
+            assertComposition(deck, undealt);
+        }
+    }
+
+    @Test
+    void drawIntoMatchesDrawingOneByOne() {
+        Deck batched = new Deck(true, new Random(3));
+        Deck single = new Deck(true, new Random(3));
+        batched.shuffle();
+        single.shuffle();
+        int[] codes = new int[8];
+        int drawn;
+        while ((drawn = batched.drawInto(codes, 5)) > 0) {
+            assertEquals(Math.min(5, single.remainingCards()), drawn);
+            for (int i = 0; i < drawn; i++) {
+                assertEquals(single.drawCode(), codes[i]);
+            }
+            assertEquals(single.remainingMask(), batched.remainingMask());
+        }
+        assertTrue(single.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> batched.drawInto(codes, -1));
+
+        // Bounded by the destination as well as by n
+        Deck fresh = new Deck();
+        assertEquals(8, fresh.drawInto(codes, 20));
+        assertEquals(44, fresh.remainingCards());
+    }
+
+    @Test
+    void restoringRemainingCardsRebuildsTheComposition() {
+        Deck deck = new Deck(true);
+        byte[] remaining = { 51, 0, 53, 12, 25 };
+        deck.restoreRemaining(remaining, 0, remaining.length);
+        boolean[] undealt = new boolean[Card.CARD_COUNT];
+        for (byte code : remaining) {
+            undealt[code] = true;
+        }
+        assertComposition(deck, undealt);
+        byte[] copy = new byte[remaining.length];
+        assertEquals(remaining.length, deck.copyRemaining(copy, 0));
+        assertEquals(Arrays.toString(remaining), Arrays.toString(copy));
+        for (byte code : remaining) {
+            assertEquals(code, deck.drawCode());
+        }
+
+        Deck unchanged = new Deck(false);
+        assertThrows(IllegalArgumentException.class,
+                () -> unchanged.restoreRemaining(new byte[] { 1, 52 }, 0, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> unchanged.restoreRemaining(new byte[] { 1, 2, 1 }, 0, 3));
+        assertEquals(52, unchanged.remainingCards());
+        assertEquals((1L << 52) - 1, unchanged.remainingMask());
+    }
+}
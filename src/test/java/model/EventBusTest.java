@@ -0,0 +1,178 @@
+package model;
+
+import model.GameEvent.CardDealt;
+import model.GameEvent.PlayerHit;
+import model.GameEvent.Target;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventBusTest {
+
+    private static CardDealt dealt(int remaining) {
+        return new CardDealt(Target.PLAYER, Card.fromCode(remaining % Card.STANDARD_CARD_COUNT), false, remaining);
+    }
+
+    @Test
+    void eventsWaitForFlushAndArriveInOrder() {
+        EventBus bus = new EventBus();
+        List<List<GameEvent>> deliveries = new ArrayList<>();
+        bus.subscribe(GameEvent.class, deliveries::add);
+
+        bus.publish(dealt(3));
+        bus.publish(new PlayerHit());
+        assertTrue(deliveries.isEmpty());
+        bus.flush();
+        assertEquals(List.of(List.of(dealt(3)), List.of(new PlayerHit())), deliveries);
+
+        bus.flush();
+        assertEquals(2, deliveries.size());
+    }
+
+    @Test
+    void eventsWithoutSubscribersAreDropped() {
+        EventBus bus = new EventBus();
+        bus.publish(dealt(1));
+        List<GameEvent> received = new ArrayList<>();
+        bus.subscribe(GameEvent.class, received::addAll);
+        bus.flush();
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void batchesCoalescePerSubscriberAndNest() {
+        EventBus bus = new EventBus();
+        List<List<CardDealt>> cards = new ArrayList<>();
+        List<List<GameEvent>> everything = new ArrayList<>();
+        List<List<PlayerHit>> hits = new ArrayList<>();
+        bus.subscribe(CardDealt.class, cards::add);
+        bus.subscribe(GameEvent.class, everything::add);
+        bus.subscribe(PlayerHit.class, hits::add);
+
+        bus.beginBatch();
+        bus.publish(dealt(5));
+        bus.beginBatch();
+        bus.publish(new PlayerHit());
+        bus.publish(dealt(4));
+        bus.endBatch();
+        bus.flush();
+        assertTrue(everything.isEmpty(), "inner batch delivered early");
+        bus.publish(dealt(3));
+        bus.endBatch();
+        bus.flush();
+
+        assertEquals(List.of(List.of(dealt(5), dealt(4), dealt(3))), cards);
+        assertEquals(List.of(List.of(dealt(5), new PlayerHit(), dealt(4), dealt(3))), everything);
+        assertEquals(List.of(List.of(new PlayerHit())), hits);
+        assertThrows(UnsupportedOperationException.class, () -> cards.get(0).add(dealt(2)));
+
+        // An empty batch delivers nothing, and an unmatched end is a bug
+        bus.beginBatch();
+        bus.endBatch();
+        bus.flush();
+        assertEquals(1, everything.size());
+        assertThrows(IllegalStateException.class, bus::endBatch);
+    }
+
+    @Test
+    void unsubscribedSubscribersGetNothingMore() {
+        EventBus bus = new EventBus();
+        List<GameEvent> received = new ArrayList<>();
+        EventBus.Subscriber<GameEvent> subscriber = received::addAll;
+        bus.subscribe(GameEvent.class, subscriber);
+        bus.publish(dealt(2));
+        bus.flush();
+        bus.unsubscribe(subscriber);
+        bus.publish(dealt(1));
+        bus.flush();
+        assertEquals(List.of(dealt(2)), received);
+    }
+
+    @Test
+    void eventsPublishedDuringADeliveryFollowIt() {
+        EventBus bus = new EventBus();
+        List<String> log = new ArrayList<>();
+        AtomicInteger depth = new AtomicInteger();
+        bus.subscribe(CardDealt.class, events -> {
+            assertEquals(0, depth.getAndIncrement(), "delivery ran inside another delivery");
+            int remaining = events.get(0).remaining();
+            log.add("start " + remaining);
+            if (remaining > 0) {
+                // A subscriber calling back into the model publishes and flushes re-entrantly
+                bus.publish(dealt(remaining - 1));
+                bus.flush();
+            }
+            log.add("end " + remaining);
+            depth.decrementAndGet();
+        });
+
+        bus.publish(dealt(2));
+        bus.flush();
+        assertEquals(List.of("start 2", "end 2", "start 1", "end 1", "start 0", "end 0"), log);
+    }
+
+    @Test
+    void concurrentFlushesStrandNothing() throws InterruptedException {
+        EventBus bus = new EventBus();
+        AtomicInteger delivered = new AtomicInteger();
+        bus.subscribe(CardDealt.class, events -> delivered.addAndGet(events.size()));
+        int perThread = 20_000;
+        Runnable publisher = () -> {
+            for (int i = 0; i < perThread; i++) {
+                bus.publish(dealt(i));
+                bus.flush();
+            }
+        };
+        Thread first = new Thread(publisher);
+        Thread second = new Thread(publisher);
+        first.start();
+        second.start();
+        first.join();
+        second.join();
+        // A flush that lost the race must leave its delivery to the winner's recheck
+        assertEquals(2 * perThread, delivered.get());
+    }
+
+    @Test
+    void dispatcherRunsDeliveriesInOrder() throws InterruptedException {
+        EventBus bus = new EventBus();
+        ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+        try {
+            List<Integer> received = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            bus.setDispatcher(dispatcher);
+            bus.subscribe(CardDealt.class, events -> {
+                threads.add(Thread.currentThread());
+                events.forEach(event -> received.add(event.remaining()));
+            });
+            for (int i = 0; i < 100; i++) {
+                bus.publish(dealt(i));
+                if (i % 7 == 0) {
+                    bus.flush();
+                }
+            }
+            bus.flush();
+            dispatcher.shutdown();
+            assertTrue(dispatcher.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(100, received.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, received.get(i));
+            }
+            assertTrue(threads.stream().noneMatch(thread -> thread == Thread.currentThread()));
+        } finally {
+            dispatcher.shutdownNow();
+        }
+        assertThrows(NullPointerException.class, () -> bus.setDispatcher(null));
+    }
+}
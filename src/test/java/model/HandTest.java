@@ -0,0 +1,116 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HandTest {
+
+    private static int code(Rank rank) {
+        return Card.codeOf(rank, Suit.SPADES);
+    }
+
+    private static Hand hand(Rank... ranks) {
+        Hand hand = new Hand();
+        for (Rank rank : ranks) {
+            hand.add(code(rank));
+        }
+        return hand;
+    }
+
+    @Test
+    void totalsFollowTheAces() {
+        Hand soft = hand(Rank.ACE, Rank.SIX);
+        assertEquals(7, soft.hardTotal());
+        assertEquals(17, soft.value());
+        assertTrue(soft.isSoft());
+
+        soft.add(code(Rank.KING));
+        assertEquals(17, soft.value());
+        assertFalse(soft.isSoft());
+        assertTrue(soft.hasAce());
+
+        Hand aces = hand(Rank.ACE, Rank.ACE);
+        assertEquals(12, aces.value());
+        assertTrue(aces.isSoft());
+
+        assertTrue(hand(Rank.ACE, Rank.QUEEN).isBlackjack());
+        assertFalse(hand(Rank.ACE, Rank.FIVE, Rank.FIVE).isBlackjack());
+        assertEquals(21, hand(Rank.ACE, Rank.FIVE, Rank.FIVE).value());
+        assertTrue(hand(Rank.KING, Rank.QUEEN, Rank.TWO).isBust());
+        assertFalse(hand(Rank.KING, Rank.QUEEN, Rank.ACE).isBust());
+        assertEquals(0, Hand.pointsOf(Card.JOKER_CODE));
+    }
+
+    @Test
+    void incrementalTotalsMatchARecount() {
+        Random random = new Random(11);
+        Hand hand = new Hand();
+        for (int round = 0; round < 2_000; round++) {
+            hand.clear();
+            int cards = 1 + random.nextInt(8);
+            for (int i = 0; i < cards; i++) {
+                hand.add(random.nextInt(Card.STANDARD_CARD_COUNT));
+            }
+            int hard = 0;
+            boolean ace = false;
+            for (Card card : hand.asList()) {
+                hard += card.getRank() == Rank.ACE ? 1 : Math.min(card.getRank().getValue(), 10);
+                ace |= card.getRank() == Rank.ACE;
+            }
+            int value = ace && hard + 10 <= 21 ? hard + 10 : hard;
+            assertEquals(cards, hand.size());
+            assertEquals(hard, hand.hardTotal());
+            assertEquals(value, hand.value());
+            assertEquals(ace && hard + 10 <= 21, hand.isSoft());
+            assertEquals(hard > 21, hand.isBust());
+            assertEquals(cards == 2 && value == 21, hand.isBlackjack());
+        }
+    }
+
+    @Test
+    void snapshotsAreReusedUntilTheHandChanges() {
+        Hand hand = hand(Rank.TEN, Rank.SEVEN);
+        long version = hand.version();
+        List<Card> first = hand.asList();
+        assertSame(first, hand.asList());
+        assertEquals(version, hand.version());
+
+        hand.add(code(Rank.TWO));
+        assertNotEquals(version, hand.version());
+        List<Card> second = hand.asList();
+        assertNotSame(first, second);
+        assertEquals(2, first.size());
+        assertEquals(3, second.size());
+
+        // Clearing a shared hand must not let new cards show through old snapshots
+        hand.clear();
+        hand.add(code(Rank.ACE));
+        hand.add(code(Rank.KING));
+        assertEquals(List.of(Card.of(Rank.TEN, Suit.SPADES), Card.of(Rank.SEVEN, Suit.SPADES),
+                Card.of(Rank.TWO, Suit.SPADES)), second);
+        assertEquals(List.of(Card.of(Rank.ACE, Suit.SPADES), Card.of(Rank.KING, Suit.SPADES)), hand.asList());
+        assertThrows(UnsupportedOperationException.class, () -> second.add(Card.of(Rank.ACE, Suit.HEARTS)));
+        assertThrows(IndexOutOfBoundsException.class, () -> second.get(3));
+    }
+
+    @Test
+    void handsAreBounded() {
+        Hand hand = new Hand();
+        for (int i = 0; i < Hand.MAX_CARDS; i++) {
+            hand.add(code(Rank.ACE));
+        }
+        assertThrows(IllegalStateException.class, () -> hand.add(code(Rank.ACE)));
+        assertThrows(IndexOutOfBoundsException.class, () -> hand.codeAt(Hand.MAX_CARDS));
+        assertThrows(IndexOutOfBoundsException.class, () -> new Hand().cardAt(0));
+    }
+}
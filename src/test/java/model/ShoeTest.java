@@ -0,0 +1,119 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShoeTest {
+
+    /** Checks the point counts against the undealt codes. */
+    private static void assertCountsMatch(Shoe shoe) {
+        byte[] remaining = new byte[shoe.totalCards()];
+        int count = shoe.copyRemaining(remaining, 0);
+        assertEquals(shoe.remainingCards(), count);
+        int[] expected = new int[11];
+        for (int i = 0; i < count; i++) {
+            expected[Hand.pointsOf(remaining[i])]++;
+        }
+        for (int points = 1; points <= 10; points++) {
+            assertEquals(expected[points], shoe.remainingOfPoints(points), "points " + points);
+        }
+    }
+
+    @Test
+    void reshufflesOnlyOnceTheCutCardIsReached() {
+        Shoe shoe = new Shoe(2, 0.5, new Random(1));
+        assertFalse(shoe.prepareHand());
+        for (int dealt = 5; dealt < 52; dealt += 5) {
+            for (int i = 0; i < 5; i++) {
+                shoe.drawCode();
+            }
+            assertCountsMatch(shoe);
+            assertFalse(shoe.prepareHand());
+        }
+        for (int i = 0; i < 5; i++) {
+            shoe.drawCode();
+        }
+        assertTrue(shoe.isCutCardReached());
+        assertTrue(shoe.prepareHand());
+        assertEquals(104, shoe.remainingCards());
+        assertCountsMatch(shoe);
+
+        Shoe everyHand = new Shoe(1, 0.0, new Random(2));
+        assertTrue(everyHand.prepareHand());
+        everyHand.drawCode();
+        assertTrue(everyHand.prepareHand());
+        assertEquals(52, everyHand.remainingCards());
+    }
+
+    @Test
+    void handRunningPastTheEndKeepsItsCards() {
+        for (int seed = 0; seed < 50; seed++) {
+            Shoe shoe = new Shoe(1, 1.0, new Random(seed));
+            shoe.prepareHand();
+            for (int i = 0; i < 45; i++) {
+                shoe.drawCode();
+            }
+            assertFalse(shoe.prepareHand());
+            long seen = 0;
+            for (int i = 0; i < 20; i++) {
+                int code = shoe.drawCode();
+                assertEquals(0, seen & 1L << code, "card " + code + " dealt twice in a hand");
+                seen |= 1L << code;
+            }
+            // The seven cards in play before the reshuffle stay dealt
+            assertEquals(52 - 20, shoe.remainingCards());
+            assertCountsMatch(shoe);
+        }
+    }
+
+    @Test
+    void handHoldingTheWholeShoeIsRejected() {
+        Shoe shoe = new Shoe(1, 1.0, new Random(3));
+        shoe.prepareHand();
+        for (int i = 0; i < 52; i++) {
+            shoe.drawCode();
+        }
+        assertThrows(IllegalStateException.class, shoe::drawCode);
+    }
+
+    @Test
+    void restoredHandStaysInPlay() {
+        Shoe shoe = new Shoe(1, 1.0, new Random(4));
+        Hand player = new Hand();
+        player.add(12);
+        player.add(11);
+        Hand dealer = new Hand();
+        dealer.add(25);
+        shoe.restoreRemaining(new byte[] { 3, 4 }, 0, 2, player, dealer);
+        assertEquals(2, shoe.remainingCards());
+        assertCountsMatch(shoe);
+
+        assertEquals(3, shoe.drawCode());
+        assertEquals(4, shoe.drawCode());
+        for (int i = 0; i < 47; i++) {
+            int code = shoe.drawCode();
+            assertTrue(code != 12 && code != 11 && code != 25 && code != 3 && code != 4, "card " + code);
+        }
+        assertThrows(IllegalStateException.class, shoe::drawCode);
+    }
+
+    @Test
+    void badArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Shoe(0, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new Shoe(Shoe.MAX_DECKS + 1, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new Shoe(1, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new Shoe(1, Double.NaN));
+
+        Shoe shoe = new Shoe(1, 0.5, new Random(5));
+        Hand twice = new Hand();
+        twice.add(3);
+        assertThrows(IllegalArgumentException.class, () -> shoe.restoreRemaining(new byte[] { 3 }, 0, 1, twice));
+        assertEquals(52, shoe.remainingCards());
+    }
+}
@@ -0,0 +1,188 @@
+package model;
+
+import model.GameEvent.GameRestored;
+import model.GameEvent.ScoreChanged;
+import model.GameEvent.TableRestored;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotsTest {
+
+    /** Offset of the first card count in a blackjack snapshot: header, flags, result and deck count. */
+    private static final int BLACKJACK_PLAYER = Snapshots.HEADER_SIZE + 3;
+
+    private static BlackjackModel handInProgress() {
+        for (int seed = 0; ; seed++) {
+            BlackjackModel model = new BlackjackModel(new Random(seed));
+            model.startNewGame();
+            if (!model.isGameOver()) {
+                return model;
+            }
+        }
+    }
+
+    private static HigherLowerModel gameInProgress(boolean jokers) {
+        HigherLowerModel model = new HigherLowerModel(jokers, new Random(7));
+        model.startNewGame();
+        for (int i = 0; i < 3 && !model.isGameOver(); i++) {
+            model.makeGuess(model.suggestGuess());
+        }
+        return model;
+    }
+
+    /** Recomputes the checksum after a payload byte was edited. */
+    private static byte[] reseal(byte[] snapshot) {
+        return Snapshots.seal(ByteBuffer.wrap(snapshot).position(snapshot.length - Snapshots.CHECKSUM_SIZE));
+    }
+
+    @Test
+    void blackjackRoundTrip() {
+        BlackjackModel original = handInProgress();
+        byte[] snapshot = original.save();
+
+        BlackjackModel restored = new BlackjackModel(new Random(99));
+        restored.restore(snapshot);
+        assertEquals(original.getPlayerHand(), restored.getPlayerHand());
+        assertEquals(original.getDealerHand(), restored.getDealerHand());
+        assertEquals(original.getResult(), restored.getResult());
+        assertEquals(original.getShoe().remainingCards(), restored.getShoe().remainingCards());
+        assertArrayEquals(snapshot, restored.save());
+
+        // The rest of the hand plays out the same
+        original.stand();
+        restored.stand();
+        assertEquals(original.getDealerHand(), restored.getDealerHand());
+        assertEquals(original.getResult(), restored.getResult());
+    }
+
+    @Test
+    void higherLowerRoundTrip() {
+        for (boolean jokers : new boolean[] { false, true }) {
+            HigherLowerModel original = gameInProgress(jokers);
+            byte[] snapshot = original.save();
+
+            HigherLowerModel restored = new HigherLowerModel(jokers, new Random(99));
+            restored.restore(snapshot);
+            assertEquals(original.getCurrentCard(), restored.getCurrentCard());
+            assertEquals(original.getPreviousCard(), restored.getPreviousCard());
+            assertEquals(original.getScore(), restored.getScore());
+            assertEquals(original.getStreak(), restored.getStreak());
+            assertEquals(original.getRemainingCards(), restored.getRemainingCards());
+            assertEquals(original.isGameOver(), restored.isGameOver());
+            assertArrayEquals(snapshot, restored.save());
+        }
+    }
+
+    @Test
+    void restorePublishesNoOutcomes() {
+        BlackjackModel finished = handInProgress();
+        finished.stand();
+        BlackjackModel blackjack = new BlackjackModel(new Random(1));
+        List<GameEvent> events = new ArrayList<>();
+        blackjack.getEvents().subscribe(GameEvent.class, events::addAll);
+        byte[] snapshot = finished.save();
+        blackjack.restore(snapshot);
+        assertEquals(1, events.size());
+        assertArrayEquals(snapshot, ((GameRestored) events.get(0)).snapshot());
+
+        HigherLowerModel game = gameInProgress(false);
+        HigherLowerModel higherLower = new HigherLowerModel(false, new Random(1));
+        List<GameEvent> guesses = new ArrayList<>();
+        higherLower.getEvents().subscribe(GameEvent.class, guesses::addAll);
+        higherLower.restore(game.save());
+        assertEquals(3, guesses.size());
+        assertTrue(guesses.get(0) instanceof GameRestored);
+        assertEquals(new TableRestored(game.getCurrentCard(), game.getPreviousCard(), game.getRemainingCards(),
+                game.getLastResult(), game.getLastMessage(), game.isGameOver()), guesses.get(1));
+        assertEquals(new ScoreChanged(game.getScore(), game.getStreak(), higherLower.getHighScore()), guesses.get(2));
+    }
+
+    @Test
+    void truncatedSnapshotsAreRejected() {
+        BlackjackModel blackjack = handInProgress();
+        byte[] snapshot = blackjack.save();
+        BlackjackModel target = handInProgress();
+        byte[] before = target.save();
+        for (int length = 0; length < snapshot.length; length++) {
+            byte[] truncated = Arrays.copyOf(snapshot, length);
+            assertThrows(IllegalArgumentException.class, () -> target.restore(truncated));
+            // Also when the checksum is recomputed over what is left
+            if (length >= Snapshots.HEADER_SIZE + Snapshots.CHECKSUM_SIZE) {
+                byte[] resealed = reseal(truncated);
+                assertThrows(IllegalArgumentException.class, () -> target.restore(resealed));
+            }
+        }
+        assertArrayEquals(before, target.save());
+
+        HigherLowerModel higherLower = gameInProgress(true);
+        byte[] game = higherLower.save();
+        for (int length = 0; length < game.length; length++) {
+            byte[] truncated = Arrays.copyOf(game, length);
+            assertThrows(IllegalArgumentException.class, () -> higherLower.restore(truncated));
+        }
+    }
+
+    @Test
+    void flippedBitsAreRejected() {
+        BlackjackModel blackjack = handInProgress();
+        byte[] snapshot = blackjack.save();
+        for (int bit = 0; bit < 8 * snapshot.length; bit++) {
+            byte[] flipped = snapshot.clone();
+            flipped[bit / 8] ^= (byte) (1 << bit % 8);
+            assertThrows(IllegalArgumentException.class, () -> blackjack.restore(flipped));
+        }
+        assertArrayEquals(snapshot, blackjack.save());
+
+        HigherLowerModel higherLower = gameInProgress(false);
+        byte[] game = higherLower.save();
+        for (int bit = 0; bit < 8 * game.length; bit++) {
+            byte[] flipped = game.clone();
+            flipped[bit / 8] ^= (byte) (1 << bit % 8);
+            assertThrows(IllegalArgumentException.class, () -> higherLower.restore(flipped));
+        }
+        assertArrayEquals(game, higherLower.save());
+    }
+
+    @Test
+    void cardsMustFitTheShoe() {
+        BlackjackModel blackjack = handInProgress();
+        byte[] snapshot = blackjack.save();
+        int playerCards = snapshot[BLACKJACK_PLAYER];
+        int dealerCards = snapshot[BLACKJACK_PLAYER + 1 + playerCards];
+        int firstRemaining = BLACKJACK_PLAYER + 2 + playerCards + dealerCards + Short.BYTES;
+
+        // The first undealt card becomes a second copy of the player's first card
+        snapshot[firstRemaining] = snapshot[BLACKJACK_PLAYER + 1];
+        byte[] duplicated = reseal(snapshot);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> blackjack.restore(duplicated));
+        assertTrue(e.getMessage().contains("more than 1"), e.getMessage());
+    }
+
+    @Test
+    void flagsMustMatchTheResult() {
+        BlackjackModel blackjack = handInProgress();
+        byte[] snapshot = blackjack.save();
+        snapshot[Snapshots.HEADER_SIZE] |= 1; // game over, still IN_PROGRESS
+        byte[] over = reseal(snapshot);
+        assertThrows(IllegalArgumentException.class, () -> blackjack.restore(over));
+
+        HigherLowerModel higherLower = new HigherLowerModel(false, new Random(3));
+        higherLower.startNewGame();
+        byte[] game = higherLower.save();
+        game[Snapshots.HEADER_SIZE] |= 1; // game over before any guess
+        byte[] noResult = reseal(game);
+        assertThrows(IllegalArgumentException.class, () -> higherLower.restore(noResult));
+    }
+}
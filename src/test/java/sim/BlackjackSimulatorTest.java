@@ -0,0 +1,91 @@
+package sim;
+
+import model.RandomFactory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlackjackSimulatorTest {
+
+    private static BlackjackSimulationResult run(int seats, int numDecks, double penetration, long rounds,
+                                                 HandEvaluator evaluator, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return new BlackjackSimulator()
+                    .numDecks(numDecks)
+                    .penetration(penetration)
+                    .seats(seats)
+                    .randomFactory(RandomFactory.seeded(42))
+                    .evaluator(evaluator)
+                    .pool(pool)
+                    .run(rounds);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertConsistent(BlackjackSimulationResult result, int seats, long rounds) {
+        assertEquals(rounds, result.getRounds());
+        assertEquals(rounds * seats, result.getHands());
+        assertEquals(result.getHands(), result.getWins() + result.getLosses() + result.getPushes());
+        assertEquals(result.getPlayerBusts(), result.getPlayerTotalCount(BlackjackSimulationResult.BUST_BUCKET));
+        assertTrue(result.getLosses() >= result.getPlayerBusts());
+        long dealerHands = 0;
+        for (int total = 17; total <= BlackjackSimulationResult.BUST_BUCKET; total++) {
+            dealerHands += result.getDealerTotalCount(total);
+        }
+        assertTrue(dealerHands <= rounds);
+        assertEquals(result.getDealerBusts(), result.getDealerTotalCount(BlackjackSimulationResult.BUST_BUCKET));
+    }
+
+    @Test
+    void seededRunsDependOnNeitherThreadsNorEvaluator() {
+        long rounds = 300_000; // several chunks
+        BlackjackSimulationResult expected = run(1, 6, 0.75, rounds, HandEvaluator.scalar(), 1);
+        assertConsistent(expected, 1, rounds);
+        for (BlackjackSimulationResult result : new BlackjackSimulationResult[] {
+                run(1, 6, 0.75, rounds, HandEvaluator.scalar(), 3),
+                run(1, 6, 0.75, rounds, HandEvaluator.create(), 2) }) {
+            assertEquals(expected.toString(), result.toString());
+            assertEquals(expected.getDealerBusts(), result.getDealerBusts());
+            assertEquals(expected.getPlayerBlackjacks(), result.getPlayerBlackjacks());
+        }
+    }
+
+    @Test
+    void playerMimickingTheDealerLosesToTheDealer() {
+        BlackjackSimulationResult result = run(1, 6, 0.75, 400_000, HandEvaluator.create(), 1);
+        // Both bust alike, but the player busts first; naturals pay even money here
+        assertTrue(result.getExpectedReturn() < -0.06 && result.getExpectedReturn() > -0.10,
+                result.toString());
+        assertTrue(result.getPlayerBustRate() > 0.26 && result.getPlayerBustRate() < 0.30, result.toString());
+        // The dealer only draws when the seat stood, and then busts as often as the player
+        double dealerBustRate = (double) result.getDealerBusts() / (result.getRounds() - result.getPlayerBusts());
+        assertTrue(dealerBustRate > 0.26 && dealerBustRate < 0.30, "dealer bust " + dealerBustRate);
+    }
+
+    @Test
+    void deepPenetrationWithAFullTableStaysConsistent() {
+        // One deck dealt to the end for seven seats runs shoes dry mid-round
+        for (HandEvaluator evaluator : new HandEvaluator[] { HandEvaluator.scalar(), HandEvaluator.create() }) {
+            BlackjackSimulationResult result = run(7, 1, 1.0, 20_000, evaluator, 1);
+            assertConsistent(result, 7, 20_000);
+        }
+        assertConsistent(run(3, 2, 0.9, 1_000, HandEvaluator.create(), 1), 3, 1_000);
+        assertConsistent(run(1, 1, 0.0, 1, HandEvaluator.create(), 1), 1, 1);
+    }
+
+    @Test
+    void badSettingsAreRejected() {
+        BlackjackSimulator simulator = new BlackjackSimulator();
+        assertThrows(IllegalArgumentException.class, () -> simulator.numDecks(0));
+        assertThrows(IllegalArgumentException.class, () -> simulator.penetration(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> simulator.seats(0));
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(-1));
+    }
+}
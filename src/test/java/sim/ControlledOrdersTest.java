@@ -0,0 +1,119 @@
+package sim;
+
+import model.Card;
+import model.Deck;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ControlledOrdersTest {
+
+    private static void assertPermutationOf(byte[] template, byte[] order) {
+        byte[] sortedTemplate = template.clone();
+        byte[] sortedOrder = order.clone();
+        Arrays.sort(sortedTemplate);
+        Arrays.sort(sortedOrder);
+        assertArrayEquals(sortedTemplate, sortedOrder);
+    }
+
+    /** The rank a card mirrors to: 2 with Ace, 3 with King, and so on; Jokers stay put. */
+    private static int mirrored(int code) {
+        if (code >= Card.JOKER_CODE) {
+            return code;
+        }
+        int rank = code % 13;
+        return code - rank + 12 - rank;
+    }
+
+    @Test
+    void antitheticOrdersAlternateWithTheirMirrors() {
+        byte[] template = ControlledOrders.deckTemplate(true);
+        ControlledOrders orders = new ControlledOrders(template, new Random(1), true,
+                ControlledOrders.NOT_STRATIFIED);
+        byte[] order = template.clone();
+        for (int pair = 0; pair < 50; pair++) {
+            byte[] fresh = orders.exchange(order).clone();
+            assertPermutationOf(template, fresh);
+            byte[] mirror = orders.exchange(order);
+            assertPermutationOf(template, mirror);
+            for (int i = 0; i < fresh.length; i++) {
+                assertEquals(mirrored(fresh[i]), mirror[i], "position " + i);
+                assertEquals(Card.fromCode(fresh[i]).isJoker() ? 15 : 16 - Card.valueOf(fresh[i]),
+                        Card.valueOf(mirror[i]));
+                if (fresh[i] < Card.JOKER_CODE) {
+                    assertEquals(fresh[i] / 13, mirror[i] / 13, "suit changed");
+                }
+            }
+            assertFalse(Arrays.equals(fresh, mirror));
+        }
+    }
+
+    @Test
+    void stratifiedPositionCyclesThroughTheTemplate() {
+        byte[] template = ControlledOrders.shoeTemplate(2);
+        int position = 3;
+        ControlledOrders orders = new ControlledOrders(template, new Random(2), true, position);
+        byte[] order = template.clone();
+        for (int block = 0; block < 3; block++) {
+            int[] seen = new int[Card.CARD_COUNT];
+            for (int i = 0; i < template.length; i++) {
+                byte[] fresh = orders.exchange(order);
+                assertPermutationOf(template, fresh);
+                assertEquals(orders.lastStratum(), fresh[position]);
+                seen[fresh[position]]++;
+                // The mirror doesn't use up a stratum
+                assertEquals(mirrored(orders.lastStratum()), orders.exchange(order)[position]);
+            }
+            for (int code = 0; code < Card.STANDARD_CARD_COUNT; code++) {
+                assertEquals(2, seen[code], "block " + block + ", card " + code);
+            }
+        }
+
+        double[] weights = ControlledOrders.stratumWeights(template, position);
+        assertEquals(1.0, Arrays.stream(weights).sum(), 1e-12);
+        assertEquals(1.0 / 52, weights[0], 1e-15);
+        assertEquals(0.0, weights[Card.JOKER_CODE]);
+        assertArrayEquals(new double[] { 1.0 }, ControlledOrders.stratumWeights(template,
+                ControlledOrders.NOT_STRATIFIED));
+    }
+
+    @Test
+    void equalSeedsGiveEqualSequences() {
+        byte[] template = ControlledOrders.deckTemplate(false);
+        ControlledOrders first = new ControlledOrders(template, new Random(9), true, 0);
+        ControlledOrders second = new ControlledOrders(template, new Random(9), true, 0);
+        byte[] a = template.clone();
+        byte[] b = template.clone();
+        for (int i = 0; i < 20; i++) {
+            a = first.exchange(a);
+            b = second.exchange(b);
+            assertArrayEquals(a, b);
+        }
+    }
+
+    @Test
+    void decksDealTheSuppliedOrders() {
+        byte[] template = ControlledOrders.deckTemplate(false);
+        ControlledOrders orders = new ControlledOrders(template, new Random(4), true,
+                ControlledOrders.NOT_STRATIFIED);
+        Deck deck = new Deck(false);
+        deck.setOrderSource(orders);
+        deck.resetAndShuffle();
+        int[] fresh = new int[52];
+        assertEquals(52, deck.drawInto(fresh, 52));
+        deck.resetAndShuffle();
+        for (int code : fresh) {
+            assertEquals(mirrored(code), deck.drawCode());
+        }
+        assertTrue(deck.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new Deck(true).setOrderSource(orders));
+    }
+}
@@ -0,0 +1,176 @@
+package sim;
+
+import model.BlackjackModel.GameResult;
+import model.BlackjackRules;
+import model.Card;
+import model.Hand;
+import model.Rank;
+import model.Suit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HandEvaluatorTest {
+
+    /** Batch sizes around the vector lengths, so partial final vectors are covered. */
+    private static final int[] SIZES = { 1, 3, 8, 15, 16, 17, 63, 64, 65, 100, 257 };
+
+    private static final int ACE = Card.codeOf(Rank.ACE, Suit.HEARTS);
+    private static final int SIX = Card.codeOf(Rank.SIX, Suit.CLUBS);
+    private static final int TEN = Card.codeOf(Rank.TEN, Suit.SPADES);
+
+    private static List<HandEvaluator> evaluators() {
+        List<HandEvaluator> evaluators = new ArrayList<>();
+        evaluators.add(HandEvaluator.scalar());
+        HandEvaluator preferred = HandEvaluator.create();
+        if (preferred.getClass() != evaluators.get(0).getClass()) {
+            evaluators.add(preferred);
+        }
+        return evaluators;
+    }
+
+    /** Draws a card code, with extra Aces and low cards so soft hands and long hands are common. */
+    private static int randomCode(Random random) {
+        int pick = random.nextInt(10);
+        if (pick < 2) {
+            return ACE;
+        }
+        if (pick < 4) {
+            return random.nextInt(4) * 13 + random.nextInt(3); // a two, three or four
+        }
+        return random.nextInt(Card.STANDARD_CARD_COUNT);
+    }
+
+    private static void assertSameTotals(Hand expected, HandBatch batch, int hand, String what) {
+        assertEquals(expected.hardTotal(), batch.getHardTotal(hand), what + " hard total");
+        assertEquals(expected.value(), batch.getValue(hand), what + " value");
+        assertEquals(expected.isSoft(), batch.isSoft(hand), what + " soft");
+        assertEquals(expected.isBust(), batch.isBust(hand), what + " bust");
+        assertEquals(expected.size(), batch.getCardCount(hand), what + " card count");
+    }
+
+    @Test
+    void evaluateMatchesHand() {
+        Random random = new Random(1);
+        for (HandEvaluator evaluator : evaluators()) {
+            for (int size : SIZES) {
+                HandBatch batch = new HandBatch(size, Hand.MAX_CARDS);
+                Hand[] hands = new Hand[size];
+                for (int i = 0; i < size; i++) {
+                    hands[i] = new Hand();
+                    int cards = 1 + random.nextInt(random.nextBoolean() ? 3 : 8);
+                    for (int card = 0; card < cards; card++) {
+                        int code = randomCode(random);
+                        hands[i].add(code);
+                        batch.set(i, card, code);
+                    }
+                }
+                batch.setSize(size);
+                evaluator.evaluate(batch);
+                for (int i = 0; i < size; i++) {
+                    assertSameTotals(hands[i], batch, i, evaluator.getClass().getSimpleName() + " hand " + i);
+                }
+            }
+        }
+    }
+
+    /** Fills a dealer lane with random cards and plays the same cards by the rules. */
+    private static Hand fillDealer(HandBatch dealers, int hand, Random random) {
+        int[] codes = new int[dealers.slots()];
+        for (int slot = 0; slot < codes.length; slot++) {
+            codes[slot] = randomCode(random);
+            dealers.set(hand, slot, codes[slot]);
+        }
+        Hand dealer = new Hand();
+        dealer.add(codes[0]);
+        dealer.add(codes[1]);
+        for (int slot = 2; BlackjackRules.dealerMustHit(dealer); slot++) {
+            dealer.add(codes[slot]);
+        }
+        return dealer;
+    }
+
+    @Test
+    void playDealerMatchesTheRules() {
+        Random random = new Random(2);
+        for (HandEvaluator evaluator : evaluators()) {
+            for (int size : SIZES) {
+                HandBatch dealers = new HandBatch(size, BlackjackSimulator.DEALER_SLOTS);
+                Hand[] expected = new Hand[size];
+                for (int i = 0; i < size; i++) {
+                    expected[i] = fillDealer(dealers, i, random);
+                }
+                dealers.setSize(size);
+                evaluator.playDealer(dealers);
+                for (int i = 0; i < size; i++) {
+                    assertSameTotals(expected[i], dealers, i, evaluator.getClass().getSimpleName() + " dealer " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void longestDealerHandFitsTheSimulatorsSlots() {
+        int[] codes = { ACE, ACE, ACE, ACE, ACE, ACE, SIX, ACE, ACE, ACE, ACE, TEN };
+        assertEquals(BlackjackSimulator.DEALER_SLOTS, codes.length);
+        for (HandEvaluator evaluator : evaluators()) {
+            HandBatch dealers = new HandBatch(1, BlackjackSimulator.DEALER_SLOTS);
+            for (int slot = 0; slot < codes.length; slot++) {
+                dealers.set(0, slot, codes[slot]);
+            }
+            dealers.setSize(1);
+            evaluator.playDealer(dealers);
+            assertEquals(codes.length, dealers.getCardCount(0));
+            assertEquals(26, dealers.getValue(0));
+            assertTrue(dealers.isBust(0));
+        }
+    }
+
+    @Test
+    void settleMatchesTheRules() {
+        Random random = new Random(3);
+        for (HandEvaluator evaluator : evaluators()) {
+            for (int size : SIZES) {
+                HandBatch players = new HandBatch(size, Hand.MAX_CARDS);
+                HandBatch dealers = new HandBatch(size, BlackjackSimulator.DEALER_SLOTS);
+                Hand[] playerHands = new Hand[size];
+                Hand[] dealerHands = new Hand[size];
+                for (int i = 0; i < size; i++) {
+                    playerHands[i] = new Hand();
+                    int standsOn = 12 + random.nextInt(10);
+                    for (int card = 0; card < 2 || playerHands[i].value() < standsOn; card++) {
+                        int code = randomCode(random);
+                        playerHands[i].add(code);
+                        players.set(i, card, code);
+                    }
+                    dealerHands[i] = fillDealer(dealers, i, random);
+                }
+                players.setSize(size);
+                dealers.setSize(size);
+                evaluator.evaluate(players);
+                evaluator.playDealer(dealers);
+                int[] payoffs = new int[players.capacity()];
+                evaluator.settle(players, dealers, payoffs);
+                for (int i = 0; i < size; i++) {
+                    GameResult result = BlackjackRules.settle(playerHands[i], dealerHands[i]);
+                    int expected = result == GameResult.WIN ? 1 : result == GameResult.LOSE ? -1 : 0;
+                    assertEquals(expected, payoffs[i], evaluator.getClass().getSimpleName() + " hand " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void vectorEvaluatorIsPickedWhenAvailable() {
+        boolean moduleLoaded = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        boolean built = getClass().getClassLoader().getResource("sim/VectorHandEvaluator.class") != null;
+        String expected = moduleLoaded && built ? "VectorHandEvaluator" : "ScalarHandEvaluator";
+        assertEquals(expected, HandEvaluator.create().getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,187 @@
+package storage;
+
+import model.Hand;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnCodecTest {
+
+    private static final int[] COUNTS = { 0, 1, 2, 63, 64, 65, 1000 };
+
+    @TempDir
+    Path directory;
+
+    @FunctionalInterface
+    private interface Encoder {
+        void encode(ColumnCodec.Sink out, long[] values, int count);
+    }
+
+    /**
+     * Encodes after a few bytes of other data and decodes from that offset,
+     * into an array that is longer than needed.
+     */
+    private static long[] roundTrip(Encoder encoder, long[] values, int count, byte expectedEncoding) {
+        ColumnCodec.Sink out = new ColumnCodec.Sink();
+        out.put(0x55);
+        out.put(0x55);
+        encoder.encode(out, values, count);
+        ByteBuffer encoded = out.view();
+        assertEquals(expectedEncoding, encoded.get(2));
+
+        long[] decoded = new long[count + 3];
+        Arrays.fill(decoded, 42L);
+        ColumnCodec.decode(encoded, 2, count, decoded);
+        assertEquals(42L, decoded[count], "decoded past the end");
+        return Arrays.copyOf(decoded, count);
+    }
+
+    private static long[] randomValues(Random random, int count, int width) {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = width == 0 ? 0 : random.nextLong() >>> (Long.SIZE - width);
+        }
+        // Make sure the widest value is there so the chosen width is exactly width
+        if (count > 0 && width > 0) {
+            values[count / 2] = width == Long.SIZE ? -1L : (1L << width) - 1;
+        }
+        return values;
+    }
+
+    @Test
+    void bitWidths() {
+        assertEquals(0, ColumnCodec.bitWidth(0));
+        assertEquals(1, ColumnCodec.bitWidth(1));
+        assertEquals(2, ColumnCodec.bitWidth(2));
+        assertEquals(63, ColumnCodec.bitWidth(Long.MAX_VALUE));
+        assertEquals(64, ColumnCodec.bitWidth(-1L));
+    }
+
+    @Test
+    void bitPackingRoundTripsEveryWidth() {
+        Random random = new Random(1);
+        for (int width = 0; width <= Long.SIZE; width++) {
+            for (int count : COUNTS) {
+                long[] values = randomValues(random, count, width);
+                long[] decoded = roundTrip(ColumnCodec::bitPack, values, count, ColumnCodec.BIT_PACKED);
+                assertArrayEquals(values, decoded, "width " + width + ", " + count + " values");
+            }
+        }
+    }
+
+    @Test
+    void bitPackingKeepsNegativeValuesAtFullWidth() {
+        long[] values = { Long.MIN_VALUE, -1L, 0L, Long.MAX_VALUE, 1L, -2L, 12345L };
+        assertArrayEquals(values, roundTrip(ColumnCodec::bitPack, values, values.length, ColumnCodec.BIT_PACKED));
+    }
+
+    @Test
+    void dictionaryRoundTripsAndFallsBackToBitPacking() {
+        Random random = new Random(2);
+        for (int distinct : new int[] { 1, 2, 3, ColumnCodec.MAX_DICTIONARY_SIZE }) {
+            long[] entries = new long[distinct];
+            for (int i = 0; i < distinct; i++) {
+                entries[i] = random.nextLong() >>> 1;
+            }
+            for (int count : COUNTS) {
+                long[] values = new long[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = entries[i % distinct];
+                }
+                assertArrayEquals(values, roundTrip(ColumnCodec::dictionary, values, count, ColumnCodec.DICTIONARY),
+                        distinct + " distinct, " + count + " values");
+            }
+        }
+
+        long[] tooMany = new long[ColumnCodec.MAX_DICTIONARY_SIZE + 1];
+        for (int i = 0; i < tooMany.length; i++) {
+            tooMany[i] = i * 1000L;
+        }
+        assertArrayEquals(tooMany, roundTrip(ColumnCodec::dictionary, tooMany, tooMany.length, ColumnCodec.BIT_PACKED));
+    }
+
+    @Test
+    void deltaRoundTripsIncludingOverflow() {
+        Random random = new Random(3);
+        long[] extremes = { 0, Long.MAX_VALUE, Long.MIN_VALUE, -1, 1, Long.MIN_VALUE, Long.MAX_VALUE, 0 };
+        assertArrayEquals(extremes, roundTrip(ColumnCodec::delta, extremes, extremes.length, ColumnCodec.DELTA));
+
+        for (int count : COUNTS) {
+            long[] timestamps = new long[count];
+            long time = 1_700_000_000_000L;
+            for (int i = 0; i < count; i++) {
+                time += random.nextInt(2000) - 100; // mostly increasing, sometimes back
+                timestamps[i] = time;
+            }
+            assertArrayEquals(timestamps, roundTrip(ColumnCodec::delta, timestamps, count, ColumnCodec.DELTA));
+        }
+    }
+
+    @Test
+    void runLengthRoundTrips() {
+        Random random = new Random(4);
+        for (int count : COUNTS) {
+            long[] values = new long[count];
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                if (random.nextInt(8) == 0) {
+                    value = random.nextInt(21) - 10;
+                }
+                values[i] = value;
+            }
+            assertArrayEquals(values, roundTrip(ColumnCodec::runLength, values, count, ColumnCodec.RLE));
+        }
+        long[] extremes = { Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, -1, -1, -1 };
+        assertArrayEquals(extremes, roundTrip(ColumnCodec::runLength, extremes, extremes.length, ColumnCodec.RLE));
+    }
+
+    @Test
+    void corruptChunksAreRejected() {
+        ColumnCodec.Sink out = new ColumnCodec.Sink();
+        ColumnCodec.runLength(out, new long[] { 7, 7, 7, 7 }, 4);
+        long[] dst = new long[4];
+        // The run is longer than the values the footer promised
+        assertThrows(IllegalArgumentException.class, () -> ColumnCodec.decode(out.view(), 0, 3, dst));
+
+        ColumnCodec.Sink unknown = new ColumnCodec.Sink();
+        unknown.put(9);
+        assertThrows(IllegalArgumentException.class, () -> ColumnCodec.decode(unknown.view(), 0, 1, dst));
+    }
+
+    private static Hand hand(int... codes) {
+        Hand hand = new Hand();
+        for (int code : codes) {
+            hand.add(code);
+        }
+        return hand;
+    }
+
+    @Test
+    void upcardCountsLeaveTheQueryModeAlone() throws IOException {
+        Path file = directory.resolve("hands.col");
+        try (ColumnarHandWriter writer = ColumnarHandWriter.create(file, 64)) {
+            for (int i = 0; i < 300; i++) {
+                // Ace up against a ten-point card, and a Higher/Lower guess
+                writer.append(hand(8, 9), hand(12, 11), Outcome.LOSE, i);
+                writer.append(GameMode.HIGHER_LOWER, 3, 7, Outcome.WIN, i);
+            }
+        }
+        try (ColumnarHandReader reader = ColumnarHandReader.open(file)) {
+            ColumnarHandReader.Query query = reader.query().mode(GameMode.HIGHER_LOWER);
+            ColumnarHandReader.OutcomeCounts[] byUpcard = query.countByDealerUpcard();
+            assertEquals(300, byUpcard[1].losses());
+            assertEquals(300, Arrays.stream(byUpcard).mapToLong(ColumnarHandReader.OutcomeCounts::total).sum());
+            assertEquals(new ColumnarHandReader.OutcomeCounts(300, 0, 0), query.countOutcomes());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package storage;
+
+import model.BlackjackModel;
+import model.HigherLowerModel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void varintsRoundTrip() {
+        long[] values = { 0, 1, 127, 128, 255, 16_383, 16_384, Integer.MAX_VALUE, 1L << 56,
+                Long.MAX_VALUE, Long.MIN_VALUE, -1 };
+        int[] sizes = { 1, 1, 1, 2, 2, 2, 3, 5, 9, 9, 10, 10 };
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        for (int i = 0; i < values.length; i++) {
+            int start = buffer.position();
+            GameJournal.putVarint(buffer, values[i]);
+            assertEquals(sizes[i], buffer.position() - start, "size of " + values[i]);
+        }
+        buffer.flip();
+        for (long value : values) {
+            assertEquals(value, JournalReplayer.getVarint(buffer));
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void malformedVarintsAreRejected() {
+        byte[] endless = new byte[11];
+        Arrays.fill(endless, (byte) 0x80);
+        assertThrows(IllegalArgumentException.class, () -> JournalReplayer.getVarint(ByteBuffer.wrap(endless)));
+
+        byte[] torn = { (byte) 0x80, (byte) 0x80 };
+        assertThrows(BufferUnderflowException.class, () -> JournalReplayer.getVarint(ByteBuffer.wrap(torn)));
+    }
+
+    private static void playOut(HigherLowerModel model) {
+        while (!model.isGameOver()) {
+            model.makeGuess(model.suggestGuess());
+        }
+    }
+
+    private static void playOut(BlackjackModel model) {
+        while (!model.isGameOver() && model.getPlayerValue() < 17) {
+            model.hit();
+        }
+        model.stand();
+    }
+
+    @Test
+    void journaledGamesReplayConsistently() throws IOException {
+        Path file = directory.resolve("journal.bin");
+        HigherLowerModel higherLower = new HigherLowerModel(false, new Random(1));
+        HigherLowerModel jokers = new HigherLowerModel(true, new Random(2));
+        BlackjackModel blackjack = new BlackjackModel(new Random(3));
+        int games = 0;
+        try (GameJournal journal = GameJournal.open(file)) {
+            journal.attach(higherLower);
+            journal.attach(jokers);
+            journal.attach(blackjack);
+            for (int i = 0; i < 50; i++) {
+                higherLower.startNewGame();
+                jokers.startNewGame();
+                blackjack.startNewGame();
+                // Interleave the streams
+                higherLower.makeGuess(higherLower.suggestGuess());
+                blackjack.hit();
+                playOut(jokers);
+                playOut(higherLower);
+                playOut(blackjack);
+                games += 3;
+            }
+        }
+
+        JournalReplayer.Report report = JournalReplayer.replay(file);
+        assertTrue(report.isConsistent(), report.toString());
+        assertEquals(games, report.games());
+        assertEquals(0, report.unfinished());
+        assertFalse(report.truncated());
+
+        // A second session appends to the same file
+        try (GameJournal journal = GameJournal.open(file)) {
+            journal.attach(blackjack);
+            blackjack.startNewGame();
+            playOut(blackjack);
+        }
+        report = JournalReplayer.replay(file);
+        assertTrue(report.isConsistent(), report.toString());
+        assertEquals(games + 1, report.games());
+    }
+
+    @Test
+    void restoredGamesReplayFromTheirSnapshot() throws IOException {
+        Path file = directory.resolve("journal.bin");
+        HigherLowerModel higherLower = new HigherLowerModel(false, new Random(4));
+        BlackjackModel blackjack = new BlackjackModel(new Random(5));
+        try (GameJournal journal = GameJournal.open(file)) {
+            journal.attach(higherLower);
+            journal.attach(blackjack);
+            for (int i = 0; i < 20; i++) {
+                higherLower.startNewGame();
+                higherLower.makeGuess(higherLower.suggestGuess());
+                byte[] game = higherLower.save();
+                playOut(higherLower);
+                // Resume the saved game and play it again
+                higherLower.restore(game);
+                playOut(higherLower);
+
+                blackjack.startNewGame();
+                byte[] hand = blackjack.save();
+                playOut(blackjack);
+                blackjack.restore(hand);
+                playOut(blackjack);
+                // A finished hand restored and left as it is
+                blackjack.restore(blackjack.save());
+            }
+        }
+
+        JournalReplayer.Report report = JournalReplayer.replay(file);
+        assertTrue(report.isConsistent(), report.toString());
+        assertEquals(20 * 5, report.games());
+        assertEquals(0, report.unfinished());
+    }
+
+    @Test
+    void tornRecordAtTheEndIsIgnored() throws IOException {
+        Path file = directory.resolve("journal.bin");
+        BlackjackModel blackjack = new BlackjackModel(new Random(6));
+        try (GameJournal journal = GameJournal.open(file)) {
+            journal.attach(blackjack);
+            for (int i = 0; i < 5; i++) {
+                blackjack.startNewGame();
+                playOut(blackjack);
+            }
+            blackjack.startNewGame();
+            blackjack.restore(blackjack.save());
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        JournalReplayer.Report report = JournalReplayer.replay(file);
+        assertTrue(report.isConsistent(), report.toString());
+        assertTrue(report.truncated());
+        assertEquals(5, report.games());
+        assertEquals(1, report.unfinished());
+    }
+}
@@ -0,0 +1,182 @@
+package storage;
+
+import model.BlackjackModel;
+import model.Card;
+import model.Hand;
+import model.HigherLowerModel.Guess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HandHistoryTest {
+
+    private static Hand hand(int... codes) {
+        Hand hand = new Hand();
+        for (int code : codes) {
+            hand.add(code);
+        }
+        return hand;
+    }
+
+    /** Appends a guess whose fields all follow from {@code sequence}. */
+    private static void appendGuess(HandHistory history, long sequence) {
+        history.append(GameMode.HIGHER_LOWER, sequence % 2 == 0 ? Guess.HIGHER : Guess.LOWER,
+                (int) (sequence % 52), (int) (sequence * 7 % 52), Outcome.values()[(int) (sequence % 3)], sequence);
+    }
+
+    /** Checks that the cursor's record is the one {@link #appendGuess} wrote for its sequence. */
+    private static String checkGuess(HandHistory.Cursor cursor) {
+        long sequence = cursor.getSequence();
+        int previous = (int) (sequence % 52);
+        int next = (int) (sequence * 7 % 52);
+        boolean consistent = cursor.getTimestamp() == sequence
+                && cursor.getMode() == GameMode.HIGHER_LOWER
+                && cursor.getOutcome() == Outcome.values()[(int) (sequence % 3)]
+                && cursor.getFlags() == (sequence % 2 == 0 ? HandHistory.FLAG_GUESSED_HIGHER : 0)
+                && cursor.getPlayerCard(0) == previous && cursor.getDealerCard(0) == next
+                && cursor.getPlayerTotal() == Card.valueOf(previous) && cursor.getDealerTotal() == Card.valueOf(next);
+        return consistent ? null : "torn record at sequence " + sequence + " with timestamp " + cursor.getTimestamp();
+    }
+
+    @Test
+    void capacityRoundsUpToAPowerOfTwo() {
+        assertEquals(1, new HandHistory(1).getCapacity());
+        assertEquals(4, new HandHistory(3).getCapacity());
+        assertEquals(1024, new HandHistory(1000).getCapacity());
+        assertEquals(1024L * HandHistory.RECORD_SIZE, new HandHistory(1024).getMemoryBytes());
+        assertThrows(IllegalArgumentException.class, () -> new HandHistory(0));
+        assertThrows(IllegalArgumentException.class, () -> new HandHistory(HandHistory.MAX_CAPACITY + 1));
+    }
+
+    @Test
+    void blackjackHandRoundTrip() {
+        HandHistory history = new HandHistory(8);
+        Hand player = hand(12, 11); // Ace and King of the first suit
+        Hand dealer = hand(8, 5, 3, 1, 0, 13, 26, 39, 14, 27, 40, 2, 15); // thirteen cards
+        history.append(player, dealer, Outcome.WIN, 1234L);
+
+        HandHistory.Cursor cursor = history.cursor();
+        assertTrue(cursor.next());
+        assertEquals(0, cursor.getSequence());
+        assertEquals(1234L, cursor.getTimestamp());
+        assertEquals(GameMode.BLACKJACK, cursor.getMode());
+        assertEquals(Outcome.WIN, cursor.getOutcome());
+        assertEquals(21, cursor.getPlayerTotal());
+        assertEquals(dealer.value(), cursor.getDealerTotal());
+        assertEquals(HandHistory.FLAG_BLACKJACK, cursor.getFlags());
+        assertEquals(2, cursor.getPlayerCardCount());
+        assertEquals(11, cursor.getPlayerCard(1));
+        assertEquals(13, cursor.getDealerCardCount());
+        assertEquals(2, cursor.getDealerCard(HandHistory.MAX_STORED_CARDS - 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> cursor.getDealerCard(HandHistory.MAX_STORED_CARDS));
+        assertThrows(IndexOutOfBoundsException.class, () -> cursor.getPlayerCard(2));
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void ringOverwritesTheOldestHands() {
+        HandHistory history = new HandHistory(4);
+        HandHistory.Cursor early = history.cursor();
+        for (long i = 0; i < 10; i++) {
+            appendGuess(history, i);
+        }
+        assertEquals(10, history.getAppended());
+
+        // A new cursor starts at the oldest hand still held
+        HandHistory.Cursor cursor = history.cursor();
+        for (long expected = 6; expected < 10; expected++) {
+            assertTrue(cursor.next());
+            assertEquals(expected, cursor.getSequence());
+            assertNull(checkGuess(cursor));
+        }
+        assertFalse(cursor.next());
+        assertEquals(0, cursor.getMissed());
+
+        // One opened before the writer lapped it skips what was overwritten
+        assertTrue(early.next());
+        assertEquals(6, early.getSequence());
+        assertEquals(6, early.getMissed());
+
+        // Seeking back past the ring is the same as being lapped
+        cursor.seek(1);
+        assertTrue(cursor.next());
+        assertEquals(6, cursor.getSequence());
+        assertEquals(5, cursor.getMissed());
+        assertThrows(IllegalArgumentException.class, () -> cursor.seek(-1));
+    }
+
+    @Test
+    void readersNeverSeeATornRecord() throws InterruptedException {
+        HandHistory history = new HandHistory(16);
+        long total = 2_000_000;
+        AtomicReference<String> failure = new AtomicReference<>();
+        long[] seen = new long[1];
+        long[] missed = new long[1];
+
+        HandHistory.Cursor cursor = history.cursor();
+        Thread reader = new Thread(() -> {
+            long last = -1;
+            while (last < total - 1 && failure.get() == null) {
+                if (!cursor.next()) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                String error = checkGuess(cursor);
+                if (error == null && cursor.getSequence() <= last) {
+                    error = "sequence went back from " + last + " to " + cursor.getSequence();
+                }
+                if (error != null) {
+                    failure.set(error);
+                }
+                last = cursor.getSequence();
+                seen[0]++;
+            }
+            missed[0] = cursor.getMissed();
+        });
+        reader.start();
+        for (long i = 0; i < total; i++) {
+            appendGuess(history, i);
+        }
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(total, seen[0] + missed[0]);
+    }
+
+    @Test
+    void attachedModelRecordsSettledHandsButNotRestoredOnes() {
+        HandHistory history = new HandHistory(64);
+        BlackjackModel model = new BlackjackModel(new Random(8));
+        history.attach(model);
+        for (int i = 0; i < 10; i++) {
+            model.startNewGame();
+            model.stand();
+        }
+        assertEquals(10, history.getAppended());
+
+        // The last hand, resumed and settled again, isn't recorded twice
+        model.startNewGame();
+        byte[] snapshot = model.save();
+        model.stand();
+        model.restore(snapshot);
+        model.stand();
+        assertEquals(11, history.getAppended());
+
+        HandHistory.Cursor cursor = history.cursor();
+        long count = 0;
+        while (cursor.next()) {
+            assertEquals(GameMode.BLACKJACK, cursor.getMode());
+            assertTrue(cursor.getPlayerCardCount() >= 2 && cursor.getDealerCardCount() >= 2);
+            count++;
+        }
+        assertEquals(11, count);
+    }
+}